@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2026 Oliver Boehm
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details. You should have received a copy of
+ * the GNU Lesser General Public License along with this program; if not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package ch.ethz.vppserver.ippclient;
+
+import java.nio.ByteBuffer;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of the buffers which are used to encode IPP requests. A buffer is
+ * taken with {@link #acquire()} and given back with {@link #release(ByteBuffer)}
+ * after the request is sent, so the encoding of a request allocates no
+ * memory once the pool is warmed up. If an attribute does not fit in the
+ * buffer {@link IppTag} replaces it with a bigger one (see
+ * {@link #ensureCapacity(ByteBuffer, int)}), so long attribute lists never
+ * overflow. The most recently released buffer is handed out first.
+ */
+public final class IppBufferPool {
+
+  /** Initial size of an encode buffer. */
+  public static final int DEFAULT_SIZE = 8192;
+
+  /** Bigger buffers are not kept in the pool. */
+  static final int MAX_POOLED_SIZE = 1024 * 1024;
+
+  /** Max number of idle buffers in the pool. */
+  static final int MAX_POOLED_BUFFERS = 32;
+
+  private static final Deque<ByteBuffer> pool = new ConcurrentLinkedDeque<ByteBuffer>();
+  private static final AtomicInteger pooled = new AtomicInteger();
+
+  private IppBufferPool() {
+  }
+
+  /**
+   * Takes an empty buffer from the pool. If the pool is empty a new buffer
+   * with {@link #DEFAULT_SIZE} is allocated.
+   *
+   * @return empty buffer ready for writing
+   */
+  public static ByteBuffer acquire() {
+    ByteBuffer buffer = pool.pollFirst();
+    if (buffer == null) {
+      return ByteBuffer.allocate(DEFAULT_SIZE);
+    }
+    pooled.decrementAndGet();
+    buffer.clear();
+    return buffer;
+  }
+
+  /**
+   * Gives the buffer back to the pool. The caller must not use the buffer
+   * (or a duplicate of it) afterwards. Direct, read-only, undersized,
+   * oversized or null buffers are ignored, and so are buffers which exceed
+   * the pool limit.
+   *
+   * @param buffer
+   *          a buffer from {@link #acquire()}
+   */
+  public static void release(ByteBuffer buffer) {
+    if ((buffer == null) || !buffer.hasArray() || (buffer.capacity() < DEFAULT_SIZE)
+        || (buffer.capacity() > MAX_POOLED_SIZE)) {
+      return;
+    }
+    if (pooled.incrementAndGet() > MAX_POOLED_BUFFERS) {
+      pooled.decrementAndGet();
+      return;
+    }
+    buffer.clear();
+    pool.offerFirst(buffer);
+  }
+
+  /**
+   * Makes sure that at least the given number of bytes can be written into
+   * the buffer. If not, the written content is copied into a buffer with
+   * (at least) double capacity and the old buffer is released.
+   *
+   * @param buffer
+   *          the buffer in write mode
+   * @param needed
+   *          number of bytes which will be written
+   * @return the given buffer or its bigger replacement
+   */
+  public static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+    if (buffer.remaining() >= needed) {
+      return buffer;
+    }
+    int capacity = Math.max(buffer.capacity(), 64);
+    while (capacity - buffer.position() < needed) {
+      capacity *= 2;
+    }
+    ByteBuffer bigger = ByteBuffer.allocate(capacity);
+    buffer.flip();
+    bigger.put(buffer);
+    release(buffer);
+    return bigger;
+  }
+
+  /**
+   * Gets the number of idle buffers in the pool.
+   *
+   * @return number of buffers
+   */
+  static int size() {
+    return pooled.get();
+  }
+
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2026 Oliver Boehm
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details. You should have received a copy of
+ * the GNU Lesser General Public License along with this program; if not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package ch.ethz.vppserver.ippclient;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the encoded start of IPP requests. Most requests start with the
+ * same attributes for the same printer (version, operation, charset,
+ * natural language, "printer-uri" and "requesting-user-name"). These are
+ * encoded only once per operation, printer and user. For a request the
+ * template is copied into the buffer and only the request-id is patched.
+ */
+public final class IppHeaderTemplates {
+
+  /** If there are more templates the cache is cleared. */
+  static final int MAX_TEMPLATES = 256;
+
+  private static final int REQUEST_ID_OFFSET = 4;
+
+  private static final Map<Key, byte[]> templates = new ConcurrentHashMap<Key, byte[]>();
+
+  private IppHeaderTemplates() {
+  }
+
+  /**
+   * Writes the operation and the given "printer-uri" into the buffer. It
+   * is the same as {@link IppTag#getOperation(ByteBuffer, short)} followed
+   * by {@link IppTag#getUri(ByteBuffer, String, String)}.
+   *
+   * @param ippBuf
+   *          the buffer in write mode
+   * @param operation
+   *          the operation id
+   * @param printerUri
+   *          the value of "printer-uri"
+   * @return the given buffer or a bigger replacement
+   * @throws UnsupportedEncodingException
+   */
+  public static ByteBuffer getHeader(ByteBuffer ippBuf, short operation, String printerUri)
+      throws UnsupportedEncodingException {
+    return getHeader(ippBuf, new Key(operation, printerUri, false, null));
+  }
+
+  /**
+   * Writes the operation, the given "printer-uri" and
+   * "requesting-user-name" into the buffer. It is the same as
+   * {@link IppTag#getOperation(ByteBuffer, short)} followed by
+   * {@link IppTag#getUri(ByteBuffer, String, String)} and
+   * {@link IppTag#getNameWithoutLanguage(ByteBuffer, String, String)}.
+   *
+   * @param ippBuf
+   *          the buffer in write mode
+   * @param operation
+   *          the operation id
+   * @param printerUri
+   *          the value of "printer-uri"
+   * @param userName
+   *          the value of "requesting-user-name" (can be null)
+   * @return the given buffer or a bigger replacement
+   * @throws UnsupportedEncodingException
+   */
+  public static ByteBuffer getHeader(ByteBuffer ippBuf, short operation, String printerUri, String userName)
+      throws UnsupportedEncodingException {
+    return getHeader(ippBuf, new Key(operation, printerUri, true, userName));
+  }
+
+  private static ByteBuffer getHeader(ByteBuffer ippBuf, Key key) throws UnsupportedEncodingException {
+    byte[] template = templates.get(key);
+    if (template == null) {
+      template = encode(key);
+      if (templates.size() >= MAX_TEMPLATES) {
+        templates.clear();
+      }
+      templates.put(key, template);
+    }
+    ippBuf = IppBufferPool.ensureCapacity(ippBuf, template.length);
+    int start = ippBuf.position();
+    ippBuf.put(template);
+    ippBuf.putInt(start + REQUEST_ID_OFFSET, IppTag.nextRequestID());
+    return ippBuf;
+  }
+
+  private static byte[] encode(Key key) throws UnsupportedEncodingException {
+    ByteBuffer ippBuf = ByteBuffer.allocate(256);
+    // the request-id is patched for each request, so no id is taken for the template
+    ippBuf = IppTag.getOperation(ippBuf, key.operation, null, null, 0);
+    ippBuf = IppTag.getUri(ippBuf, "printer-uri", key.printerUri);
+    if (key.withUser) {
+      ippBuf = IppTag.getNameWithoutLanguage(ippBuf, "requesting-user-name", key.userName);
+    }
+    ippBuf.flip();
+    byte[] template = new byte[ippBuf.remaining()];
+    ippBuf.get(template);
+    return template;
+  }
+
+  /**
+   * Gets the number of cached templates.
+   *
+   * @return number of templates
+   */
+  static int size() {
+    return templates.size();
+  }
+
+  private static final class Key {
+
+    private final short operation;
+    private final String printerUri;
+    private final boolean withUser;
+    private final String userName;
+
+    Key(short operation, String printerUri, boolean withUser, String userName) {
+      this.operation = operation;
+      this.printerUri = printerUri;
+      this.withUser = withUser;
+      this.userName = userName;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return (operation == other.operation) && (withUser == other.withUser) && equals(printerUri, other.printerUri)
+          && equals(userName, other.userName);
+    }
+
+    private static boolean equals(String s1, String s2) {
+      return (s1 == null) ? (s2 == null) : s1.equals(s2);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = operation * 31 + (withUser ? 1 : 0);
+      hash = hash * 31 + ((printerUri == null) ? 0 : printerUri.hashCode());
+      return hash * 31 + ((userName == null) ? 0 : userName.hashCode());
+    }
+
+  }
+
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright (C) 2026 Oliver Boehm
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details. You should have received a copy of
+ * the GNU Lesser General Public License along with this program; if not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package ch.ethz.vppserver.ippclient;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.charset.Charset;
+
+/**
+ * Pull parser for IPP messages (RFC 8010). The message is read from a
+ * stream while {@link #next()} is called, so a response can be processed
+ * while it is still arriving. Only the current value is kept in memory.
+ * <p>
+ * The version, the status code (or operation id of a request) and the
+ * request-id are read when the reader is created. Then {@link #next()}
+ * returns the events of the attribute groups:
+ * </p>
+ * <pre>
+ * START_GROUP (ATTRIBUTE VALUE*)* END_GROUP ... END
+ * </pre>
+ * <p>
+ * An attribute with more than one value (1setOf) is reported as
+ * {@link Event#ATTRIBUTE} for the first value followed by
+ * {@link Event#VALUE} for each additional value.
+ * </p>
+ */
+public final class IppReader implements Closeable {
+
+  /** The events reported by {@link IppReader#next()}. */
+  public enum Event {
+    /** Begin of an attribute group, see {@link IppReader#getGroupTag()}. */
+    START_GROUP,
+    /** A new attribute with its first value. */
+    ATTRIBUTE,
+    /** An additional value of the current attribute. */
+    VALUE,
+    /** End of the current attribute group. */
+    END_GROUP,
+    /** End of the attributes. */
+    END
+  }
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int END_OF_ATTRIBUTES = 0x03;
+  private static final int MAX_DELIMITER = 0x0f;
+  private static final byte[] NO_VALUE = new byte[0];
+
+  private final DataInputStream istream;
+  private final byte majorVersion;
+  private final byte minorVersion;
+  private final short statusCode;
+  private final int requestId;
+  private boolean inGroup;
+  private boolean end;
+  private int pendingTag;
+  private boolean pending;
+  private byte groupTag;
+  private String name;
+  private byte valueTag;
+  private byte[] value = NO_VALUE;
+
+  /**
+   * Creates a reader and reads the version, status code and request-id.
+   *
+   * @param istream
+   *          the IPP message
+   * @throws IOException
+   *           if the stream ends before the header
+   */
+  public IppReader(InputStream istream) throws IOException {
+    this.istream = new DataInputStream(
+        (istream instanceof BufferedInputStream) ? istream : new BufferedInputStream(istream));
+    this.majorVersion = this.istream.readByte();
+    this.minorVersion = this.istream.readByte();
+    this.statusCode = this.istream.readShort();
+    this.requestId = this.istream.readInt();
+  }
+
+  /**
+   * Reads the next group delimiter or value.
+   *
+   * @return the next event ({@link Event#END} at the end of the attributes)
+   * @throws IOException
+   *           if the stream is truncated (EOFException) or malformed
+   *           (ProtocolException)
+   */
+  public Event next() throws IOException {
+    if (end) {
+      return Event.END;
+    }
+    int tag = pending ? pendingTag : istream.read();
+    pending = false;
+    if (tag <= MAX_DELIMITER) {
+      if (inGroup) {
+        inGroup = false;
+        pending = true;
+        pendingTag = tag;
+        return Event.END_GROUP;
+      }
+      if ((tag < 0) || (tag == END_OF_ATTRIBUTES)) {
+        end = true;
+        return Event.END;
+      }
+      groupTag = (byte) tag;
+      name = null;
+      inGroup = true;
+      return Event.START_GROUP;
+    }
+    valueTag = (byte) tag;
+    Event event = Event.VALUE;
+    int nameLength = istream.readUnsignedShort();
+    if (nameLength > 0) {
+      name = new String(readFully(nameLength), UTF_8);
+      event = Event.ATTRIBUTE;
+    }
+    value = readFully(istream.readUnsignedShort());
+    if (!inGroup || (name == null)) {
+      throw new ProtocolException("value with tag " + IppUtil.toHexWithMarker(valueTag) + " outside of an attribute");
+    }
+    checkValueLength();
+    return event;
+  }
+
+  private byte[] readFully(int length) throws IOException {
+    if (length == 0) {
+      return NO_VALUE;
+    }
+    byte[] bytes = new byte[length];
+    istream.readFully(bytes);
+    return bytes;
+  }
+
+  private void checkValueLength() throws ProtocolException {
+    int expected;
+    switch (valueTag) {
+    case 0x21: // integer
+    case 0x23: // enum
+      expected = 4;
+      break;
+    case 0x22: // boolean
+      expected = 1;
+      break;
+    case 0x31: // dateTime
+      expected = 11;
+      break;
+    case 0x32: // resolution
+      expected = 9;
+      break;
+    case 0x33: // rangeOfInteger
+      expected = 8;
+      break;
+    default:
+      return;
+    }
+    if (value.length != expected) {
+      throw new ProtocolException(name + ": " + IppUtil.toHexWithMarker(valueTag) + " value with " + value.length
+          + " bytes instead of " + expected);
+    }
+  }
+
+  /**
+   * Gets the major version, e.g. 0x01 for IPP/1.1.
+   *
+   * @return major version
+   */
+  public byte getMajorVersion() {
+    return majorVersion;
+  }
+
+  /**
+   * Gets the minor version, e.g. 0x01 for IPP/1.1.
+   *
+   * @return minor version
+   */
+  public byte getMinorVersion() {
+    return minorVersion;
+  }
+
+  /**
+   * Gets the status code of a response or the operation id of a request.
+   *
+   * @return status code or operation id
+   */
+  public int getStatusCode() {
+    return statusCode & 0xffff;
+  }
+
+  /**
+   * Gets the request-id.
+   *
+   * @return request-id
+   */
+  public int getRequestId() {
+    return requestId;
+  }
+
+  /**
+   * Gets the delimiter tag of the current group, e.g. 0x01 for
+   * operation-attributes or 0x04 for printer-attributes.
+   *
+   * @return group tag
+   */
+  public byte getGroupTag() {
+    return groupTag;
+  }
+
+  /**
+   * Gets the name of the current attribute.
+   *
+   * @return attribute name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the value tag of the current value, e.g. 0x21 for integer or 0x44
+   * for keyword.
+   *
+   * @return value tag
+   */
+  public byte getValueTag() {
+    return valueTag;
+  }
+
+  /**
+   * Gets the raw bytes of the current value. The array must not be
+   * modified.
+   *
+   * @return value bytes (empty for out-of-band values like no-value)
+   */
+  public byte[] getValue() {
+    return value;
+  }
+
+  /**
+   * Gets the current value as UTF-8 string (e.g. for text, name, keyword
+   * or uri values).
+   *
+   * @return value as string
+   */
+  public String getString() {
+    return new String(value, UTF_8);
+  }
+
+  /**
+   * Gets the current integer or enum value.
+   *
+   * @return value as int
+   */
+  public int getInteger() {
+    return getInteger(0);
+  }
+
+  /**
+   * Gets the current boolean value.
+   *
+   * @return value as boolean
+   */
+  public boolean getBoolean() {
+    return value[0] != 0;
+  }
+
+  /**
+   * Gets an integer of a rangeOfInteger or resolution value, e.g. the
+   * upper bound of a range at offset 4.
+   *
+   * @param offset
+   *          offset within the value
+   * @return integer at the given offset
+   */
+  public int getInteger(int offset) {
+    return ((value[offset] & 0xff) << 24) | ((value[offset + 1] & 0xff) << 16) | ((value[offset + 2] & 0xff) << 8)
+        | (value[offset + 3] & 0xff);
+  }
+
+  /**
+   * Closes the underlying stream.
+   */
+  @Override
+  public void close() throws IOException {
+    istream.close();
+  }
+
+}
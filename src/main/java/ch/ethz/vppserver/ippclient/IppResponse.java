@@ -1,11 +1,20 @@
 package ch.ethz.vppserver.ippclient;
 
+import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.commons.io.IOUtils;
 import org.cups4j.ipp.attributes.Attribute;
 import org.cups4j.ipp.attributes.AttributeGroup;
 import org.cups4j.ipp.attributes.AttributeValue;
@@ -33,31 +42,26 @@ import org.slf4j.LoggerFactory;
 public class IppResponse {
   private static final Logger LOG = LoggerFactory.getLogger(IppResponse.class);
 
-  private final static String CRLF = "\r\n";
 
-  // Saved list of elements of 'TAG_LIST_FILENAME' and 'ATTRIBUTE_LIST_FILENAME'
-  private List<Tag> _tagList = null;
-  private List<AttributeGroup> _attributeGroupList = null;
+  // tags of 'TAG_LIST_FILENAME' indexed by the tag byte
+  private static final String[] TAG_HEX = new String[256];
+  private static final String[] TAG_NAMES = new String[256];
+
+  // enum names of 'ATTRIBUTE_LIST_FILENAME' by attribute name
+  private static final Map<String, EnumNames> ENUM_NAMES = new HashMap<String, EnumNames>();
+
+  static {
+    IIppAttributeProvider ippAttributeProvider = IppAttributeProviderFactory.createIppAttributeProvider();
+    initTagTable(ippAttributeProvider.getTagList());
+    initEnumNames(ippAttributeProvider.getAttributeGroupList());
+  }
 
-  private static final int BYTEBUFFER_CAPACITY = 8192;
   // Saved response of printer
   private AttributeGroup _attributeGroupResult = null;
   private Attribute _attributeResult = null;
   private List<AttributeGroup> _result = null;
 
-  private static IIppAttributeProvider ippAttributeProvider = null;
-
-  // read IPP response in global buffer
-  ByteBuffer _buf = null;
-
   public IppResponse() {
-    ippAttributeProvider = IppAttributeProviderFactory.createIppAttributeProvider();
-
-    _tagList = ippAttributeProvider.getTagList();
-    _attributeGroupList = ippAttributeProvider.getAttributeGroupList();
-
-    _result = new ArrayList<AttributeGroup>();
-    _buf = ByteBuffer.allocate(BYTEBUFFER_CAPACITY);
   }
 
   /**
@@ -71,132 +75,102 @@ public class IppResponse {
       LOG.error("IppResponse.getResponse(): no channel given");
       return null;
     }
-
-    _buf.clear();
-
-    _attributeGroupResult = null;
-    _attributeResult = null;
-    _result.clear();
-
-    IppResult result = new IppResult();
-    boolean httpResponse = false;
-    boolean ippHeaderResponse = false;
-
     // be careful: HTTP and IPP could be transmitted in different set of
     // buffers.
     // see RFC2910, http://www.ietf.org/rfc/rfc2910, page 19
-
-    ByteBuffer tmpBuffer = ByteBuffer.allocate(BYTEBUFFER_CAPACITY);
-    ArrayList<ByteBuffer> bufferList = new ArrayList<ByteBuffer>();
-
-    while (channel.read(tmpBuffer) != -1) {
-      tmpBuffer.flip();
-      // read HTTP header
-      if ((!httpResponse) && (tmpBuffer.hasRemaining())) {
-        _buf = tmpBuffer;
-        result.setHttpStatusResponse(getHTTPHeader());
-        httpResponse = true;
-      }
-
-      // read IPP header
-      if ((!ippHeaderResponse) && (tmpBuffer.hasRemaining())) {
-        _buf = tmpBuffer;
-        result.setIppStatusResponse(getIPPHeader());
-        ippHeaderResponse = true;
-      }
-
-      // read the IPP-answer - this can be large, so take to read all
-      // information
-      if (tmpBuffer.hasRemaining()) {
-        bufferList.add(tmpBuffer);
-      }
-      tmpBuffer = ByteBuffer.allocate(BYTEBUFFER_CAPACITY);
-    }
-
-    _buf = concatenateBytebuffers(bufferList);
-    // read attribute group list with attributes
-    getAttributeGroupList();
-
-    closeAttributeGroup();
-    result.setAttributeGroupList(_result);
+    InputStream istream = new BufferedInputStream(Channels.newInputStream(channel));
+    String httpStatusResponse = getHTTPHeader(istream);
+    IppResult result = getResponse(istream);
+    result.setHttpStatusResponse(httpStatusResponse);
     return result;
   }
 
   /**
    * 
-   * @param channel
+   * @param buffer
    * @return
    * @throws IOException
    */
   public IppResult getResponse(ByteBuffer buffer) throws IOException {
+    return getResponse(new ByteBufferInputStream(buffer));
+  }
 
-    _buf.clear();
-
+  /**
+   * Reads the response while it is arriving. Only the resulting attributes
+   * are kept in memory but not the received bytes. Use {@link IppReader}
+   * directly to process the attributes without collecting them.
+   * 
+   * @param istream
+   *          the IPP response (not closed)
+   * @return the response with its attribute groups
+   * @throws IOException
+   */
+  public IppResult getResponse(InputStream istream) throws IOException {
     _attributeGroupResult = null;
     _attributeResult = null;
-    _result.clear();
+    _result = new ArrayList<AttributeGroup>();
 
     IppResult result = new IppResult();
-    boolean ippHeaderResponse = false;
-
-    // be careful: HTTP and IPP could be transmitted in different set of
-    // buffers.
-    // see RFC2910, http://www.ietf.org/rfc/rfc2910, page 19
-    // read IPP header
-    if ((!ippHeaderResponse) && (buffer.hasRemaining())) {
-      _buf = buffer;
-      if (buffer.get(0) > 0x20) {
-        return parseErrorText();
-      } else {
-        result.setIppStatusResponse(getIPPHeader());
-        ippHeaderResponse = true;
+    PushbackInputStream pushback = new PushbackInputStream(istream);
+    int first = pushback.read();
+    if (first < 0) {
+      return result;
+    }
+    pushback.unread(first);
+    if (first > 0x20) {
+      return parseErrorText(pushback);
+    }
+
+    IppReader reader = new IppReader(pushback);
+    result.setRequestId(reader.getRequestId());
+    result.setIppStatusResponse(getIPPHeader(reader));
+    try {
+      // read attribute group list with attributes
+      for (IppReader.Event event = reader.next(); event != IppReader.Event.END; event = reader.next()) {
+        switch (event) {
+        case START_GROUP:
+          setAttributeGroup(reader.getGroupTag());
+          break;
+        case ATTRIBUTE:
+          setAttributeName(reader.getName());
+          setAttributeValue(reader);
+          break;
+        case VALUE:
+          setAttributeValue(reader);
+          break;
+        default:
+          closeAttributeGroup();
+          break;
+        }
       }
+    } catch (EOFException ex) {
+      LOG.warn("IPP response is truncated, attributes are incomplete:", ex);
     }
 
-    _buf = buffer;
-    // read attribute group list with attributes
-    getAttributeGroupList();
-
     closeAttributeGroup();
     result.setAttributeGroupList(_result);
     return result;
   }
 
-  /**
-   * concatenate nio-ByteBuffers
-   * 
-   * @param buffers
-   *          ArrayList<ByteBuffer>
-   * @return ByteBuffer
-   */
-  private ByteBuffer concatenateBytebuffers(ArrayList<ByteBuffer> buffers) {
-    int n = 0;
-    for (ByteBuffer b : buffers)
-      n += b.remaining();
-
-    ByteBuffer buf = (n > 0 && buffers.get(0).isDirect()) ? ByteBuffer.allocateDirect(n) : ByteBuffer.allocate(n);
-    if (n > 0)
-      buf.order(buffers.get(0).order());
-
-    for (ByteBuffer b : buffers)
-      buf.put(b.duplicate());
-
-    buf.flip();
-    return buf;
-  }
-
   /**
    * 
    * @return
    */
-  private String getHTTPHeader() {
-    String endOf = CRLF + CRLF;
-    StringBuffer sb = new StringBuffer();
-    while (sb.indexOf(endOf) == -1) {
-      int b = _buf.get();
-      int ival = ((int) b) & 0xff;
-      char c = (char) ival;
+  private static String getHTTPHeader(InputStream istream) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    // number of matched bytes of the terminating CRLF CRLF sequence
+    int matched = 0;
+    for (int b = istream.read(); b >= 0; b = istream.read()) {
+      char c = (char) b;
       sb.append(c);
+      if (c == ((matched % 2 == 0) ? '\r' : '\n')) {
+        matched++;
+        if (matched == 4) {
+          break;
+        }
+      } else {
+        matched = (c == '\r') ? 1 : 0;
+      }
     }
     if (sb.length() != 0) {
       return sb.toString();
@@ -208,28 +182,23 @@ public class IppResponse {
    * 
    * @return
    */
-  private String getIPPHeader() {
+  private String getIPPHeader(IppReader reader) {
     StringBuffer sb = new StringBuffer();
-    sb.append("Major Version:" + IppUtil.toHexWithMarker(_buf.get()));
-    sb.append(" Minor Version:" + IppUtil.toHexWithMarker(_buf.get()));
+    sb.append("Major Version:" + IppUtil.toHexWithMarker(reader.getMajorVersion()));
+    sb.append(" Minor Version:" + IppUtil.toHexWithMarker(reader.getMinorVersion()));
 
-    String statusCode = IppUtil.toHexWithMarker(_buf.get()) + IppUtil.toHex(_buf.get());
-    String statusMessage = getEnumName(statusCode, "status-code");
+    int status = reader.getStatusCode();
+    String statusCode = IppUtil.toHexWithMarker((byte) (status >> 8)) + IppUtil.toHex((byte) status);
+    String statusMessage = getEnumName(status, "status-code");
 
-    sb.append(" Request Id:" + _buf.getInt() + "\n");
+    sb.append(" Request Id:" + reader.getRequestId() + "\n");
     sb.append("Status Code:" + statusCode + "(" + statusMessage + ")");
-
-    if (sb.length() != 0) {
-      return sb.toString();
-    }
-    return null;
+    return sb.toString();
   }
 
-  private IppResult parseErrorText() {
+  private IppResult parseErrorText(InputStream istream) throws IOException {
     IppResult result = new IppResult();
-    byte[] buffer = new byte[_buf.capacity() - _buf.position()];
-    _buf.get(buffer);
-    String errorText = new String(buffer);
+    String errorText = new String(IOUtils.toByteArray(istream));
     if (errorText.contains("Unauthorized")) {
       result.setIppStatusResponse("client-error-not-authorized (0x403)");
     } else {
@@ -239,121 +208,14 @@ public class IppResponse {
     return result;
   }
 
-  /**
-   * <p>
-   * <strong>Note:</strong> Global variables <code>_attributeGroupResult</code>,
-   * <code>_attributeResult</code>, <code>_result</code> are filled by local
-   * 'tag' methods.<br />
-   * Decision for this programming solution is based on the structure of IPP tag
-   * sequences to clarify the attribute structure with its values.
-   * </p>
-   * 
-   * @return list of attributes group
-   */
-  private List<AttributeGroup> getAttributeGroupList() {
-    while (_buf.hasRemaining()) {
-
-      byte tag = _buf.get();
-      switch (tag) {
-      case 0x00:
-        setAttributeGroup(tag); // reserved
-        continue;
-      case 0x01:
-        setAttributeGroup(tag); // operation-attributes
-        continue;
-      case 0x02:
-        setAttributeGroup(tag); // job-attributes
-        continue;
-      case 0x03:
-        return _result; // end-attributes
-      case 0x04:
-        setAttributeGroup(tag); // printer-attributes
-        continue;
-      case 0x05:
-        setAttributeGroup(tag); // unsupported-attributes
-        continue;
-      case 0x06:
-        setAttributeGroup(tag); // subscription-attributes
-        continue;
-      case 0x07:
-        setAttributeGroup(tag); // event-notification-attributes
-        continue;
-      case 0x13:
-        setNoValueAttribute(tag); // no-value
-        continue;
-      case 0x21:
-        setIntegerAttribute(tag); // integer
-        continue;
-      case 0x22:
-        setBooleanAttribute(tag); // boolean
-        continue;
-      case 0x23:
-        setEnumAttribute(tag); // enumeration
-        continue;
-      case 0x30:
-        setTextAttribute(tag); // octetString;
-        continue;
-      case 0x31:
-        setDateTimeAttribute(tag);// datetime
-        continue;
-      case 0x32:
-        setResolutionAttribute(tag);// resolution
-        continue;
-      case 0x33:
-        setRangeOfIntegerAttribute(tag);// rangeOfInteger
-        continue;
-      case 0x35:
-        setTextWithLanguageAttribute(tag); // textWithLanguage
-        continue;
-      case 0x36:
-        setNameWithLanguageAttribute(tag); // nameWithLanguage
-        continue;
-      case 0x41:
-        setTextAttribute(tag); // textWithoutLanguage
-        continue;
-      case 0x42:
-        setTextAttribute(tag); // nameWithoutLanguage
-        continue;
-      case 0x44:
-        setTextAttribute(tag); // keyword
-        continue;
-      case 0x45:
-        setTextAttribute(tag); // uri
-        continue;
-      case 0x46:
-        setTextAttribute(tag); // uriScheme
-        continue;
-      case 0x47:
-        setTextAttribute(tag); // charset
-        continue;
-      case 0x48:
-        setTextAttribute(tag); // naturalLanguage
-        continue;
-      case 0x49:
-        setTextAttribute(tag); // mimeMediaType
-        continue;
-      default:
-        return _result; // not defined
-      }
-    }
-    return null;
-  }
-
   /**
    * 
    * @param tag
    */
   private void setAttributeGroup(byte tag) {
-    if (_attributeGroupResult != null) {
-      if (_attributeResult != null) {
-        _attributeGroupResult.getAttribute().add(_attributeResult);
-      }
-      _result.add(_attributeGroupResult);
-    }
-    _attributeResult = null;
-
+    closeAttributeGroup();
     _attributeGroupResult = new AttributeGroup();
-    _attributeGroupResult.setTagName(getTagName(IppUtil.toHexWithMarker(tag)));
+    _attributeGroupResult.setTagName(TAG_NAMES[tag & 0xff]);
   }
 
   /**
@@ -372,74 +234,65 @@ public class IppResponse {
 
   /**
    * 
-   * @param tag
+   * @param name
    */
-  private void setTextAttribute(byte tag) {
-    short length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      setAttributeName(length);
-    }
-
-    // set attribute value
-    if (!_buf.hasRemaining()) {
-      return;
-    }
-    length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      byte[] dst = new byte[length];
-      _buf.get(dst);
-      String value = IppUtil.toString(dst);
-      String hex = IppUtil.toHexWithMarker(tag);
-      AttributeValue attrValue = new AttributeValue();
-      attrValue.setTag(hex);
-      String tagName = getTagName(hex);
-      attrValue.setTagName(tagName);
-      attrValue.setValue(value);
-      _attributeResult.getAttributeValue().add(attrValue);
+  private void setAttributeName(String name) {
+    if (_attributeResult != null) {
+      _attributeGroupResult.getAttribute().add(_attributeResult);
     }
-
+    _attributeResult = new Attribute();
+    _attributeResult.setName(name);
   }
 
   /**
-   * TODO: natural-language not considered in reporting
+   * Adds the current value of the reader to the current attribute. Values
+   * of out-of-band tags (like no-value) and of collections are not
+   * reported.
    * 
-   * @param tag
+   * @param reader
    */
-  private void setTextWithLanguageAttribute(byte tag) {
-    short length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      setAttributeName(length);
-    }
-
-    // set natural-language and attribute value
-    if (!_buf.hasRemaining()) {
+  private void setAttributeValue(IppReader reader) {
+    byte[] value = reader.getValue();
+    if (value.length == 0) {
       return;
     }
-
-    // set tag, tag name, natural-language
-    length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      byte[] dst = new byte[length];
-      _buf.get(dst);
-      String value = IppUtil.toString(dst);
-      String hex = IppUtil.toHexWithMarker(tag);
-      AttributeValue attrValue = new AttributeValue();
-      attrValue.setTag(hex);
-      String tagName = getTagName(hex);
-      attrValue.setTagName(tagName);
-      attrValue.setValue(value);
-      _attributeResult.getAttributeValue().add(attrValue);
-
-      // set value
-      length = _buf.getShort();
-      if ((length != 0) && (_buf.remaining() >= length)) {
-        dst = new byte[length];
-        _buf.get(dst);
-        value = IppUtil.toString(dst);
-        attrValue = new AttributeValue();
-        attrValue.setValue(value);
-        _attributeResult.getAttributeValue().add(attrValue);
-      }
+    byte tag = reader.getValueTag();
+    switch (tag) {
+    case 0x21: // integer
+      addAttributeValue(tag, Integer.toString(reader.getInteger()));
+      break;
+    case 0x22: // boolean
+      addAttributeValue(tag, IppUtil.toBoolean(value[0]));
+      break;
+    case 0x23: // enumeration
+      addAttributeValue(tag, getEnumName(reader.getInteger(), _attributeResult.getName()));
+      break;
+    case 0x31: // dateTime
+      addAttributeValue(tag, IppUtil.toDateTime(value));
+      break;
+    case 0x32: // resolution
+      addAttributeValue(tag, reader.getInteger(0) + "," + reader.getInteger(4) + "," + value[8]);
+      break;
+    case 0x33: // rangeOfInteger
+      addAttributeValue(tag, reader.getInteger(0) + "," + reader.getInteger(4));
+      break;
+    case 0x35: // textWithLanguage
+    case 0x36: // nameWithLanguage
+      setWithLanguageValue(tag, ByteBuffer.wrap(value));
+      break;
+    case 0x30: // octetString
+    case 0x41: // textWithoutLanguage
+    case 0x42: // nameWithoutLanguage
+    case 0x44: // keyword
+    case 0x45: // uri
+    case 0x46: // uriScheme
+    case 0x47: // charset
+    case 0x48: // naturalLanguage
+    case 0x49: // mimeMediaType
+      addAttributeValue(tag, IppUtil.toString(value));
+      break;
+    default:
+      break; // not defined
     }
   }
 
@@ -447,350 +300,215 @@ public class IppResponse {
    * TODO: natural-language not considered in reporting
    * 
    * @param tag
+   * @param value
    */
-  private void setNameWithLanguageAttribute(byte tag) {
-    short length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      setAttributeName(length);
-    }
-
-    // set natural-language and attribute value
-    if (!_buf.hasRemaining()) {
+  private void setWithLanguageValue(byte tag, ByteBuffer value) {
+    // set tag, tag name, natural-language
+    String language = getString(value);
+    if (language == null) {
       return;
     }
+    addAttributeValue(tag, language);
 
-    // set tag, tag name, natural-language
-    length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      byte[] dst = new byte[length];
-      _buf.get(dst);
-      String value = IppUtil.toString(dst);
-      String hex = IppUtil.toHexWithMarker(tag);
+    // set value
+    String text = getString(value);
+    if (text != null) {
       AttributeValue attrValue = new AttributeValue();
-      attrValue.setTag(hex);
-      String tagName = getTagName(hex);
-      attrValue.setTagName(tagName);
-      attrValue.setValue(value);
+      attrValue.setValue(text);
       _attributeResult.getAttributeValue().add(attrValue);
-
-      // set value
-      length = _buf.getShort();
-      if ((length != 0) && (_buf.remaining() >= length)) {
-        dst = new byte[length];
-        _buf.get(dst);
-        value = IppUtil.toString(dst);
-        attrValue = new AttributeValue();
-        attrValue.setValue(value);
-        _attributeResult.getAttributeValue().add(attrValue);
-      }
     }
   }
 
-  /**
-   * 
-   * @param tag
-   */
-  private void setBooleanAttribute(byte tag) {
-    short length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      setAttributeName(length);
-    }
-
-    // set attribute value
-    if (!_buf.hasRemaining()) {
-      return;
+  private static String getString(ByteBuffer value) {
+    if (value.remaining() < 2) {
+      return null;
     }
-    length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      byte value = _buf.get();
-      String hex = IppUtil.toHexWithMarker(tag);
-      AttributeValue attrValue = new AttributeValue();
-      attrValue.setTag(hex);
-      String tagName = getTagName(hex);
-      attrValue.setTagName(tagName);
-      attrValue.setValue(IppUtil.toBoolean(value));
-      _attributeResult.getAttributeValue().add(attrValue);
+    int length = value.getShort() & 0xffff;
+    if ((length == 0) || (value.remaining() < length)) {
+      return null;
     }
+    byte[] dst = new byte[length];
+    value.get(dst);
+    return IppUtil.toString(dst);
   }
 
-  /**
-   * 
-   * @param tag
-   */
-  private void setDateTimeAttribute(byte tag) {
-    short length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      setAttributeName(length);
-    }
-
-    // set attribute value
-    if (!_buf.hasRemaining()) {
-      return;
-    }
-    length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      byte[] dst = new byte[length];
-      _buf.get(dst, 0, length);
-      String value = IppUtil.toDateTime(dst);
-      String hex = IppUtil.toHexWithMarker(tag);
-      AttributeValue attrValue = new AttributeValue();
-      attrValue.setTag(hex);
-      String tagName = getTagName(hex);
-      attrValue.setTagName(tagName);
-      attrValue.setValue(value);
-      _attributeResult.getAttributeValue().add(attrValue);
-    }
+  private void addAttributeValue(byte tag, String value) {
+    AttributeValue attrValue = new AttributeValue();
+    attrValue.setTagCode(tag);
+    attrValue.setTag(TAG_HEX[tag & 0xff]);
+    attrValue.setTagName(TAG_NAMES[tag & 0xff]);
+    attrValue.setValue(value);
+    _attributeResult.getAttributeValue().add(attrValue);
   }
 
+
   /**
+   * Fills the tag table so that the name of a tag is found by its byte
+   * value and not by comparing hex strings.
    * 
-   * @param tag
+   * @param tagList
    */
-  private void setIntegerAttribute(byte tag) {
-    short length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      setAttributeName(length);
-    }
-    // set attribute value
-    if (!_buf.hasRemaining()) {
-      return;
+  private static void initTagTable(List<Tag> tagList) {
+    for (Tag tag : tagList) {
+      try {
+        int i = Integer.decode(tag.getValue()) & 0xff;
+        if (TAG_NAMES[i] == null) {
+          TAG_NAMES[i] = tag.getName();
+        }
+      } catch (NumberFormatException ex) {
+        LOG.warn("Tag '{}' with invalid value '{}' is ignored.", tag.getName(), tag.getValue());
+      }
     }
-    length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      int value = _buf.getInt();
-      String hex = IppUtil.toHexWithMarker(tag);
-      AttributeValue attrValue = new AttributeValue();
-      attrValue.setTag(hex);
-      String tagName = getTagName(hex);
-      attrValue.setTagName(tagName);
-      attrValue.setValue(Integer.toString(value));
-      _attributeResult.getAttributeValue().add(attrValue);
+    for (int i = 0; i < TAG_HEX.length; i++) {
+      TAG_HEX[i] = IppUtil.toHexWithMarker((byte) i);
+      if (TAG_NAMES[i] == null) {
+        TAG_NAMES[i] = "no name found for tag:" + TAG_HEX[i];
+      }
     }
   }
 
   /**
+   * Fills the enum names of all enum attributes of 'ATTRIBUTE_LIST_FILENAME'.
    * 
-   * @param tag
+   * @param attributeGroupList
    */
-  private void setNoValueAttribute(byte tag) {
-    short length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      setAttributeName(length);
+  private static void initEnumNames(List<AttributeGroup> attributeGroupList) {
+    for (AttributeGroup attributeGroup : attributeGroupList) {
+      for (Attribute attribute : attributeGroup.getAttribute()) {
+        String attributeName = attribute.getName();
+        if (attributeName == null) {
+          continue;
+        }
+        EnumNames enumNames = ENUM_NAMES.get(attributeName);
+        if (enumNames == null) {
+          enumNames = new EnumNames();
+          ENUM_NAMES.put(attributeName, enumNames);
+        }
+        for (AttributeValue attributeValue : attribute.getAttributeValue()) {
+          SetOfEnum setOfEnum = attributeValue.getSetOfEnum();
+          if (setOfEnum != null) {
+            for (org.cups4j.ipp.attributes.Enum enumEntry : setOfEnum.getEnum()) {
+              enumNames.add(enumEntry.getValue(), enumEntry.getName());
+            }
+          }
+        }
+      }
     }
   }
 
   /**
    * 
-   * @param tag
+   * @param value
+   * @nameOfAttribute
+   * @return
    */
-  private void setRangeOfIntegerAttribute(byte tag) {
-    short length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      setAttributeName(length);
-    }
-    // set attribute value
-    if (!_buf.hasRemaining()) {
-      return;
+  private static String getEnumName(int value, String nameOfAttribute) {
+    if (nameOfAttribute == null) {
+      LOG.error("IppResponse.getEnumName(int,String): nameOfAttribute is null");
+      return null;
     }
-    length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      int value1 = _buf.getInt();
-      int value2 = _buf.getInt();
-      String hex = IppUtil.toHexWithMarker(tag);
-      AttributeValue attrValue = new AttributeValue();
-      attrValue.setTag(hex);
-      String tagName = getTagName(hex);
-      attrValue.setTagName(tagName);
-      attrValue.setValue(Integer.toString(value1) + "," + Integer.toString(value2));
-      _attributeResult.getAttributeValue().add(attrValue);
+    EnumNames enumNames = ENUM_NAMES.get(nameOfAttribute);
+    if (enumNames != null) {
+      if (enumNames.isEmpty()) {
+        LOG.error("IPPResponse.getEnumName(): " + "set-of-enum is null for attribute " + nameOfAttribute
+            + ". Please control " + "the enumeration list in the XML file");
+        return null;
+      }
+      String name = enumNames.get(value);
+      if (name != null) {
+        return name;
+      }
     }
+    return "enum name not found in IANA list: " + value;
   }
 
   /**
-   * 
-   * @param tag
+   * The enum names of one attribute. The values are kept sorted in an int
+   * array so that a name is found by binary search without boxing.
    */
-  private void setResolutionAttribute(byte tag) {
-    short length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      setAttributeName(length);
+  private static final class EnumNames {
+
+    private int[] values = new int[8];
+    private String[] names = new String[8];
+    private int size;
+
+    void add(String valueString, String name) {
+      int value;
+      // some IPP enumerations are in hex, other decimal
+      // see http://www.iana.org/assignments/ipp-registrations for
+      // reference
+      try {
+        if (valueString.contains("0x")) {
+          value = Integer.parseInt(valueString.replace("0x", ""), 16);
+        } else {
+          value = Integer.parseInt(valueString, 10);
+        }
+      } catch (NumberFormatException ex) {
+        LOG.warn("Enum '{}' with invalid value '{}' is ignored.", name, valueString);
+        return;
+      }
+      int i = Arrays.binarySearch(values, 0, size, value);
+      if (i >= 0) {
+        return; // the first name wins
+      }
+      i = -i - 1;
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+        names = Arrays.copyOf(names, size * 2);
+      }
+      System.arraycopy(values, i, values, i + 1, size - i);
+      System.arraycopy(names, i, names, i + 1, size - i);
+      values[i] = value;
+      names[i] = name;
+      size++;
     }
 
-    // set attribute value
-    if (!_buf.hasRemaining()) {
-      return;
+    String get(int value) {
+      int i = Arrays.binarySearch(values, 0, size, value);
+      return (i < 0) ? null : names[i];
     }
-    length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      int value1 = _buf.getInt();
-      int value2 = _buf.getInt();
-      byte value3 = _buf.get();
-      String hex = IppUtil.toHexWithMarker(tag);
-      AttributeValue attrValue = new AttributeValue();
-      attrValue.setTag(hex);
-      String tagName = getTagName(hex);
-      attrValue.setTagName(tagName);
-      attrValue.setValue(Integer.toString(value1) + "," + Integer.toString(value2) + "," + Integer.toString(value3));
-      _attributeResult.getAttributeValue().add(attrValue);
+
+    boolean isEmpty() {
+      return size == 0;
     }
+
   }
 
   /**
-   * 
-   * @param tag
+   * Stream over the remaining bytes of a buffer. The position of the
+   * buffer is moved while reading.
    */
-  private void setEnumAttribute(byte tag) {
-    short length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      setAttributeName(length);
-    }
+  private static final class ByteBufferInputStream extends InputStream {
 
-    // set attribute value
-    if (!_buf.hasRemaining()) {
-      return;
-    }
-
-    length = _buf.getShort();
-    if ((length != 0) && (_buf.remaining() >= length)) {
-      String hex = IppUtil.toHexWithMarker(tag);
-      AttributeValue attrValue = new AttributeValue();
-      attrValue.setTag(hex);
-      String tagName = getTagName(hex);
-      attrValue.setTagName(tagName);
-
-      int value = _buf.getInt();
-      if (_attributeResult != null) {
-        String enumName = getEnumName(value, _attributeResult.getName());
-        attrValue.setValue(enumName);
-      } else {
-        _attributeResult = new Attribute();
-        _attributeResult.setName("no attribute name given:");
-        attrValue.setValue(Integer.toString(value));
-      }
+    private final ByteBuffer buffer;
 
-      _attributeResult.getAttributeValue().add(attrValue);
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
     }
-  }
 
-  /**
-   * 
-   * @param length
-   */
-  private void setAttributeName(short length) {
-    if ((length == 0) || (_buf.remaining() < length)) {
-      return;
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? (buffer.get() & 0xff) : -1;
     }
-    byte[] dst = new byte[length];
-    _buf.get(dst);
-    String name = IppUtil.toString(dst);
-    if (_attributeResult != null) {
-      _attributeGroupResult.getAttribute().add(_attributeResult);
-    }
-    _attributeResult = new Attribute();
-    _attributeResult.setName(name.toString());
-  }
 
-  /**
-   * 
-   * @param tag
-   * @return
-   */
-  private String getTagName(String tag) {
-    if (tag == null) {
-      LOG.error("IppResponse.getTagName(): no tag given");
-      return null;
-    }
-    int l = _tagList.size();
-    for (int i = 0; i < l; i++) {
-      if (tag.equals(_tagList.get(i).getValue())) {
-        return _tagList.get(i).getName();
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
       }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
     }
-    return "no name found for tag:" + tag;
-  }
 
-  /**
-   * 
-   * @param value
-   * @param nameOfAttribute
-   * @return
-   */
-  private String getEnumName(String value, String nameOfAttribute) {
-    if (value == null) {
-      LOG.error("IppResponse.getEnumName(String,String): value is null");
-      return null;
-    }
-    if (nameOfAttribute == null) {
-      LOG.error("IppResponse.getEnumName(String,String): nameOfAttribute is null");
-      return null;
+    @Override
+    public int available() {
+      return buffer.remaining();
     }
 
-    int enumValue = 0;
-    if (value.contains("0x")) {
-      value = value.replace("0x", "");
-      ;
-      enumValue = Integer.parseInt(value, 16);
-    } else {
-      enumValue = Integer.parseInt(value, 10);
-    }
-    return getEnumName(enumValue, nameOfAttribute);
   }
 
-  /**
-   * 
-   * @param value
-   * @nameOfAttribute
-   * @return
-   */
-  private String getEnumName(int value, String nameOfAttribute) {
-    if (nameOfAttribute == null) {
-      LOG.error("IppResponse.getEnumName(int,String): nameOfAttribute is null");
-      return null;
-    }
-    int l = _attributeGroupList.size();
-    for (int i = 0; i < l; i++) {
-      AttributeGroup attributeGroup = _attributeGroupList.get(i);
-      List<Attribute> attributeList = attributeGroup.getAttribute();
-      int ll = attributeList.size();
-      for (int j = 0; j < ll; j++) {
-        Attribute attribute = attributeList.get(j);
-        String attributeName = attribute.getName();
-        if ((attributeName != null) && (attributeName.equals(nameOfAttribute))) {
-          List<AttributeValue> attributeValueList = attribute.getAttributeValue();
-          int lll = attributeValueList.size();
-          for (int z = 0; z < lll; z++) {
-            AttributeValue attributeValue = attributeValueList.get(z);
-            if (attributeValue.getSetOfEnum() != null) {
-              SetOfEnum setOfEnum = attributeValue.getSetOfEnum();
-              List<org.cups4j.ipp.attributes.Enum> enumList = setOfEnum.getEnum();
-              int llll = enumList.size();
-              for (int w = 0; w < llll; w++) {
-                org.cups4j.ipp.attributes.Enum enumEntry = enumList.get(w);
-                String enumValueString = enumEntry.getValue();
-                int enumValue = 0;
-                // some IPP enumerations are in hex, other decimal
-                // see http://www.iana.org/assignments/ipp-registrations for
-                // reference
-                if (enumValueString.contains("0x")) {
-                  enumValueString = enumValueString.replace("0x", "");
-                  ;
-                  enumValue = Integer.parseInt(enumValueString, 16);
-                } else {
-                  enumValue = Integer.parseInt(enumValueString, 10);
-                }
-                if (value == enumValue) {
-                  return enumEntry.getName();
-                }
-              }
-            } else {
-              LOG.error("IPPResponse.getEnumName(): " + "set-of-enum is null for attribute " + attributeName
-                  + ". Please control " + "the enumeration list in the XML file");
-              return null;
-            }
-          }
-        }
-      }
-    }
-    return "enum name not found in IANA list: " + value;
-  }
 }
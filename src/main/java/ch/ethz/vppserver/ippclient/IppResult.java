@@ -3,7 +3,11 @@ package ch.ethz.vppserver.ippclient;
 import org.cups4j.ipp.attributes.AttributeGroup;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Copyright (C) 2008 ITS of ETH Zurich, Switzerland, Sarah Windler Burri
@@ -26,6 +30,8 @@ public class IppResult {
   private String ippStatusResponse = null;
   private List<AttributeGroup> attributeGroupList = new ArrayList<AttributeGroup>();
   private int httpStatusCode;
+  private int requestId = -1;
+  private Map<String, List<String>> httpHeaders = new HashMap<String, List<String>>();
 
   public IppResult() {
   }
@@ -104,6 +110,50 @@ public class IppResult {
     this.httpStatusCode = httpStatusCode;
   }
 
+  /**
+   * Gets the request-id of the IPP response which must be the same as the
+   * request-id of the request.
+   * 
+   * @return the request-id or -1 if the response has no IPP header
+   */
+  public int getRequestId() {
+    return requestId;
+  }
+
+  public void setRequestId(int requestId) {
+    this.requestId = requestId;
+  }
+
+  /**
+   * Adds a header of the HTTP response.
+   * 
+   * @param name
+   *          header name (case insensitive)
+   * @param value
+   *          header value
+   */
+  public void addHttpHeader(String name, String value) {
+    String key = name.toLowerCase(Locale.ENGLISH);
+    List<String> values = httpHeaders.get(key);
+    if (values == null) {
+      values = new ArrayList<String>();
+      httpHeaders.put(key, values);
+    }
+    values.add(value);
+  }
+
+  /**
+   * Gets the values of the given header of the HTTP response.
+   * 
+   * @param name
+   *          header name (case insensitive), e.g. "WWW-Authenticate"
+   * @return the header values (may be empty)
+   */
+  public List<String> getHttpHeaders(String name) {
+    List<String> values = httpHeaders.get(name.toLowerCase(Locale.ENGLISH));
+    return (values == null) ? Collections.<String> emptyList() : values;
+  }
+
   @Override
   public String toString() {
     return httpStatusCode + " (" + httpStatusResponse + ")";
@@ -2,6 +2,7 @@ package ch.ethz.vppserver.ippclient;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,20 +26,11 @@ import org.slf4j.LoggerFactory;
 public class IppTag {
   private static final Logger LOG = LoggerFactory.getLogger(IppTag.class);
 
-  private final static byte MAJOR_VERSION = 0x01;
-  private final static byte MINOR_VERSION = 0x01;
-
   private final static String ATTRIBUTES_CHARSET = "attributes-charset";
   private final static String ATTRIBUTES_NATURAL_LANGUAGE = "attributes-natural-language";
 
   private final static String ATTRIBUTES_CHARSET_VALUE = "utf-8";
   private final static String ATTRIBUTES_NATURAL_LANGUAGE_VALUE = "en-us";
-  private final static short ATTRIBUTES_INTEGER_VALUE_LENGTH = 0x0004;
-  private final static short ATTRIBUTES_RANGE_OF_INT_VALUE_LENGTH = 0x0008;
-  private final static short ATTRIBUTES_BOOLEAN_VALUE_LENGTH = 0x0001;
-  private final static short ATTRIBUTES_RESOLUTION_VALUE_LENGTH = 0x0009;
-  private final static byte ATTRIBUTES_BOOLEAN_FALSE_VALUE = 0x00;
-  private final static byte ATTRIBUTES_BOOLEAN_TRUE_VALUE = 0x01;
 
   private final static byte OPERATION_ATTRIBUTES_TAG = 0x01;
   private final static byte JOB_ATTRIBUTES_TAG = 0x02;
@@ -61,11 +53,8 @@ public class IppTag {
   private final static byte NATURAL_LANGUAGE_TAG = 0x48;
   private final static byte MIME_MEDIA_TYPE_TAG = 0x49;
 
-  private final static short NULL_LENGTH = 0;
-
-  private static int requestID = 0; // required attribute within operations
-                                    // (will increase with
-                                    // every request)
+  // required attribute within operations (will increase with every request)
+  private static final AtomicInteger requestID = new AtomicInteger();
 
   /**
    * 
@@ -89,6 +78,23 @@ public class IppTag {
    */
   public static ByteBuffer getOperation(ByteBuffer ippBuf, short operation, String charset, String naturalLanguage)
       throws UnsupportedEncodingException {
+    return getOperation(ippBuf, operation, charset, naturalLanguage, nextRequestID());
+  }
+
+  /**
+   * Writes the operation with the given request-id. It is used for
+   * templates which get their request-id later.
+   * 
+   * @param ippBuf
+   * @param operation
+   * @param charset
+   * @param naturalLanguage
+   * @param requestId
+   * @return
+   * @throws UnsupportedEncodingException
+   */
+  static ByteBuffer getOperation(ByteBuffer ippBuf, short operation, String charset, String naturalLanguage,
+      int requestId) throws UnsupportedEncodingException {
     if (ippBuf == null) {
       LOG.error("IppTag.getOperation(): ippBuf is null");
       return null;
@@ -99,17 +105,36 @@ public class IppTag {
     if (naturalLanguage == null) {
       naturalLanguage = ATTRIBUTES_NATURAL_LANGUAGE_VALUE;
     }
-    ippBuf.put(MAJOR_VERSION);
-    ippBuf.put(MINOR_VERSION);
-    ippBuf.putShort(operation);
-    ippBuf.putInt(++requestID);
-    ippBuf.put(OPERATION_ATTRIBUTES_TAG);
-
+    ippBuf = IppWriter.writeHeader(ippBuf, operation, requestId);
+    ippBuf = IppWriter.writeTag(ippBuf, OPERATION_ATTRIBUTES_TAG);
     ippBuf = getCharset(ippBuf, ATTRIBUTES_CHARSET, charset);
     ippBuf = getNaturalLanguage(ippBuf, ATTRIBUTES_NATURAL_LANGUAGE, naturalLanguage);
     return ippBuf;
   }
 
+  /**
+   * Gets the request-id for the next request. It is unique over all threads
+   * (and thus for all connections) and stays in the range 1..2^31-1 which is
+   * required by RFC 8010.
+   * 
+   * @return the increased request-id
+   */
+  static int nextRequestID() {
+    int id = requestID.incrementAndGet() & Integer.MAX_VALUE;
+    return (id == 0) ? nextRequestID() : id;
+  }
+
+  /**
+   * Gets the request-id of an encoded request.
+   * 
+   * @param ippBuf
+   *          the request (starting at position 0)
+   * @return the request-id
+   */
+  public static int getRequestID(ByteBuffer ippBuf) {
+    return ippBuf.getInt(4);
+  }
+
   /**
    * 
    * @param ippBuf
@@ -120,8 +145,7 @@ public class IppTag {
       LOG.error("IppTag.getOperationAttributesTag(): ippBuf is null");
       return null;
     }
-    ippBuf.put(OPERATION_ATTRIBUTES_TAG);
-    return ippBuf;
+    return IppWriter.writeTag(ippBuf, OPERATION_ATTRIBUTES_TAG);
   }
 
   /**
@@ -134,8 +158,7 @@ public class IppTag {
       LOG.error("IppTag.getJobAttributesTag(): ippBuf is null");
       return null;
     }
-    ippBuf.put(JOB_ATTRIBUTES_TAG);
-    return ippBuf;
+    return IppWriter.writeTag(ippBuf, JOB_ATTRIBUTES_TAG);
   }
 
   /**
@@ -148,8 +171,7 @@ public class IppTag {
       LOG.error("IppTag.getSubscriptionAttributesTag(): ippBuf is null");
       return null;
     }
-    ippBuf.put(SUBSCRIPTION_ATTRIBUTES_TAG);
-    return ippBuf;
+    return IppWriter.writeTag(ippBuf, SUBSCRIPTION_ATTRIBUTES_TAG);
   }
 
   /**
@@ -162,8 +184,7 @@ public class IppTag {
       LOG.error("IppTag.getEventNotificationAttributesTag(): ippBuf is null");
       return null;
     }
-    ippBuf.put(EVENT_NOTIFICATION_ATTRIBUTES_TAG);
-    return ippBuf;
+    return IppWriter.writeTag(ippBuf, EVENT_NOTIFICATION_ATTRIBUTES_TAG);
   }
 
   /**
@@ -176,8 +197,7 @@ public class IppTag {
       LOG.error("IppTag.getUnsupportedAttributesTag(): ippBuf is null");
       return null;
     }
-    ippBuf.put(UNSUPPORTED_ATTRIBUTES_TAG);
-    return ippBuf;
+    return IppWriter.writeTag(ippBuf, UNSUPPORTED_ATTRIBUTES_TAG);
   }
 
   /**
@@ -190,8 +210,7 @@ public class IppTag {
       LOG.error("IppTag.getPrinterAttributesTag(): ippBuf is null");
       return null;
     }
-    ippBuf.put(PRINTER_ATTRIBUTES_TAG);
-    return ippBuf;
+    return IppWriter.writeTag(ippBuf, PRINTER_ATTRIBUTES_TAG);
   }
 
   /**
@@ -345,21 +364,7 @@ public class IppTag {
       LOG.error("IppTag.getNameWithoutLanguage(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(NAME_WITHOUT_LANGUAGE_TAG);
-
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-
-    if (value != null) {
-      putAttName(ippBuf, value);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-    return ippBuf;
+    return IppWriter.writeString(ippBuf, NAME_WITHOUT_LANGUAGE_TAG, attributeName, value);
   }
 
   /**
@@ -376,21 +381,7 @@ public class IppTag {
       LOG.error("IppTag.getTextWithoutLanguage(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(TEXT_WITHOUT_LANGUAGE_TAG);
-
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-
-    if (value != null) {
-      putAttName(ippBuf, value);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-    return ippBuf;
+    return IppWriter.writeString(ippBuf, TEXT_WITHOUT_LANGUAGE_TAG, attributeName, value);
   }
 
   /**
@@ -413,17 +404,7 @@ public class IppTag {
       LOG.error("IppTag.getInteger(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(INTEGER_TAG);
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-
-    ippBuf.putShort(NULL_LENGTH);
-
-    return ippBuf;
+    return IppWriter.writeNoValue(ippBuf, INTEGER_TAG, attributeName);
   }
 
   /**
@@ -439,17 +420,7 @@ public class IppTag {
       LOG.error("IppTag.getInteger(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(INTEGER_TAG);
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-
-    ippBuf.putShort(ATTRIBUTES_INTEGER_VALUE_LENGTH);
-    ippBuf.putInt(value);
-    return ippBuf;
+    return IppWriter.writeInteger(ippBuf, INTEGER_TAG, attributeName, value);
   }
 
   /**
@@ -474,22 +445,7 @@ public class IppTag {
       LOG.error("IppTag.getBoolean(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(BOOLEAN_TAG);
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-
-    ippBuf.putShort(NULL_LENGTH);
-    return ippBuf;
-  }
-
-  private static void putAttName(ByteBuffer ippBuf, String attributeName) throws UnsupportedEncodingException {
-    byte[] bytes = IppUtil.toBytes(attributeName);
-    ippBuf.putShort((short) bytes.length);
-    ippBuf.put(bytes);
+    return IppWriter.writeNoValue(ippBuf, BOOLEAN_TAG, attributeName);
   }
 
   /**
@@ -506,21 +462,7 @@ public class IppTag {
       LOG.error("IppTag.getBoolean(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(BOOLEAN_TAG);
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-
-    ippBuf.putShort(ATTRIBUTES_BOOLEAN_VALUE_LENGTH);
-    if (value == true) {
-      ippBuf.put(ATTRIBUTES_BOOLEAN_TRUE_VALUE);
-    } else {
-      ippBuf.put(ATTRIBUTES_BOOLEAN_FALSE_VALUE);
-    }
-    return ippBuf;
+    return IppWriter.writeBoolean(ippBuf, BOOLEAN_TAG, attributeName, value);
   }
 
   /**
@@ -545,15 +487,7 @@ public class IppTag {
       LOG.error("IppTag.getEnum(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(ENUM_TAG);
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-    ippBuf.putShort(NULL_LENGTH);
-    return ippBuf;
+    return IppWriter.writeNoValue(ippBuf, ENUM_TAG, attributeName);
   }
 
   /**
@@ -570,16 +504,7 @@ public class IppTag {
       LOG.error("IppTag.getEnum(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(ENUM_TAG);
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-    ippBuf.putShort(ATTRIBUTES_INTEGER_VALUE_LENGTH);
-    ippBuf.putInt(value);
-    return ippBuf;
+    return IppWriter.writeInteger(ippBuf, ENUM_TAG, attributeName, value);
   }
 
   /**
@@ -604,15 +529,7 @@ public class IppTag {
       LOG.error("IppTag.getResolution(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(RESOLUTION_TAG);
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-    ippBuf.putShort(NULL_LENGTH);
-    return ippBuf;
+    return IppWriter.writeNoValue(ippBuf, RESOLUTION_TAG, attributeName);
   }
 
   /**
@@ -631,18 +548,7 @@ public class IppTag {
       LOG.error("IppTag.getResolution(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(RESOLUTION_TAG);
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-    ippBuf.putShort(ATTRIBUTES_RESOLUTION_VALUE_LENGTH);
-    ippBuf.putInt(value1);
-    ippBuf.putInt(value2);
-    ippBuf.put(value3);
-    return ippBuf;
+    return IppWriter.writeResolution(ippBuf, RESOLUTION_TAG, attributeName, value1, value2, value3);
   }
 
   /**
@@ -668,15 +574,7 @@ public class IppTag {
       LOG.error("IppTag.getRangeOfInteger(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(RANGE_OF_INTEGER_TAG);
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-    ippBuf.putShort(NULL_LENGTH);
-    return ippBuf;
+    return IppWriter.writeNoValue(ippBuf, RANGE_OF_INTEGER_TAG, attributeName);
   }
 
   /**
@@ -694,17 +592,7 @@ public class IppTag {
       LOG.error("IppTag.getRangeOfInteger(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(RANGE_OF_INTEGER_TAG);
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-    ippBuf.putShort(ATTRIBUTES_RANGE_OF_INT_VALUE_LENGTH);
-    ippBuf.putInt(value1);
-    ippBuf.putInt(value2);
-    return ippBuf;
+    return IppWriter.writeRangeOfInteger(ippBuf, RANGE_OF_INTEGER_TAG, attributeName, value1, value2);
   }
 
   /**
@@ -786,8 +674,7 @@ public class IppTag {
       LOG.error("IppTag.getEnd(): ippBuf is null");
       return null;
     }
-    ippBuf.put(END_OF_ATTRIBUTES_TAG);
-    return ippBuf;
+    return IppWriter.writeTag(ippBuf, END_OF_ATTRIBUTES_TAG);
   }
 
   /**
@@ -805,19 +692,6 @@ public class IppTag {
       LOG.error("IppTag.getUsAscii(): ippBuf is null");
       return null;
     }
-
-    ippBuf.put(tag);
-    if (attributeName != null) {
-      putAttName(ippBuf, attributeName);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-
-    if (value != null) {
-      putAttName(ippBuf, value);
-    } else {
-      ippBuf.putShort(NULL_LENGTH);
-    }
-    return ippBuf;
+    return IppWriter.writeString(ippBuf, tag, attributeName, value);
   }
 }
\ No newline at end of file
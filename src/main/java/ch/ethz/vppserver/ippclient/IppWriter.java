@@ -0,0 +1,284 @@
+/**
+ * Copyright (C) 2026 Oliver Boehm
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details. You should have received a copy of
+ * the GNU Lesser General Public License along with this program; if not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package ch.ethz.vppserver.ippclient;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encoder for the attributes of an IPP request (RFC 8010). All attributes
+ * are written directly into the request buffer which is grown if needed
+ * (see {@link IppBufferPool#ensureCapacity(ByteBuffer, int)}). This is the
+ * encoder behind {@link IppTag}.
+ * <p>
+ * Attribute names are encoded once and cached. Values which are pure ASCII
+ * (keywords, URIs, MIME types and most names) are written char by char
+ * without creating a temporary byte array.
+ * </p>
+ */
+public final class IppWriter {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final byte MAJOR_VERSION = 0x01;
+  private static final byte MINOR_VERSION = 0x01;
+  private static final short INTEGER_VALUE_LENGTH = 4;
+  private static final short RANGE_OF_INTEGER_VALUE_LENGTH = 8;
+  private static final short BOOLEAN_VALUE_LENGTH = 1;
+  private static final short RESOLUTION_VALUE_LENGTH = 9;
+
+  /** Tag, name length, value length and the biggest fixed size value. */
+  private static final int MAX_FIXED_LENGTH = 1 + 2 + 2 + RESOLUTION_VALUE_LENGTH;
+
+  /** If there are more names the cache is cleared. */
+  static final int MAX_CACHED_NAMES = 512;
+
+  private static final Map<String, byte[]> names = new ConcurrentHashMap<String, byte[]>();
+
+  private IppWriter() {
+  }
+
+  /**
+   * Writes the version, the operation and the request-id which start each
+   * request.
+   *
+   * @param ippBuf
+   *          the buffer in write mode
+   * @param operation
+   *          the operation id
+   * @param requestID
+   *          the request-id
+   * @return the given buffer or a bigger replacement
+   */
+  public static ByteBuffer writeHeader(ByteBuffer ippBuf, short operation, int requestID) {
+    ippBuf = IppBufferPool.ensureCapacity(ippBuf, 8);
+    ippBuf.put(MAJOR_VERSION);
+    ippBuf.put(MINOR_VERSION);
+    ippBuf.putShort(operation);
+    ippBuf.putInt(requestID);
+    return ippBuf;
+  }
+
+  /**
+   * Writes a delimiter tag like the begin of the operation attributes or
+   * the end of the attributes.
+   *
+   * @param ippBuf
+   *          the buffer in write mode
+   * @param tag
+   *          the delimiter tag
+   * @return the given buffer or a bigger replacement
+   */
+  public static ByteBuffer writeTag(ByteBuffer ippBuf, byte tag) {
+    ippBuf = IppBufferPool.ensureCapacity(ippBuf, 1);
+    ippBuf.put(tag);
+    return ippBuf;
+  }
+
+  /**
+   * Writes an attribute with a string value (e.g. keyword, uri, name or
+   * text).
+   *
+   * @param ippBuf
+   *          the buffer in write mode
+   * @param tag
+   *          the value tag
+   * @param name
+   *          the attribute name or null for an additional value
+   * @param value
+   *          the value (null is written as empty value)
+   * @return the given buffer or a bigger replacement
+   */
+  public static ByteBuffer writeString(ByteBuffer ippBuf, byte tag, String name, String value) {
+    ippBuf = writeName(ippBuf, tag, name);
+    return writeValue(ippBuf, value);
+  }
+
+  /**
+   * Writes an attribute without value.
+   *
+   * @param ippBuf
+   *          the buffer in write mode
+   * @param tag
+   *          the value tag
+   * @param name
+   *          the attribute name or null for an additional value
+   * @return the given buffer or a bigger replacement
+   */
+  public static ByteBuffer writeNoValue(ByteBuffer ippBuf, byte tag, String name) {
+    ippBuf = writeName(ippBuf, tag, name);
+    ippBuf.putShort((short) 0);
+    return ippBuf;
+  }
+
+  /**
+   * Writes an integer or enum attribute.
+   *
+   * @param ippBuf
+   *          the buffer in write mode
+   * @param tag
+   *          the value tag
+   * @param name
+   *          the attribute name or null for an additional value
+   * @param value
+   *          the value
+   * @return the given buffer or a bigger replacement
+   */
+  public static ByteBuffer writeInteger(ByteBuffer ippBuf, byte tag, String name, int value) {
+    ippBuf = writeName(ippBuf, tag, name);
+    ippBuf.putShort(INTEGER_VALUE_LENGTH);
+    ippBuf.putInt(value);
+    return ippBuf;
+  }
+
+  /**
+   * Writes a boolean attribute.
+   *
+   * @param ippBuf
+   *          the buffer in write mode
+   * @param tag
+   *          the value tag
+   * @param name
+   *          the attribute name or null for an additional value
+   * @param value
+   *          the value
+   * @return the given buffer or a bigger replacement
+   */
+  public static ByteBuffer writeBoolean(ByteBuffer ippBuf, byte tag, String name, boolean value) {
+    ippBuf = writeName(ippBuf, tag, name);
+    ippBuf.putShort(BOOLEAN_VALUE_LENGTH);
+    ippBuf.put(value ? (byte) 0x01 : (byte) 0x00);
+    return ippBuf;
+  }
+
+  /**
+   * Writes a rangeOfInteger attribute.
+   *
+   * @param ippBuf
+   *          the buffer in write mode
+   * @param tag
+   *          the value tag
+   * @param name
+   *          the attribute name or null for an additional value
+   * @param low
+   *          lower bound
+   * @param high
+   *          upper bound
+   * @return the given buffer or a bigger replacement
+   */
+  public static ByteBuffer writeRangeOfInteger(ByteBuffer ippBuf, byte tag, String name, int low, int high) {
+    ippBuf = writeName(ippBuf, tag, name);
+    ippBuf.putShort(RANGE_OF_INTEGER_VALUE_LENGTH);
+    ippBuf.putInt(low);
+    ippBuf.putInt(high);
+    return ippBuf;
+  }
+
+  /**
+   * Writes a resolution attribute.
+   *
+   * @param ippBuf
+   *          the buffer in write mode
+   * @param tag
+   *          the value tag
+   * @param name
+   *          the attribute name or null for an additional value
+   * @param crossFeed
+   *          cross feed direction resolution
+   * @param feed
+   *          feed direction resolution
+   * @param units
+   *          units
+   * @return the given buffer or a bigger replacement
+   */
+  public static ByteBuffer writeResolution(ByteBuffer ippBuf, byte tag, String name, int crossFeed, int feed,
+      byte units) {
+    ippBuf = writeName(ippBuf, tag, name);
+    ippBuf.putShort(RESOLUTION_VALUE_LENGTH);
+    ippBuf.putInt(crossFeed);
+    ippBuf.putInt(feed);
+    ippBuf.put(units);
+    return ippBuf;
+  }
+
+  /**
+   * Writes the tag and the name. Afterwards there is room for at least the
+   * biggest fixed size value.
+   */
+  private static ByteBuffer writeName(ByteBuffer ippBuf, byte tag, String name) {
+    byte[] encoded = (name == null) ? null : getName(name);
+    int nameLength = (encoded == null) ? 0 : encoded.length;
+    ippBuf = IppBufferPool.ensureCapacity(ippBuf, MAX_FIXED_LENGTH + nameLength);
+    ippBuf.put(tag);
+    ippBuf.putShort((short) nameLength);
+    if (encoded != null) {
+      ippBuf.put(encoded);
+    }
+    return ippBuf;
+  }
+
+  private static byte[] getName(String name) {
+    byte[] encoded = names.get(name);
+    if (encoded == null) {
+      encoded = name.getBytes(UTF_8);
+      if (names.size() >= MAX_CACHED_NAMES) {
+        names.clear();
+      }
+      names.put(name, encoded);
+    }
+    return encoded;
+  }
+
+  private static ByteBuffer writeValue(ByteBuffer ippBuf, String value) {
+    if (value == null) {
+      ippBuf.putShort((short) 0);
+      return ippBuf;
+    }
+    int length = value.length();
+    if (!isAscii(value)) {
+      byte[] bytes = value.getBytes(UTF_8);
+      ippBuf = IppBufferPool.ensureCapacity(ippBuf, 2 + bytes.length);
+      ippBuf.putShort((short) bytes.length);
+      ippBuf.put(bytes);
+      return ippBuf;
+    }
+    ippBuf = IppBufferPool.ensureCapacity(ippBuf, 2 + length);
+    ippBuf.putShort((short) length);
+    for (int i = 0; i < length; i++) {
+      ippBuf.put((byte) value.charAt(i));
+    }
+    return ippBuf;
+  }
+
+  private static boolean isAscii(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the number of cached attribute names.
+   *
+   * @return number of names
+   */
+  static int getCachedNames() {
+    return names.size();
+  }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2026 Oliver Boehm
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details. You should have received a copy of
+ * the GNU Lesser General Public License along with this program; if not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.cups4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+
+/**
+ * The values of the IPP operation attribute "compression" which are
+ * supported by cups4j. The document is compressed on the fly while it is
+ * read by the transport, so no temporary file is needed.
+ */
+public enum CompressionEnum {
+  GZIP("gzip"), DEFLATE("deflate"), NONE("none");
+
+  private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+  private String keyword;
+
+  CompressionEnum(String keyword) {
+    this.keyword = keyword;
+  }
+
+  /**
+   * Gets the keyword which is used as value of the "compression" attribute.
+   *
+   * @return e.g. "gzip"
+   */
+  public String getKeyword() {
+    return keyword;
+  }
+
+  /**
+   * Selects the best compression of the given "compression-supported"
+   * values. GZIP is preferred over DEFLATE.
+   *
+   * @param supported
+   *          the keywords supported by the printer
+   * @return the best compression or NONE
+   */
+  public static CompressionEnum select(Collection<String> supported) {
+    for (CompressionEnum compression : values()) {
+      if (supported.contains(compression.keyword)) {
+        return compression;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Wraps the given document so that it is compressed while it is read.
+   *
+   * @param document
+   *          the uncompressed document
+   * @return the compressed document
+   */
+  public InputStream compress(InputStream document) {
+    switch (this) {
+      case GZIP:
+        return gzip(document);
+      case DEFLATE:
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        return new EndingInputStream(new DeflaterInputStream(document, deflater), deflater);
+      default:
+        return document;
+    }
+  }
+
+  /**
+   * A gzip stream (RFC 1952) is a raw deflate stream framed by a fixed
+   * header and a trailer with the CRC-32 and the size of the uncompressed
+   * data. The trailer is created when the deflate stream is exhausted.
+   * The deflater is ended when the stream is closed, also if the upload
+   * was aborted.
+   */
+  private static InputStream gzip(InputStream document) {
+    final CRC32 crc = new CRC32();
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    final InputStream[] parts = { new ByteArrayInputStream(GZIP_HEADER),
+        new DeflaterInputStream(new CheckedInputStream(document, crc), deflater) };
+    return new EndingInputStream(new SequenceInputStream(new Enumeration<InputStream>() {
+      private int index = 0;
+
+      public boolean hasMoreElements() {
+        return index <= parts.length;
+      }
+
+      public InputStream nextElement() {
+        if (index < parts.length) {
+          return parts[index++];
+        } else if (index == parts.length) {
+          index++;
+          byte[] trailer = new byte[8];
+          writeIntLE(trailer, 0, crc.getValue());
+          writeIntLE(trailer, 4, deflater.getBytesRead());
+          return new ByteArrayInputStream(trailer);
+        }
+        throw new NoSuchElementException();
+      }
+    }), deflater);
+  }
+
+  /**
+   * A DeflaterInputStream does not end a Deflater which was given to it.
+   * This stream ends it on close so that its native memory is freed at
+   * once and not only at finalization.
+   */
+  private static final class EndingInputStream extends FilterInputStream {
+
+    private final Deflater deflater;
+
+    EndingInputStream(InputStream in, Deflater deflater) {
+      super(in);
+      this.deflater = deflater;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        deflater.end();
+      }
+    }
+
+  }
+
+  private static void writeIntLE(byte[] buf, int offset, long value) {
+    for (int i = 0; i < 4; i++) {
+      buf[offset + i] = (byte) (value >> (8 * i));
+    }
+  }
+
+}
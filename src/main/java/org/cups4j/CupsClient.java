@@ -20,9 +20,44 @@ import org.cups4j.operations.cups.CupsGetDefaultOperation;
 import org.cups4j.operations.cups.CupsGetPrintersOperation;
 import org.cups4j.operations.cups.CupsMoveJobOperation;
 import org.cups4j.operations.ipp.*;
+import org.cups4j.transport.AsyncIppTransport;
+import org.cups4j.transport.CancellationToken;
+import org.cups4j.transport.CircuitBreaker;
+import org.cups4j.transport.Credentials;
+import org.cups4j.transport.CredentialsProvider;
+import org.cups4j.transport.HttpAuthenticator;
+import org.cups4j.transport.HttpsUpgradeCache;
+import org.cups4j.transport.IppRequest;
+import org.cups4j.transport.IppTransport;
+import org.cups4j.transport.LaneTransport;
+import org.cups4j.transport.PooledHttpTransport;
+import org.cups4j.transport.RateLimiter;
+import org.cups4j.transport.RetryPolicy;
+import org.cups4j.transport.TrafficClass;
+import org.cups4j.transport.UnixDomainSocketTransport;
 
+import java.io.Closeable;
+import java.io.File;
+import java.net.URI;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * Main Client for accessing CUPS features like
@@ -38,8 +73,32 @@ import java.util.List;
  * <p>
  * - ...
  * </p>
+ * <p>
+ * All operations of a client share the same {@link IppTransport} with its
+ * pool of keep-alive connections. Call {@link #close()} if you do not need
+ * the client any longer.
+ * </p>
+ * <p>
+ * For most operations there is also an asynchronous variant (like
+ * {@link #getPrintersAsync()}) which returns a {@link CompletableFuture}.
+ * If the transport is an {@link AsyncIppTransport} like the
+ * {@link org.cups4j.transport.ChannelTransport} the job operations (job
+ * attributes and status, get jobs, cancel, hold, release and move) do not
+ * block a thread while they wait for the CUPS server: the transport reads
+ * the responses with its event loop and the futures are completed by a
+ * thread of the client's executor. All other asynchronous operations (like
+ * printing, where the document is read from a stream) and all operations
+ * with another transport run the blocking operation on a thread of the
+ * executor, so each of these requests occupies one thread until its
+ * response is read. Bulk operations like
+ * {@link #printAllAsync(CupsPrinter, List)} fan out one request per
+ * thread. Use {@link #setExecutionMode(ExecutionModeEnum)} to run them on
+ * virtual threads (Java 21+), which are cheap enough for many parallel
+ * requests, and {@link #setMaxRequestsPerHost(int)} to limit the parallel
+ * requests to one CUPS host.
+ * </p>
  */
-public class CupsClient {
+public class CupsClient implements Closeable {
   public static final String DEFAULT_HOST = "localhost";
   public static final int DEFAULT_PORT = 631;
   public static final String DEFAULT_USER = System.getProperty("user.name", "anonymous");
@@ -47,8 +106,20 @@ public class CupsClient {
   private String host = null;
   private int port = -1;
   private String user = null;
+  private final IppTransport transport;
+  private final HttpsUpgradeCache upgradeCache = new HttpsUpgradeCache();
+  private final HttpAuthenticator authenticator = new HttpAuthenticator();
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+  private RetryPolicy retryPolicy = RetryPolicy.getDefault();
+  private RateLimiter rateLimiter;
+  private TrafficClass trafficClass = TrafficClass.INTERACTIVE;
+  private ExecutorService executor;
+  private ExecutionModeEnum executionMode = ExecutionModeEnum.AUTO;
+  private volatile int maxRequestsPerHost = 16;
+  private final ConcurrentMap<String, HostQueue> hostQueues = new ConcurrentHashMap<String, HostQueue>();
 
-  private IppOperation ippOperation;
+  private final Set<IppRequest> runningRequests =
+      Collections.newSetFromMap(new ConcurrentHashMap<IppRequest, Boolean>());
 
   /**
    * Creates a CupsClient for localhost port 631 with user anonymous
@@ -79,6 +150,39 @@ public class CupsClient {
    * @throws Exception
    */
   public CupsClient(String host, int port, String userName) throws Exception {
+    this(host, port, userName, new PooledHttpTransport.Builder().build());
+  }
+
+  /**
+   * Creates a CupsClient for a local cupsd which is reached through its
+   * Unix domain socket (e.g. {@link UnixDomainSocketTransport#DEFAULT_SOCKET})
+   * instead of TCP. This needs Java 16 or newer.
+   *
+   * @param socketFile
+   * @param userName
+   * @throws Exception
+   */
+  public CupsClient(File socketFile, String userName) throws Exception {
+    this(DEFAULT_HOST, DEFAULT_PORT, userName, new UnixDomainSocketTransport(socketFile));
+  }
+
+  /**
+   * Creates a CupsClient for provided host, port and user which uses the
+   * given transport for all operations. Use this constructor if you want to
+   * configure the connection pool or the SSL context for IPPS (see
+   * {@link PooledHttpTransport.Builder}).
+   * 
+   * @param host
+   * @param port
+   * @param userName
+   * @param transport
+   * @throws Exception
+   */
+  public CupsClient(String host, int port, String userName, IppTransport transport) throws Exception {
+    if (transport == null) {
+      throw new Exception("No transport specified");
+    }
+    this.transport = transport;
     if (host != null && !"".equals(host)) {
       this.host = host;
     } else {
@@ -103,13 +207,14 @@ public class CupsClient {
    * @throws Exception
    */
   public List<CupsPrinter> getPrinters() throws Exception {
-    List<CupsPrinter> printers = new CupsGetPrintersOperation().getPrinters(host, port);
+    List<CupsPrinter> printers = withTransport(new CupsGetPrintersOperation(port)).getPrinters(host, port);
     // add default printer if available
     CupsPrinter defaultPrinter = null;
 
     defaultPrinter = getDefaultPrinter();
 
     for (CupsPrinter p : printers) {
+      withTransport(p);
       if (defaultPrinter != null && p.getPrinterURL().toString().equals(defaultPrinter.getPrinterURL().toString())) {
         p.setDefault(true);
       }
@@ -125,22 +230,25 @@ public class CupsClient {
    * @throws Exception
    */
   public List<CupsPrinter> getPrintersWithoutDefault() throws Exception {
-    CupsGetPrintersOperation cgp = new CupsGetPrintersOperation();
-    this.ippOperation = cgp;
+    CupsGetPrintersOperation cgp = withTransport(new CupsGetPrintersOperation(port));
     List<CupsPrinter> result = cgp.getPrinters(host, port);
-    ippOperation = null;
+    for (CupsPrinter p : result) {
+      withTransport(p);
+    }
     return result;
   }
 
   /**
-   * Cancel the current running job if possible.
+   * Cancel the current running operations of this client and its printers
+   * (including document uploads) if possible.
    * <p>
-   * This is especially necessary when using Cups4j within Android
+   * This is especially necessary when using Cups4j within Android. To
+   * cancel a single call use a {@link CancellationToken} instead.
    * </p>
    */
   public void cancelOperation() {
-    if (ippOperation != null) {
-      ippOperation.cancel();
+    for (IppRequest request : runningRequests) {
+      request.abort();
     }
   }
 
@@ -151,7 +259,11 @@ public class CupsClient {
    * @throws Exception
    */
   public CupsPrinter getDefaultPrinter() throws Exception {
-    return new CupsGetDefaultOperation().getDefaultPrinter(host, port);
+    CupsPrinter defaultPrinter = withTransport(new CupsGetDefaultOperation(port)).getDefaultPrinter(host, port);
+    if (defaultPrinter != null) {
+      withTransport(defaultPrinter);
+    }
+    return defaultPrinter;
   }
 
   /**
@@ -213,7 +325,7 @@ public class CupsClient {
       hostname = DEFAULT_HOST;
     }
 
-    return new IppGetJobAttributesOperation().getPrintJobAttributes(hostname, userName, port, jobID);
+    return withTransport(new IppGetJobAttributesOperation(port)).getPrintJobAttributes(hostname, userName, port, jobID);
   }
 
   /**
@@ -232,7 +344,7 @@ public class CupsClient {
    */
   public List<PrintJobAttributes> getJobs(CupsPrinter printer, WhichJobsEnum whichJobs, String userName, boolean myJobs)
       throws Exception {
-    return new IppGetJobsOperation().getPrintJobs(printer, whichJobs, userName, myJobs);
+    return withTransport(new IppGetJobsOperation(port)).getPrintJobs(printer, whichJobs, userName, myJobs);
   }
 
   /**
@@ -243,7 +355,7 @@ public class CupsClient {
    * @throws Exception
    */
   public boolean cancelJob(int jobID) throws Exception {
-    return new IppCancelJobOperation().cancelJob(host, user, jobID);
+    return withTransport(new IppCancelJobOperation(port)).cancelJob(host, user, jobID);
   }
 
   /**
@@ -256,7 +368,7 @@ public class CupsClient {
    * @throws Exception
    */
   public boolean cancelJob(String hostname, String userName, int jobID) throws Exception {
-    return new IppCancelJobOperation().cancelJob(hostname, userName, jobID);
+    return withTransport(new IppCancelJobOperation(port)).cancelJob(hostname, userName, jobID);
   }
 
   /**
@@ -268,7 +380,7 @@ public class CupsClient {
    * @throws Exception
    */
   public boolean holdJob(int jobID) throws Exception {
-    return new IppHoldJobOperation().holdJob(host, user, jobID);
+    return withTransport(new IppHoldJobOperation(port)).holdJob(host, user, jobID);
   }
 
   /**
@@ -281,7 +393,7 @@ public class CupsClient {
    * @throws Exception
    */
   public boolean holdJob(String hostname, String userName, int jobID) throws Exception {
-    return new IppHoldJobOperation().holdJob(hostname, userName, jobID);
+    return withTransport(new IppHoldJobOperation(port)).holdJob(hostname, userName, jobID);
   }
 
   /**
@@ -293,7 +405,7 @@ public class CupsClient {
    * @throws Exception
    */
   public boolean releaseJob(int jobID) throws Exception {
-    return new IppReleaseJobOperation().releaseJob(host, user, jobID);
+    return withTransport(new IppReleaseJobOperation(port)).releaseJob(host, user, jobID);
   }
 
   /**
@@ -306,7 +418,7 @@ public class CupsClient {
    * @throws Exception
    */
   public boolean releaseJob(String hostname, String userName, int jobID) throws Exception {
-    return new IppReleaseJobOperation().releaseJob(host, user, jobID);
+    return withTransport(new IppReleaseJobOperation(port)).releaseJob(host, user, jobID);
   }
 
   /**
@@ -323,7 +435,680 @@ public class CupsClient {
       throws Exception {
     String currentHost = currentPrinter.getPrinterURL().getHost();
 
-    return new CupsMoveJobOperation().moveJob(currentHost, userName, jobID, targetPrinter.getPrinterURL());
+    return withTransport(new CupsMoveJobOperation(port)).moveJob(currentHost, userName, jobID,
+        targetPrinter.getPrinterURL());
+  }
+
+  /**
+   * Returns all available printers asynchronously.
+   * 
+   * @return future with the list of printers
+   * @see #getPrinters()
+   */
+  public CompletableFuture<List<CupsPrinter>> getPrintersAsync() {
+    return supplyAsync(new Callable<List<CupsPrinter>>() {
+      public List<CupsPrinter> call() throws Exception {
+        return getPrinters();
+      }
+    });
+  }
+
+  /**
+   * Returns the default printer asynchronously.
+   * 
+   * @return future with the default printer
+   * @see #getDefaultPrinter()
+   */
+  public CompletableFuture<CupsPrinter> getDefaultPrinterAsync() {
+    return supplyAsync(new Callable<CupsPrinter>() {
+      public CupsPrinter call() throws Exception {
+        return getDefaultPrinter();
+      }
+    });
+  }
+
+  /**
+   * Returns the job attributes for the given jobID asynchronously.
+   * 
+   * @param jobID
+   * @return future with the job attributes
+   * @see #getJobAttributes(int)
+   */
+  public CompletableFuture<PrintJobAttributes> getJobAttributesAsync(final int jobID) {
+    return sendAsync(host, new Callable<CompletableFuture<PrintJobAttributes>>() {
+      public CompletableFuture<PrintJobAttributes> call() throws Exception {
+        String userName = (user == null || "".equals(user)) ? DEFAULT_USER : user;
+        String hostname = (host == null || "".equals(host)) ? DEFAULT_HOST : host;
+        return withTransport(new IppGetJobAttributesOperation(port)).getPrintJobAttributesAsync(hostname, userName,
+            port, jobID);
+      }
+    });
+  }
+
+  /**
+   * Returns all jobs for given printer and user name asynchronously.
+   * 
+   * @param printer
+   * @param whichJobs
+   * @param userName
+   * @param myJobs
+   * @return future with the list of job attributes
+   * @see #getJobs(CupsPrinter, WhichJobsEnum, String, boolean)
+   */
+  public CompletableFuture<List<PrintJobAttributes>> getJobsAsync(final CupsPrinter printer,
+      final WhichJobsEnum whichJobs, final String userName, final boolean myJobs) {
+    return sendAsync(printer.getPrinterURL().getHost(), new Callable<CompletableFuture<List<PrintJobAttributes>>>() {
+      public CompletableFuture<List<PrintJobAttributes>> call() throws Exception {
+        return withTransport(new IppGetJobsOperation(port)).getPrintJobsAsync(printer, whichJobs, userName, myJobs);
+      }
+    });
+  }
+
+  /**
+   * Gets the current status of the print job asynchronously.
+   * 
+   * @param printer
+   * @param userName
+   * @param jobID
+   * @return future with the job status
+   * @see CupsPrinter#getJobStatus(String, int)
+   */
+  public CompletableFuture<JobStateEnum> getJobStatusAsync(final CupsPrinter printer, final String userName,
+      final int jobID) {
+    return sendAsync(printer.getPrinterURL().getHost(), new Callable<CompletableFuture<JobStateEnum>>() {
+      public CompletableFuture<JobStateEnum> call() throws Exception {
+        return printer.getJobStatusAsync(userName, jobID);
+      }
+    });
+  }
+
+  /**
+   * Prints the given job on the given printer asynchronously.
+   * 
+   * @param printer
+   * @param printJob
+   * @return future with the print request result
+   * @see CupsPrinter#print(PrintJob)
+   */
+  public CompletableFuture<PrintRequestResult> printAsync(final CupsPrinter printer, final PrintJob printJob) {
+    return supplyAsync(printer.getPrinterURL().getHost(), new Callable<PrintRequestResult>() {
+      public PrintRequestResult call() throws Exception {
+        return printer.print(printJob);
+      }
+    });
+  }
+
+  /**
+   * Cancels the job with the provided jobID asynchronously.
+   * 
+   * @param jobID
+   * @return future with success flag
+   * @see #cancelJob(int)
+   */
+  public CompletableFuture<Boolean> cancelJobAsync(final int jobID) {
+    return sendAsync(host, new Callable<CompletableFuture<Boolean>>() {
+      public CompletableFuture<Boolean> call() throws Exception {
+        return withTransport(new IppCancelJobOperation(port)).cancelJobAsync(host, user, jobID);
+      }
+    });
+  }
+
+  /**
+   * Holds the job with the provided jobID asynchronously.
+   * 
+   * @param jobID
+   * @return future with success flag
+   * @see #holdJob(int)
+   */
+  public CompletableFuture<Boolean> holdJobAsync(final int jobID) {
+    return sendAsync(host, new Callable<CompletableFuture<Boolean>>() {
+      public CompletableFuture<Boolean> call() throws Exception {
+        return withTransport(new IppHoldJobOperation(port)).holdJobAsync(host, user, jobID);
+      }
+    });
+  }
+
+  /**
+   * Releases the held job with the provided jobID asynchronously.
+   * 
+   * @param jobID
+   * @return future with success flag
+   * @see #releaseJob(int)
+   */
+  public CompletableFuture<Boolean> releaseJobAsync(final int jobID) {
+    return sendAsync(host, new Callable<CompletableFuture<Boolean>>() {
+      public CompletableFuture<Boolean> call() throws Exception {
+        return withTransport(new IppReleaseJobOperation(port)).releaseJobAsync(host, user, jobID);
+      }
+    });
+  }
+
+  /**
+   * Moves the print job asynchronously.
+   * 
+   * @param jobID
+   * @param userName
+   * @param currentPrinter
+   * @param targetPrinter
+   * @return future with success flag
+   * @see #moveJob(int, String, CupsPrinter, CupsPrinter)
+   */
+  public CompletableFuture<Boolean> moveJobAsync(final int jobID, final String userName,
+      final CupsPrinter currentPrinter, final CupsPrinter targetPrinter) {
+    return sendAsync(host, new Callable<CompletableFuture<Boolean>>() {
+      public CompletableFuture<Boolean> call() throws Exception {
+        return withTransport(new CupsMoveJobOperation(port)).moveJobAsync(currentPrinter.getPrinterURL().getHost(),
+            userName, jobID, targetPrinter.getPrinterURL());
+      }
+    });
+  }
+
+  /**
+   * Submits the given print jobs to the printer. Each job is sent in its own
+   * thread but not more than {@link #getMaxRequestsPerHost()} in parallel.
+   * 
+   * @param printer
+   * @param printJobs
+   * @return future with the results in the order of the given jobs
+   */
+  public CompletableFuture<List<PrintRequestResult>> printAllAsync(CupsPrinter printer, List<PrintJob> printJobs) {
+    List<CompletableFuture<PrintRequestResult>> futures = new ArrayList<CompletableFuture<PrintRequestResult>>();
+    for (PrintJob job : printJobs) {
+      futures.add(printAsync(printer, job));
+    }
+    return allOf(futures);
+  }
+
+  /**
+   * Cancels all given jobs on the current host with the current user.
+   * 
+   * @param jobIDs
+   * @return future with the success flag for each job ID
+   */
+  public CompletableFuture<Map<Integer, Boolean>> cancelJobsAsync(List<Integer> jobIDs) {
+    final List<Integer> ids = new ArrayList<Integer>(jobIDs);
+    List<CompletableFuture<Boolean>> futures = new ArrayList<CompletableFuture<Boolean>>();
+    for (Integer id : ids) {
+      futures.add(cancelJobAsync(id));
+    }
+    return allOf(futures).thenApply(new Function<List<Boolean>, Map<Integer, Boolean>>() {
+      public Map<Integer, Boolean> apply(List<Boolean> results) {
+        Map<Integer, Boolean> map = new LinkedHashMap<Integer, Boolean>();
+        for (int i = 0; i < ids.size(); i++) {
+          map.put(ids.get(i), results.get(i));
+        }
+        return map;
+      }
+    });
+  }
+
+  /**
+   * Queries the jobs of all printers in parallel.
+   * 
+   * @param whichJobs
+   * @param userName
+   * @param myJobs
+   * @return future with the jobs of each printer
+   */
+  public CompletableFuture<Map<CupsPrinter, List<PrintJobAttributes>>> getJobsOfAllPrintersAsync(
+      final WhichJobsEnum whichJobs, final String userName, final boolean myJobs) {
+    return getPrintersAsync().thenCompose(
+        new Function<List<CupsPrinter>, CompletableFuture<Map<CupsPrinter, List<PrintJobAttributes>>>>() {
+          public CompletableFuture<Map<CupsPrinter, List<PrintJobAttributes>>> apply(
+              final List<CupsPrinter> printers) {
+            List<CompletableFuture<List<PrintJobAttributes>>> futures =
+                new ArrayList<CompletableFuture<List<PrintJobAttributes>>>();
+            for (CupsPrinter p : printers) {
+              futures.add(getJobsAsync(p, whichJobs, userName, myJobs));
+            }
+            return allOf(futures).thenApply(
+                new Function<List<List<PrintJobAttributes>>, Map<CupsPrinter, List<PrintJobAttributes>>>() {
+                  public Map<CupsPrinter, List<PrintJobAttributes>> apply(List<List<PrintJobAttributes>> jobs) {
+                    Map<CupsPrinter, List<PrintJobAttributes>> map =
+                        new LinkedHashMap<CupsPrinter, List<PrintJobAttributes>>();
+                    for (int i = 0; i < printers.size(); i++) {
+                      map.put(printers.get(i), jobs.get(i));
+                    }
+                    return map;
+                  }
+                });
+          }
+        });
+  }
+
+  private static <T> CompletableFuture<List<T>> allOf(final List<CompletableFuture<T>> futures) {
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(
+        new Function<Void, List<T>>() {
+          public List<T> apply(Void v) {
+            List<T> results = new ArrayList<T>(futures.size());
+            for (CompletableFuture<T> f : futures) {
+              results.add(f.join());
+            }
+            return results;
+          }
+        });
+  }
+
+  /**
+   * Sets the threads which are used for the asynchronous and bulk
+   * operations. Default is {@link ExecutionModeEnum#AUTO}.
+   * 
+   * @param mode
+   */
+  public synchronized void setExecutionMode(ExecutionModeEnum mode) {
+    setExecutor(mode.createExecutor("cups4j-" + host));
+    this.executionMode = mode;
+  }
+
+  public ExecutionModeEnum getExecutionMode() {
+    return executionMode;
+  }
+
+  /**
+   * Sets the executor for the asynchronous and bulk operations. The
+   * executor is shut down if the client is closed.
+   * 
+   * @param executor
+   */
+  public synchronized void setExecutor(ExecutorService executor) {
+    if (this.executor != null) {
+      this.executor.shutdown();
+    }
+    this.executor = executor;
+  }
+
+  /**
+   * Limits the number of parallel asynchronous requests to one CUPS host.
+   * Further calls wait in a queue without occupying a thread. The new
+   * limit applies also to the calls which are already waiting.
+   * 
+   * @param max
+   *          max number of parallel requests per host
+   */
+  public void setMaxRequestsPerHost(int max) {
+    if (max <= 0) {
+      throw new IllegalArgumentException("invalid number of requests: " + max);
+    }
+    this.maxRequestsPerHost = max;
+    for (HostQueue queue : hostQueues.values()) {
+      queue.dispatchWaiting();
+    }
+  }
+
+  public int getMaxRequestsPerHost() {
+    return maxRequestsPerHost;
+  }
+
+  private <T> CompletableFuture<T> supplyAsync(Callable<T> call) {
+    return supplyAsync(host, call);
+  }
+
+  /**
+   * Runs the given call with the executor of this client. Exceptions of the
+   * call complete the future exceptionally. Not more than
+   * {@link #getMaxRequestsPerHost()} calls run in parallel for the same host;
+   * the other calls are handed to the executor when a running call of this
+   * host has finished.
+   */
+  private <T> CompletableFuture<T> supplyAsync(String hostname, final Callable<T> call) {
+    final CompletableFuture<T> future = new CompletableFuture<T>();
+    final CancellationToken token = getAsyncToken(future);
+    getHostQueue(hostname).submit(new HostTask() {
+      void start(final Runnable done) {
+        getExecutor().execute(new Runnable() {
+          public void run() {
+            try {
+              if (future.isDone()) {
+                return; // cancelled while waiting
+              }
+              CancellationToken.Scope scope = token.activate();
+              try {
+                future.complete(call.call());
+              } catch (Exception ex) {
+                future.completeExceptionally(ex);
+              } finally {
+                scope.close();
+              }
+            } finally {
+              done.run();
+            }
+          }
+        });
+      }
+
+      void reject(RuntimeException ex) {
+        future.completeExceptionally(ex);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Starts the given asynchronous call. With an {@link AsyncIppTransport}
+   * the call is started by the calling thread and no thread waits for the
+   * response. The future is completed by a thread of the executor, so that
+   * the dependent actions of the caller cannot block the transport. With
+   * another transport the call runs on a thread of the executor like
+   * {@link #supplyAsync(String, Callable)}.
+   */
+  private <T> CompletableFuture<T> sendAsync(String hostname, final Callable<CompletableFuture<T>> call) {
+    if (!(transport instanceof AsyncIppTransport)) {
+      return supplyAsync(hostname, new Callable<T>() {
+        public T call() throws Exception {
+          return getResult(call.call());
+        }
+      });
+    }
+    final CompletableFuture<T> future = new CompletableFuture<T>();
+    final CancellationToken token = getAsyncToken(future);
+    getHostQueue(hostname).submit(new HostTask() {
+      void start(final Runnable done) {
+        if (future.isDone()) {
+          done.run(); // cancelled while waiting
+          return;
+        }
+        CompletableFuture<T> result;
+        CancellationToken.Scope scope = token.activate();
+        try {
+          result = call.call();
+        } catch (Exception ex) {
+          result = new CompletableFuture<T>();
+          result.completeExceptionally(ex);
+        } finally {
+          scope.close();
+        }
+        result.whenComplete(new BiConsumer<T, Throwable>() {
+          public void accept(T value, Throwable failure) {
+            completeLater(future, value, failure, done);
+          }
+        });
+      }
+
+      void reject(RuntimeException ex) {
+        future.completeExceptionally(ex);
+      }
+    });
+    return future;
+  }
+
+  private static <T> T getResult(CompletableFuture<T> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof Exception) {
+        throw (Exception) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Completes the future with a thread of the executor. If the executor is
+   * already shut down the future is completed by the calling thread.
+   */
+  private <T> void completeLater(final CompletableFuture<T> future, final T value, final Throwable failure,
+      final Runnable done) {
+    Runnable completion = new Runnable() {
+      public void run() {
+        try {
+          done.run();
+        } finally {
+          if (failure == null) {
+            future.complete(value);
+          } else {
+            future.completeExceptionally((failure instanceof CompletionException) ? failure.getCause() : failure);
+          }
+        }
+      }
+    };
+    try {
+      getExecutor().execute(completion);
+    } catch (RejectedExecutionException ex) {
+      completion.run();
+    }
+  }
+
+  /**
+   * The asynchronous call uses the token of the caller. Without such a
+   * token a new one is created which is cancelled if the future is
+   * cancelled.
+   */
+  private static CancellationToken getAsyncToken(final CompletableFuture<?> future) {
+    CancellationToken current = CancellationToken.current();
+    if (current != null) {
+      return current;
+    }
+    final CancellationToken token = new CancellationToken();
+    future.whenComplete(new BiConsumer<Object, Throwable>() {
+      public void accept(Object result, Throwable failure) {
+        if (future.isCancelled()) {
+          token.cancel();
+        }
+      }
+    });
+    return token;
+  }
+
+  private HostQueue getHostQueue(String hostname) {
+    HostQueue queue = hostQueues.get(hostname);
+    if (queue == null) {
+      hostQueues.putIfAbsent(hostname, new HostQueue());
+      queue = hostQueues.get(hostname);
+    }
+    return queue;
+  }
+
+  private synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      executor = executionMode.createExecutor("cups4j-" + host);
+    }
+    return executor;
+  }
+
+  private <T extends IppOperation> T withTransport(T operation) {
+    operation.setTransport(transport);
+    operation.setUpgradeCache(upgradeCache);
+    operation.setAuthenticator(authenticator);
+    operation.setRetryPolicy(retryPolicy);
+    operation.setCircuitBreaker(circuitBreaker);
+    operation.setRateLimiter(rateLimiter);
+    operation.setTrafficClass(trafficClass);
+    operation.setRunningRequests(runningRequests);
+    return operation;
+  }
+
+  private CupsPrinter withTransport(CupsPrinter printer) {
+    printer.setTransport(transport);
+    printer.setUpgradeCache(upgradeCache);
+    printer.setAuthenticator(authenticator);
+    printer.setRetryPolicy(retryPolicy);
+    printer.setCircuitBreaker(circuitBreaker);
+    printer.setRateLimiter(rateLimiter);
+    printer.setTrafficClass(trafficClass);
+    printer.setRunningRequests(runningRequests);
+    return printer;
+  }
+
+  /**
+   * Sets the user name and password which are used if the CUPS server
+   * requires authentication (Basic or Digest).
+   * 
+   * @param userName
+   * @param password
+   */
+  public void setCredentials(String userName, String password) {
+    final Credentials credentials = new Credentials(userName, password);
+    setCredentialsProvider(new CredentialsProvider() {
+      public Credentials getCredentials(URI uri, String realm) {
+        return credentials;
+      }
+    });
+  }
+
+  /**
+   * Sets the provider which is asked for the credentials if the CUPS server
+   * requires authentication. After the first successful challenge the
+   * requests to this server are sent preemptively authorized.
+   * 
+   * @param provider
+   */
+  public void setCredentialsProvider(CredentialsProvider provider) {
+    authenticator.setCredentialsProvider(provider);
+  }
+
+  /**
+   * Sets the policy for repeating idempotent operations (Get-*) after
+   * transient failures like a restart of cupsd. Use {@link RetryPolicy#NONE}
+   * to switch retries off.
+   * 
+   * @param retryPolicy
+   */
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+  }
+
+  /**
+   * Sets the rate limiter for the requests of this client. Without an own
+   * limiter the {@link RateLimiter#getDefault()} is used which is shared
+   * by all clients.
+   * 
+   * @param rateLimiter
+   */
+  public void setRateLimiter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
+  /**
+   * Sets the traffic class for the operations and printers of this client.
+   * Together with a {@link LaneTransport} this keeps e.g. a batch client
+   * from starving an interactive client which shares the same transport.
+   * 
+   * @param trafficClass
+   */
+  public void setTrafficClass(TrafficClass trafficClass) {
+    this.trafficClass = trafficClass;
+  }
+
+  public TrafficClass getTrafficClass() {
+    return trafficClass;
+  }
+
+  /**
+   * Gets the circuit breaker which lets the requests of this client fail
+   * fast while the CUPS server is down.
+   * 
+   * @return the circuit breaker
+   */
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  /**
+   * Gets the transport which is shared by all operations of this client.
+   * 
+   * @return the transport
+   */
+  public IppTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Closes the transport of this client with all its pooled connections and
+   * stops the threads for the asynchronous operations.
+   */
+  public void close() {
+    synchronized (this) {
+      if (executor != null) {
+        executor.shutdown();
+      }
+    }
+    transport.close();
+  }
+
+  /**
+   * A call which waits in a {@link HostQueue}.
+   */
+  private abstract static class HostTask {
+
+    /**
+     * Starts the call. The given callback must be run when the call is
+     * finished.
+     */
+    abstract void start(Runnable done);
+
+    /**
+     * Is called if the executor does not accept the task (e.g. because the
+     * client was closed).
+     */
+    abstract void reject(RuntimeException ex);
+
+  }
+
+  /**
+   * The calls of one host. A call is started only if less than
+   * {@link #getMaxRequestsPerHost()} calls of this host are running, so
+   * that waiting calls do not block a thread.
+   */
+  private final class HostQueue {
+
+    private final Queue<HostTask> waiting = new ArrayDeque<HostTask>();
+    private int running;
+
+    void submit(HostTask task) {
+      synchronized (this) {
+        if (running >= maxRequestsPerHost) {
+          waiting.add(task);
+          return;
+        }
+        running++;
+      }
+      dispatch(task);
+    }
+
+    void dispatchWaiting() {
+      while (true) {
+        HostTask next;
+        synchronized (this) {
+          if ((running >= maxRequestsPerHost) || waiting.isEmpty()) {
+            return;
+          }
+          next = waiting.poll();
+          running++;
+        }
+        dispatch(next);
+      }
+    }
+
+    private void dispatch(HostTask task) {
+      try {
+        task.start(new Runnable() {
+          public void run() {
+            finished();
+          }
+        });
+      } catch (RuntimeException ex) {
+        synchronized (this) {
+          running--;
+        }
+        task.reject(ex);
+      }
+    }
+
+    private void finished() {
+      synchronized (this) {
+        running--;
+      }
+      dispatchWaiting();
+    }
+
   }
 
 }
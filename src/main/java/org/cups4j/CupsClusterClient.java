@@ -0,0 +1,577 @@
+/**
+ * Copyright (C) 2026 Oliver Boehm
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details. You should have received a copy of
+ * the GNU Lesser General Public License along with this program; if not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.cups4j;
+
+import org.cups4j.transport.CancellationToken;
+import org.cups4j.transport.CircuitOpenException;
+import org.cups4j.transport.RetryPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A client for several CUPS servers which share the same queues. Each
+ * operation is routed to the healthy server with the fewest requests in
+ * flight; if a server cannot be reached the operation fails over to the
+ * next one. The health of the servers is tracked passively by the results
+ * of the operations and, if started, actively by periodic health checks.
+ * <p>
+ * Read-only queries can be hedged (see {@link #enableHedging(double, long,
+ * TimeUnit)}): if the first server does not answer within the given
+ * percentile of the recent latencies the query is also sent to a second
+ * server. The first answer wins and the other request is cancelled.
+ * </p>
+ * <p>
+ * Jobs belong to the server which accepted them. Job operations like
+ * cancel or hold must therefore be sent to the same server, e.g. with
+ * {@link #execute(ClientCall)} and the client of the printer.
+ * </p>
+ */
+public class CupsClusterClient implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CupsClusterClient.class);
+  private static final int LATENCY_SAMPLES = 128;
+
+  private final List<Member> members = new ArrayList<Member>();
+  private final AtomicInteger roundRobin = new AtomicInteger();
+  private final long[] latencies = new long[LATENCY_SAMPLES];
+  private int latencyCount;
+  private ScheduledExecutorService healthChecker;
+  private ExecutorService hedgeExecutor;
+  private volatile double hedgePercentile;
+  private volatile long minHedgeDelay;
+
+  /**
+   * Operation which is executed with the client of the selected server.
+   *
+   * @param <T> type of the result
+   */
+  public interface ClientCall<T> {
+    T call(CupsClient client) throws Exception;
+  }
+
+  /**
+   * Creates a cluster of the given (already configured) clients.
+   *
+   * @param clients
+   *          one client for each CUPS server
+   */
+  public CupsClusterClient(List<CupsClient> clients) {
+    if (clients.isEmpty()) {
+      throw new IllegalArgumentException("no CUPS server given");
+    }
+    for (CupsClient client : clients) {
+      members.add(new Member(client));
+    }
+  }
+
+  /**
+   * Creates a cluster for the given endpoints.
+   *
+   * @param userName
+   *          the user name for all servers
+   * @param endpoints
+   *          endpoints like "cups1:631" (the port is optional)
+   * @throws Exception
+   */
+  public CupsClusterClient(String userName, String... endpoints) throws Exception {
+    this(createClients(userName, endpoints));
+  }
+
+  private static List<CupsClient> createClients(String userName, String... endpoints) throws Exception {
+    List<CupsClient> clients = new ArrayList<CupsClient>();
+    for (String endpoint : endpoints) {
+      int colon = endpoint.lastIndexOf(':');
+      if (colon < 0) {
+        clients.add(new CupsClient(endpoint, CupsClient.DEFAULT_PORT, userName));
+      } else {
+        clients.add(new CupsClient(endpoint.substring(0, colon), Integer.parseInt(endpoint.substring(colon + 1)),
+            userName));
+      }
+    }
+    return clients;
+  }
+
+  /**
+   * Returns the printers of a healthy server.
+   *
+   * @return List of Printers
+   * @throws Exception
+   */
+  public List<CupsPrinter> getPrinters() throws Exception {
+    return execute(new ClientCall<List<CupsPrinter>>() {
+      public List<CupsPrinter> call(CupsClient client) throws Exception {
+        return client.getPrinters();
+      }
+    }, true);
+  }
+
+  /**
+   * Returns the attributes of the given job. The job ID must be known by
+   * all servers (replicated CUPS servers).
+   *
+   * @param jobID
+   * @return Job attributes
+   * @throws Exception
+   */
+  public PrintJobAttributes getJobAttributes(final int jobID) throws Exception {
+    return execute(new ClientCall<PrintJobAttributes>() {
+      public PrintJobAttributes call(CupsClient client) throws Exception {
+        return client.getJobAttributes(jobID);
+      }
+    }, true);
+  }
+
+  /**
+   * Returns the state of the given job.
+   *
+   * @param jobID
+   * @return job state
+   * @throws Exception
+   */
+  public JobStateEnum getJobStatus(int jobID) throws Exception {
+    return getJobAttributes(jobID).getJobState();
+  }
+
+  /**
+   * Prints the job on the queue with the given name of the selected server.
+   * A failover happens only if the job cannot have reached the server
+   * (e.g. connection refused), so a job is never printed twice.
+   *
+   * @param printerName
+   *          name of the queue
+   * @param printJob
+   * @return the result of the server which accepted the job
+   * @throws Exception
+   */
+  public PrintRequestResult print(final String printerName, final PrintJob printJob) throws Exception {
+    return route(new MemberCall<PrintRequestResult>() {
+      public PrintRequestResult call(Member member) throws Exception {
+        return member.getPrinter(printerName).print(printJob);
+      }
+    }, false, new ArrayList<Member>());
+  }
+
+  /**
+   * Executes the given call on the selected server. Because the call may
+   * have side effects a failover happens only if the server was not
+   * reachable.
+   *
+   * @param call
+   * @return result of the call
+   * @throws Exception
+   */
+  public <T> T execute(ClientCall<T> call) throws Exception {
+    return execute(call, false);
+  }
+
+  /**
+   * Executes the given call on the selected server. An idempotent call is
+   * repeated on the next server for all transient failures.
+   *
+   * @param call
+   * @param idempotent
+   *          true if the call can be repeated without side effects
+   * @return result of the call
+   * @throws Exception
+   */
+  public <T> T execute(final ClientCall<T> call, boolean idempotent) throws Exception {
+    MemberCall<T> memberCall = new MemberCall<T>() {
+      public T call(Member member) throws Exception {
+        return call.call(member.client);
+      }
+    };
+    List<Member> tried = new ArrayList<Member>();
+    if (idempotent && isHedgingEnabled() && (members.size() > 1)) {
+      return hedge(memberCall, tried);
+    }
+    return route(memberCall, idempotent, tried);
+  }
+
+  private <T> T route(MemberCall<T> call, boolean idempotent, List<Member> tried) throws Exception {
+    while (true) {
+      Member member = select(tried);
+      member.inFlight.incrementAndGet();
+      long start = System.nanoTime();
+      try {
+        T result = call.call(member);
+        member.healthy = true;
+        if (idempotent) {
+          recordLatency(System.nanoTime() - start);
+        }
+        return result;
+      } catch (IOException ex) {
+        if (!isFailover(ex, idempotent)) {
+          throw ex;
+        }
+        member.markUnhealthy(ex);
+        tried.add(member);
+        if (tried.size() >= members.size()) {
+          throw ex;
+        }
+        LOG.debug("Failover from {} because of {}.", member, ex.getMessage());
+      } finally {
+        member.inFlight.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Sends the call to the selected server and, if there is no answer
+   * within the hedge delay, also to a second server. The first successful
+   * answer wins, the other attempt is cancelled. If both attempts fail the
+   * call fails over to the remaining servers.
+   */
+  private <T> T hedge(MemberCall<T> call, List<Member> tried) throws Exception {
+    BlockingQueue<Attempt<T>> completed = new LinkedBlockingQueue<Attempt<T>>();
+    List<Attempt<T>> attempts = new ArrayList<Attempt<T>>();
+    attempts.add(start(select(tried), call, completed));
+    tried.add(attempts.get(0).member);
+    Attempt<T> attempt = completed.poll(getHedgeDelay(), TimeUnit.NANOSECONDS);
+    if (attempt == null) {
+      Attempt<T> hedged = start(select(tried), call, completed);
+      LOG.debug("No answer from {} - hedging request to {}.", attempts.get(0).member, hedged.member);
+      attempts.add(hedged);
+      tried.add(hedged.member);
+      attempt = completed.take();
+    }
+    for (int pending = attempts.size() - 1;; pending--) {
+      if (attempt.error == null) {
+        for (Attempt<T> other : attempts) {
+          if (other != attempt) {
+            other.cancel();
+          }
+        }
+        return attempt.result;
+      }
+      if (!isFailover(attempt.error)) {
+        throw attempt.error;
+      }
+      attempt.member.markUnhealthy(attempt.error);
+      if (pending == 0) {
+        break;
+      }
+      attempt = completed.take();
+    }
+    if (tried.size() >= members.size()) {
+      throw attempt.error;
+    }
+    return route(call, true, tried);
+  }
+
+  private <T> Attempt<T> start(final Member member, final MemberCall<T> call,
+      final BlockingQueue<Attempt<T>> completed) {
+    final Attempt<T> attempt = new Attempt<T>(member);
+    member.inFlight.incrementAndGet();
+    getHedgeExecutor().execute(new Runnable() {
+      public void run() {
+        CancellationToken.Scope scope = attempt.token.activate();
+        long start = System.nanoTime();
+        try {
+          attempt.result = call.call(member);
+          member.healthy = true;
+          recordLatency(System.nanoTime() - start);
+        } catch (Exception ex) {
+          attempt.error = ex;
+        } finally {
+          scope.close();
+          member.inFlight.decrementAndGet();
+          completed.add(attempt);
+        }
+      }
+    });
+    return attempt;
+  }
+
+  private static boolean isFailover(Exception ex) {
+    return (ex instanceof IOException) && isFailover((IOException) ex, true);
+  }
+
+  private static boolean isFailover(IOException ex, boolean idempotent) {
+    if ((ex instanceof ConnectException) || (ex instanceof NoRouteToHostException)
+        || (ex instanceof CircuitOpenException)) {
+      return true;
+    }
+    // a query which timed out on one server may be answered by another one
+    return idempotent && (RetryPolicy.isTransient(ex) || (ex instanceof SocketTimeoutException));
+  }
+
+  /**
+   * Selects the healthy server with the fewest requests in flight. Servers
+   * with the same load are used in turn. If no server is healthy the
+   * unhealthy ones are tried because they may be up again.
+   */
+  private Member select(List<Member> excluded) {
+    int offset = roundRobin.getAndIncrement() & Integer.MAX_VALUE;
+    Member selected = null;
+    for (int i = 0; i < members.size(); i++) {
+      Member member = members.get((offset + i) % members.size());
+      if (excluded.contains(member)) {
+        continue;
+      }
+      if ((selected == null) || member.isPreferredTo(selected)) {
+        selected = member;
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Checks all servers once with a CUPS-Get-Default request.
+   */
+  public void checkHealth() {
+    for (Member member : members) {
+      try {
+        member.client.getDefaultPrinter();
+        if (!member.healthy) {
+          LOG.info("{} is healthy again.", member);
+        }
+        member.healthy = true;
+      } catch (Exception ex) {
+        member.markUnhealthy(ex);
+      }
+    }
+  }
+
+  /**
+   * Starts the periodic health checks in the background.
+   *
+   * @param period
+   *          time between two checks
+   * @param unit
+   *          unit of time
+   */
+  public synchronized void startHealthChecks(long period, TimeUnit unit) {
+    if (healthChecker != null) {
+      healthChecker.shutdownNow();
+    }
+    healthChecker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "cups4j-health-check");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    healthChecker.scheduleWithFixedDelay(new Runnable() {
+      public void run() {
+        checkHealth();
+      }
+    }, 0, period, unit);
+  }
+
+  /**
+   * Enables hedging for read-only queries. If the first server has not
+   * answered within the given percentile of the recent latencies (but at
+   * least within the given min delay) the query is sent to a second server.
+   *
+   * @param percentile
+   *          e.g. 0.95 for the 95th percentile
+   * @param minDelay
+   *          lower bound for the hedge delay, also used as long as there
+   *          are not enough latencies measured
+   * @param unit
+   *          unit of time
+   */
+  public void enableHedging(double percentile, long minDelay, TimeUnit unit) {
+    if ((percentile <= 0) || (percentile > 1)) {
+      throw new IllegalArgumentException("percentile must be in (0, 1]: " + percentile);
+    }
+    this.minHedgeDelay = unit.toNanos(minDelay);
+    this.hedgePercentile = percentile;
+  }
+
+  public void disableHedging() {
+    this.hedgePercentile = 0;
+  }
+
+  public boolean isHedgingEnabled() {
+    return hedgePercentile > 0;
+  }
+
+  /**
+   * Gets the time after which a read-only query is sent to a second server.
+   *
+   * @return hedge delay in nanoseconds
+   */
+  long getHedgeDelay() {
+    long[] samples;
+    synchronized (latencies) {
+      if (latencyCount < LATENCY_SAMPLES / 4) {
+        return minHedgeDelay;
+      }
+      samples = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_SAMPLES));
+    }
+    Arrays.sort(samples);
+    int index = Math.min(samples.length - 1, (int) Math.ceil(hedgePercentile * samples.length) - 1);
+    return Math.max(minHedgeDelay, samples[Math.max(0, index)]);
+  }
+
+  private void recordLatency(long nanos) {
+    synchronized (latencies) {
+      latencies[latencyCount % LATENCY_SAMPLES] = nanos;
+      latencyCount++;
+      if (latencyCount == 2 * LATENCY_SAMPLES) {
+        latencyCount = LATENCY_SAMPLES;
+      }
+    }
+  }
+
+  private synchronized ExecutorService getHedgeExecutor() {
+    if (hedgeExecutor == null) {
+      hedgeExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "cups4j-hedge-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return hedgeExecutor;
+  }
+
+  /**
+   * Gets the clients of all servers.
+   *
+   * @return the clients (unmodifiable)
+   */
+  public List<CupsClient> getClients() {
+    List<CupsClient> clients = new ArrayList<CupsClient>();
+    for (Member member : members) {
+      clients.add(member.client);
+    }
+    return Collections.unmodifiableList(clients);
+  }
+
+  /**
+   * Gets the health state of the servers.
+   *
+   * @return for each client true if the server is healthy
+   */
+  public Map<CupsClient, Boolean> getHealth() {
+    Map<CupsClient, Boolean> health = new ConcurrentHashMap<CupsClient, Boolean>();
+    for (Member member : members) {
+      health.put(member.client, member.healthy);
+    }
+    return health;
+  }
+
+  /**
+   * Stops the health checks and closes all clients.
+   */
+  public void close() {
+    synchronized (this) {
+      if (healthChecker != null) {
+        healthChecker.shutdownNow();
+      }
+      if (hedgeExecutor != null) {
+        hedgeExecutor.shutdown();
+      }
+    }
+    for (Member member : members) {
+      member.client.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + members;
+  }
+
+  private interface MemberCall<T> {
+    T call(Member member) throws Exception;
+  }
+
+  private static final class Attempt<T> {
+    private final Member member;
+    private final CancellationToken token = new CancellationToken();
+    private volatile T result;
+    private volatile Exception error;
+
+    Attempt(Member member) {
+      this.member = member;
+    }
+
+    void cancel() {
+      token.cancel();
+    }
+  }
+
+  private static final class Member {
+    private final CupsClient client;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, CupsPrinter> printers = new ConcurrentHashMap<String, CupsPrinter>();
+    private volatile boolean healthy = true;
+
+    Member(CupsClient client) {
+      this.client = client;
+    }
+
+    CupsPrinter getPrinter(String printerName) throws Exception {
+      CupsPrinter printer = printers.get(printerName);
+      if (printer == null) {
+        for (CupsPrinter p : client.getPrintersWithoutDefault()) {
+          printers.put(p.getName(), p);
+        }
+        printer = printers.get(printerName);
+        if (printer == null) {
+          throw new IllegalArgumentException("no printer '" + printerName + "' found on " + this);
+        }
+      }
+      return printer;
+    }
+
+    boolean isPreferredTo(Member other) {
+      if (healthy != other.healthy) {
+        return healthy;
+      }
+      return inFlight.get() < other.inFlight.get();
+    }
+
+    void markUnhealthy(Exception ex) {
+      if (healthy) {
+        LOG.warn("{} is not healthy: {}", this, ex.getMessage());
+      }
+      healthy = false;
+      printers.clear();
+    }
+
+    @Override
+    public String toString() {
+      return client.getHost() + ":" + client.getPort() + "[" + inFlight + (healthy ? "" : ", unhealthy") + "]";
+    }
+  }
+
+}
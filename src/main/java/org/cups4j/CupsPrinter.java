@@ -4,11 +4,27 @@ import ch.ethz.vppserver.ippclient.IppResult;
 import org.cups4j.ipp.ResponseException;
 import org.cups4j.ipp.attributes.Attribute;
 import org.cups4j.ipp.attributes.AttributeGroup;
+import org.cups4j.ipp.attributes.AttributeValue;
+import org.cups4j.operations.IppOperation;
 import org.cups4j.operations.ipp.*;
+import org.cups4j.transport.CircuitBreaker;
+import org.cups4j.transport.HttpAuthenticator;
+import org.cups4j.transport.HttpsUpgradeCache;
+import org.cups4j.transport.IppRequest;
+import org.cups4j.transport.IppTransport;
+import org.cups4j.transport.PooledHttpTransport;
+import org.cups4j.transport.RateLimiter;
+import org.cups4j.transport.RetryPolicy;
+import org.cups4j.transport.TrafficClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Copyright (C) 2009 Harald Weyhing
@@ -30,6 +46,7 @@ import java.util.*;
  */
 
 public class CupsPrinter {
+  private static final Logger LOG = LoggerFactory.getLogger(CupsPrinter.class);
   private URL printerURL = null;
   private String name = null;
   private String description = null;
@@ -48,6 +65,16 @@ public class CupsPrinter {
   private List<String> colorModeSupported = new ArrayList<String>();
   private List<String> mimeTypesSupported = new ArrayList<String>();
   private List<String> sidesSupported = new ArrayList<String>();
+  private IppTransport transport = PooledHttpTransport.getDefault();
+  private HttpsUpgradeCache upgradeCache = HttpsUpgradeCache.getDefault();
+  private HttpAuthenticator authenticator = HttpAuthenticator.getDefault();
+  private RetryPolicy retryPolicy = RetryPolicy.getDefault();
+  private CircuitBreaker circuitBreaker = CircuitBreaker.getDefault();
+  private RateLimiter rateLimiter;
+  private TrafficClass trafficClass = TrafficClass.INTERACTIVE;
+  private Set<IppRequest> runningRequests;
+  private boolean compressionEnabled = false;
+  private List<String> compressionSupported;
 
   /**
    * Constructor
@@ -82,77 +109,24 @@ public class CupsPrinter {
     InputStream document = printJob.getDocument();
     String userName = printJob.getUserName();
     String jobName = printJob.getJobName();
-    int copies = printJob.getCopies();
-    String pageRanges = printJob.getPageRanges();
-    String resolution = printJob.getResolution();
-
-    String pageFormat = printJob.getPageFormat();
-    boolean color = printJob.isColor();
-    boolean portrait = printJob.isPortrait();
-
-    Map<String, String> attributes = printJob.getAttributes();
-
+    Map<String, String> attributes = new HashMap<String, String>();
+    if (printJob.getAttributes() != null) {
+      attributes.putAll(printJob.getAttributes());
+    }
     if (userName == null) {
       userName = CupsClient.DEFAULT_USER;
     }
-    if (attributes == null) {
-      attributes = new HashMap<String, String>();
-    }
-
     attributes.put("requesting-user-name", userName);
     attributes.put("job-name", jobName);
 
-    String copiesString = null;
-    StringBuffer rangesString = new StringBuffer();
-    if (copies > 0) {// other values are considered bad value by CUPS
-      copiesString = "copies:integer:" + copies;
-      addAttribute(attributes, "job-attributes", copiesString);
-    }
-    if (portrait) {
-      addAttribute(attributes, "job-attributes", "orientation-requested:enum:3");
-    } else {
-      addAttribute(attributes, "job-attributes", "orientation-requested:enum:4");
-    }
-
-    if (color) {
-      addAttribute(attributes, "job-attributes", "output-mode:keyword:color");
-    } else {
-      addAttribute(attributes, "job-attributes", "output-mode:keyword:monochrome");
-    }
-
-    if (pageFormat != null && !"".equals(pageFormat)) {
-      addAttribute(attributes, "job-attributes", "media:keyword:" + pageFormat);
-    }
-
-    if (resolution != null && !"".equals(resolution)) {
-      addAttribute(attributes, "job-attributes", "printer-resolution:resolution:" + resolution);
-    }
-
-    if (pageRanges != null && !"".equals(pageRanges.trim()) && !"1-".equals(pageRanges.trim())) {
-      String[] ranges = pageRanges.split(",");
-
-      String delimeter = "";
-
-      rangesString.append("page-ranges:setOfRangeOfInteger:");
-      for (String range : ranges) {
-        range = range.trim();
-
-        String[] values = range.split("-");
-        if (values.length == 1) {
-          range = range + "-" + range;
-        }
-
-        rangesString.append(delimeter).append(range);
-        // following ranges need to be separated with ","
-        delimeter = ",";
-      }
-      addAttribute(attributes, "job-attributes", rangesString.toString());
-    }
-
-    if (printJob.isDuplex()) {
-      addAttribute(attributes, "job-attributes", "sides:keyword:two-sided-long-edge");
+    IppPrintJobOperation command = withTrafficClass(withTransport(new IppPrintJobOperation(printerURL.getPort())),
+        printJob);
+    CompressionEnum compression = getCompression();
+    if (compression != CompressionEnum.NONE && !attributes.containsKey("compression")) {
+      attributes.put("compression", compression.getKeyword());
+      command.setCompression(compression);
     }
-    IppPrintJobOperation command = new IppPrintJobOperation(printerURL.getPort());
+    command.setJobAttributes(printJob.getJobAttributes());
     IppResult ippResult = command.request(printerURL, attributes, document);
     PrintRequestResult result = new PrintRequestResult(ippResult);
     // IppResultPrinter.print(result);
@@ -260,7 +234,8 @@ public class CupsPrinter {
     Map<String, String> attributes = new HashMap<String, String>();
     attributes.put("job-name", job.getJobName());
     attributes.put("requesting-user-name", job.getUserName());
-    IppCreateJobOperation command = new IppCreateJobOperation(printerURL.getPort());
+    IppCreateJobOperation command = withTrafficClass(withTransport(new IppCreateJobOperation(printerURL.getPort())),
+        job);
     IppResult ippResult = command.request(printerURL, attributes);
     if (ippResult.getHttpStatusCode() == 200) {
       AttributeGroup attrGroup = ippResult.getAttributeGroup("job-attributes-tag");
@@ -285,7 +260,9 @@ public class CupsPrinter {
    * @author oboehm
    */
   public PrintRequestResult print(PrintJob job, int jobId, boolean lastDocument) {
-    IppSendDocumentOperation op = new IppSendDocumentOperation(printerURL.getPort(), jobId, lastDocument);
+    IppSendDocumentOperation op = withTrafficClass(withTransport(
+        new IppSendDocumentOperation(printerURL.getPort(), jobId, lastDocument)), job);
+    op.setCompression(getCompression());
     IppResult ippResult = op.request(printerURL, job);
     PrintRequestResult result = new PrintRequestResult(ippResult);
     result.setJobId(jobId);
@@ -293,21 +270,187 @@ public class CupsPrinter {
   }
 
   /**
+   * Enables or disables the compression of documents. If enabled the
+   * documents are compressed on the fly with the best compression of
+   * {@link #getCompressionSupported()}. Compression is disabled by default.
    * 
-   * @param map
-   * @param name
-   * @param value
+   * @param enabled
+   *          true to compress documents
+   * @since 0.7.7
    */
-  private void addAttribute(Map<String, String> map, String name, String value) {
-    if (value != null && name != null) {
-      String attribute = map.get(name);
-      if (attribute == null) {
-        attribute = value;
-      } else {
-        attribute += "#" + value;
+  public void setCompressionEnabled(boolean enabled) {
+    this.compressionEnabled = enabled;
+  }
+
+  public boolean isCompressionEnabled() {
+    return compressionEnabled;
+  }
+
+  /**
+   * Gets the values of the printer attribute "compression-supported". Only
+   * a successful answer of the printer is cached. If the printer cannot be
+   * asked (e.g. because of a transient error) an empty list is returned and
+   * the printer is asked again next time.
+   * 
+   * @return e.g. [none, gzip]
+   * @since 0.7.7
+   */
+  public synchronized List<String> getCompressionSupported() {
+    if (compressionSupported == null) {
+      List<String> supported = requestCompressionSupported();
+      if (supported == null) {
+        return new ArrayList<String>();
       }
-      map.put(name, attribute);
+      compressionSupported = supported;
+    }
+    return compressionSupported;
+  }
+
+  /**
+   * Asks the printer for its "compression-supported" values.
+   * 
+   * @return the values or null if the printer has not answered successfully
+   */
+  private List<String> requestCompressionSupported() {
+    List<String> supported = new ArrayList<String>();
+    Map<String, String> attributes = new HashMap<String, String>();
+    attributes.put("requesting-user-name", CupsClient.DEFAULT_USER);
+    attributes.put("requested-attributes", "compression-supported");
+    try {
+      IppResult ippResult = withTransport(new IppGetPrinterAttributesOperation(printerURL.getPort())).request(
+          printerURL, attributes);
+      String status = ippResult.getIppStatusResponse();
+      if ((ippResult.getHttpStatusCode() != 200) || (status == null) || !status.contains("Status Code:0x00")) {
+        LOG.warn("Cannot get compression-supported of {} ({}) - documents will not be compressed.", printerURL,
+            status);
+        return null;
+      }
+      for (AttributeGroup group : ippResult.getAttributeGroupList()) {
+        for (Attribute attr : group.getAttribute()) {
+          if ("compression-supported".equals(attr.getName())) {
+            for (AttributeValue value : attr.getAttributeValue()) {
+              supported.add(value.getValue());
+            }
+          }
+        }
+      }
+    } catch (Exception ex) {
+      LOG.warn("Cannot get compression-supported of {} - documents will not be compressed:", printerURL, ex);
+      return null;
+    }
+    return supported;
+  }
+
+  private CompressionEnum getCompression() {
+    if (!compressionEnabled) {
+      return CompressionEnum.NONE;
+    }
+    return CompressionEnum.select(getCompressionSupported());
+  }
+
+  private <T extends IppOperation> T withTransport(T operation) {
+    operation.setTransport(transport);
+    operation.setUpgradeCache(upgradeCache);
+    operation.setAuthenticator(authenticator);
+    operation.setRetryPolicy(retryPolicy);
+    operation.setCircuitBreaker(circuitBreaker);
+    operation.setRateLimiter(rateLimiter);
+    operation.setTrafficClass(trafficClass);
+    operation.setRunningRequests(runningRequests);
+    return operation;
+  }
+
+  /**
+   * The {@link CupsClient} which found this printer registers here its set
+   * of running requests so that {@link CupsClient#cancelOperation()}
+   * covers also the requests of this printer.
+   */
+  void setRunningRequests(Set<IppRequest> runningRequests) {
+    this.runningRequests = runningRequests;
+  }
+
+  private static <T extends IppOperation> T withTrafficClass(T operation, PrintJob job) {
+    if (job.getTrafficClass() != null) {
+      operation.setTrafficClass(job.getTrafficClass());
     }
+    return operation;
+  }
+
+  /**
+   * Sets the traffic class for the operations of this printer. A single
+   * print job can override it with
+   * {@link PrintJob.Builder#trafficClass(TrafficClass)}.
+   * 
+   * @param trafficClass
+   * @since 0.7.7
+   */
+  public void setTrafficClass(TrafficClass trafficClass) {
+    this.trafficClass = trafficClass;
+  }
+
+  public TrafficClass getTrafficClass() {
+    return trafficClass;
+  }
+
+  /**
+   * Sets the transport which is used for the operations of this printer.
+   * Normally this is the transport of the {@link CupsClient} which found
+   * this printer.
+   * 
+   * @param transport
+   */
+  protected void setTransport(IppTransport transport) {
+    this.transport = transport;
+  }
+
+  /**
+   * Sets the cache of the hosts which require HTTPS. Normally this is the
+   * cache of the {@link CupsClient} which found this printer.
+   * 
+   * @param upgradeCache
+   */
+  protected void setUpgradeCache(HttpsUpgradeCache upgradeCache) {
+    this.upgradeCache = upgradeCache;
+  }
+
+  /**
+   * Sets the authenticator which answers "401 Unauthorized". Normally this
+   * is the authenticator of the {@link CupsClient} which found this printer.
+   * 
+   * @param authenticator
+   */
+  protected void setAuthenticator(HttpAuthenticator authenticator) {
+    this.authenticator = authenticator;
+  }
+
+  /**
+   * Sets the policy for repeating idempotent operations. Normally this is
+   * the policy of the {@link CupsClient} which found this printer.
+   * 
+   * @param retryPolicy
+   */
+  protected void setRetryPolicy(RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+  }
+
+  /**
+   * Sets the circuit breaker for the host of this printer. Normally this is
+   * the breaker of the {@link CupsClient} which found this printer.
+   * 
+   * @param circuitBreaker
+   */
+  protected void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  /**
+   * Sets the rate limiter for the requests of this printer. Normally this is
+   * the limiter of the {@link CupsClient} which found this printer.
+   * 
+   * @param rateLimiter
+   */
+  protected void setRateLimiter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
   }
 
   /**
@@ -325,7 +468,7 @@ public class CupsPrinter {
    */
 
   public List<PrintJobAttributes> getJobs(WhichJobsEnum whichJobs, String user, boolean myJobs) throws Exception {
-    IppGetJobsOperation command = new IppGetJobsOperation(printerURL.getPort());
+    IppGetJobsOperation command = withTransport(new IppGetJobsOperation(printerURL.getPort()));
 
     return command.getPrintJobs(this, whichJobs, user, myJobs);
   }
@@ -350,12 +493,32 @@ public class CupsPrinter {
    * @throws Exception
    */
   public JobStateEnum getJobStatus(String userName, int jobID) throws Exception {
-    IppGetJobAttributesOperation command = new IppGetJobAttributesOperation(printerURL.getPort());
+    IppGetJobAttributesOperation command = withTransport(new IppGetJobAttributesOperation(printerURL.getPort()));
     PrintJobAttributes job = command.getPrintJobAttributes(printerURL.getHost(), userName, printerURL.getPort(), jobID);
 
     return job.getJobState();
   }
 
+  /**
+   * Gets the current status of the print job asynchronously. With an
+   * {@link org.cups4j.transport.AsyncIppTransport} no thread waits for the
+   * response.
+   * 
+   * @param userName
+   * @param jobID
+   * @return future with the job status
+   * @throws MalformedURLException
+   */
+  public CompletableFuture<JobStateEnum> getJobStatusAsync(String userName, int jobID) throws MalformedURLException {
+    IppGetJobAttributesOperation command = withTransport(new IppGetJobAttributesOperation(printerURL.getPort()));
+    return command.getPrintJobAttributesAsync(printerURL.getHost(), userName, printerURL.getPort(), jobID).thenApply(
+        new Function<PrintJobAttributes, JobStateEnum>() {
+          public JobStateEnum apply(PrintJobAttributes job) {
+            return job.getJobState();
+          }
+        });
+  }
+
   /**
    * Get the URL for this printer
    * 
@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2026 Oliver Boehm
+ * 
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * 
+ * See the GNU Lesser General Public License for more details. You should have received a copy of
+ * the GNU Lesser General Public License along with this program; if not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.cups4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Defines which threads are used by {@link CupsClient} for the asynchronous
+ * and bulk operations. Each running operation blocks its thread until the
+ * response is read.
+ * <p>
+ * VIRTUAL_THREADS needs Java 21 or newer. AUTO uses virtual threads if they
+ * are available and platform threads otherwise.
+ * </p>
+ */
+public enum ExecutionModeEnum {
+  PLATFORM_THREADS, VIRTUAL_THREADS, AUTO;
+
+  private static final Logger LOG = LoggerFactory.getLogger(ExecutionModeEnum.class);
+
+  /**
+   * Creates the executor for this execution mode.
+   * 
+   * @param name
+   *          prefix for the thread names
+   * @return executor service
+   */
+  public ExecutorService createExecutor(String name) {
+    switch (this) {
+    case VIRTUAL_THREADS:
+      return createVirtualThreadExecutor(name);
+    case AUTO:
+      if (isVirtualThreadSupported()) {
+        return createVirtualThreadExecutor(name);
+      }
+      LOG.debug("Virtual threads are not supported by Java {} - using platform threads.",
+          System.getProperty("java.version"));
+      return createPlatformThreadExecutor(name);
+    default:
+      return createPlatformThreadExecutor(name);
+    }
+  }
+
+  /**
+   * Virtual threads are supported since Java 21.
+   * 
+   * @return true if virtual threads are supported by the running JVM
+   */
+  public static boolean isVirtualThreadSupported() {
+    try {
+      Thread.class.getMethod("ofVirtual");
+      return true;
+    } catch (NoSuchMethodException ex) {
+      return false;
+    }
+  }
+
+  private static ExecutorService createPlatformThreadExecutor(final String name) {
+    return Executors.newCachedThreadPool(new ThreadFactory() {
+      private final AtomicInteger counter = new AtomicInteger();
+
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * The virtual thread API is called by reflection because cups4j is still
+   * compiled for Java 8.
+   */
+  private static ExecutorService createVirtualThreadExecutor(String name) {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+      builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+      ThreadFactory factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory")
+          .invoke(builder);
+      return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(
+          null, factory);
+    } catch (ReflectiveOperationException ex) {
+      throw new UnsupportedOperationException("virtual threads are not supported by Java "
+          + System.getProperty("java.version"), ex);
+    }
+  }
+
+}
@@ -0,0 +1,290 @@
+/**
+ * Copyright (C) 2026 Oliver Boehm
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details. You should have received a copy of
+ * the GNU Lesser General Public License along with this program; if not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.cups4j;
+
+import ch.ethz.vppserver.ippclient.IppBufferPool;
+import ch.ethz.vppserver.ippclient.IppTag;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A typed job template attribute (e.g. "copies" or "media") for a print
+ * job. The attribute is validated and encoded in IPP wire format when it is
+ * created, so it can be reused for any number of jobs and is copied as is
+ * into the request:
+ * <p>
+ * <code>
+ * JobAttribute media = JobAttribute.keyword("media", "iso_a4_210x297mm");
+ * </code>
+ * </p>
+ * This replaces the "name:type:value#..." strings of the "job-attributes"
+ * entry in {@link PrintJob.Builder#attributes(java.util.Map)}.
+ */
+public final class JobAttribute {
+
+  private final String name;
+  private final byte[] encoded;
+
+  private JobAttribute(String name, ByteBuffer ippBuf) {
+    this.name = name;
+    ippBuf.flip();
+    this.encoded = new byte[ippBuf.remaining()];
+    ippBuf.get(encoded);
+  }
+
+  /**
+   * Creates an integer attribute.
+   *
+   * @param name
+   *          e.g. "copies"
+   * @param value
+   *          the value
+   * @return the attribute
+   */
+  public static JobAttribute integer(String name, int value) {
+    try {
+      return new JobAttribute(name, IppTag.getInteger(newBuffer(name), name, value));
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalArgumentException("cannot encode " + name, ex);
+    }
+  }
+
+  /**
+   * Creates an enum attribute.
+   *
+   * @param name
+   *          e.g. "orientation-requested"
+   * @param value
+   *          the enum value, e.g. 3 for portrait
+   * @return the attribute
+   */
+  public static JobAttribute enumeration(String name, int value) {
+    try {
+      return new JobAttribute(name, IppTag.getEnum(newBuffer(name), name, value));
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalArgumentException("cannot encode " + name, ex);
+    }
+  }
+
+  /**
+   * Creates a boolean attribute.
+   *
+   * @param name
+   *          the attribute name
+   * @param value
+   *          true or false
+   * @return the attribute
+   */
+  public static JobAttribute bool(String name, boolean value) {
+    try {
+      return new JobAttribute(name, IppTag.getBoolean(newBuffer(name), name, value));
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalArgumentException("cannot encode " + name, ex);
+    }
+  }
+
+  /**
+   * Creates a keyword attribute. More than one value results in a
+   * "1setOf keyword".
+   *
+   * @param name
+   *          e.g. "sides"
+   * @param values
+   *          e.g. "two-sided-long-edge"
+   * @return the attribute
+   */
+  public static JobAttribute keyword(String name, String... values) {
+    ByteBuffer ippBuf = newBuffer(name);
+    if (values.length == 0) {
+      throw new IllegalArgumentException("no value given for " + name);
+    }
+    try {
+      String attributeName = name;
+      for (String value : values) {
+        ippBuf = IppTag.getKeyword(ippBuf, attributeName, checkValue(name, value));
+        attributeName = null;
+      }
+      return new JobAttribute(name, ippBuf);
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalArgumentException("cannot encode " + name, ex);
+    }
+  }
+
+  /**
+   * Creates a name attribute (nameWithoutLanguage).
+   *
+   * @param name
+   *          the attribute name
+   * @param value
+   *          the value
+   * @return the attribute
+   */
+  public static JobAttribute name(String name, String value) {
+    try {
+      return new JobAttribute(name, IppTag.getNameWithoutLanguage(newBuffer(name), name, checkValue(name, value)));
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalArgumentException("cannot encode " + name, ex);
+    }
+  }
+
+  /**
+   * Creates a rangeOfInteger attribute.
+   *
+   * @param name
+   *          the attribute name
+   * @param low
+   *          lower bound
+   * @param high
+   *          upper bound (not smaller than low)
+   * @return the attribute
+   */
+  public static JobAttribute rangeOfInteger(String name, int low, int high) {
+    return setOfRangeOfInteger(name, new int[][] { { low, high } });
+  }
+
+  /**
+   * Creates a "1setOf rangeOfInteger" attribute from ranges like
+   * "1-3, 5, 8, 10-13" as they are used for "page-ranges".
+   *
+   * @param name
+   *          e.g. "page-ranges"
+   * @param ranges
+   *          comma separated ranges
+   * @return the attribute
+   */
+  public static JobAttribute setOfRangeOfInteger(String name, String ranges) {
+    List<int[]> values = new ArrayList<int[]>();
+    for (String range : checkValue(name, ranges).split(",")) {
+      String[] bounds = range.trim().split("-");
+      try {
+        int low = Integer.parseInt(bounds[0].trim());
+        int high = (bounds.length > 1) ? Integer.parseInt(bounds[1].trim()) : low;
+        values.add(new int[] { low, high });
+      } catch (NumberFormatException ex) {
+        throw new IllegalArgumentException("invalid range '" + range + "' for " + name, ex);
+      }
+    }
+    return setOfRangeOfInteger(name, values.toArray(new int[values.size()][]));
+  }
+
+  private static JobAttribute setOfRangeOfInteger(String name, int[][] ranges) {
+    ByteBuffer ippBuf = newBuffer(name);
+    try {
+      String attributeName = name;
+      for (int[] range : ranges) {
+        if (range[0] > range[1]) {
+          throw new IllegalArgumentException("invalid range " + range[0] + "-" + range[1] + " for " + name);
+        }
+        ippBuf = IppTag.getRangeOfInteger(ippBuf, attributeName, range[0], range[1]);
+        attributeName = null;
+      }
+      return new JobAttribute(name, ippBuf);
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalArgumentException("cannot encode " + name, ex);
+    }
+  }
+
+  /**
+   * Creates a resolution attribute.
+   *
+   * @param name
+   *          e.g. "printer-resolution"
+   * @param crossFeed
+   *          cross feed direction resolution
+   * @param feed
+   *          feed direction resolution
+   * @param units
+   *          3 for dots per inch, 4 for dots per cm
+   * @return the attribute
+   */
+  public static JobAttribute resolution(String name, int crossFeed, int feed, byte units) {
+    if ((units != 3) && (units != 4)) {
+      throw new IllegalArgumentException("invalid units " + units + " for " + name);
+    }
+    try {
+      return new JobAttribute(name, IppTag.getResolution(newBuffer(name), name, crossFeed, feed, units));
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalArgumentException("cannot encode " + name, ex);
+    }
+  }
+
+  /**
+   * Creates a resolution attribute from a string like "600,600,3" (cross
+   * feed, feed, units) as it is used by {@link PrintJob.Builder#resolution(String)}.
+   *
+   * @param name
+   *          e.g. "printer-resolution"
+   * @param resolution
+   *          the resolution string
+   * @return the attribute
+   */
+  public static JobAttribute resolution(String name, String resolution) {
+    String[] values = checkValue(name, resolution).split(",");
+    if (values.length != 3) {
+      throw new IllegalArgumentException("invalid resolution '" + resolution + "' for " + name);
+    }
+    try {
+      return resolution(name, Integer.parseInt(values[0].trim()), Integer.parseInt(values[1].trim()),
+          Byte.parseByte(values[2].trim()));
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("invalid resolution '" + resolution + "' for " + name, ex);
+    }
+  }
+
+  /**
+   * Gets the name of the attribute.
+   *
+   * @return e.g. "copies"
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Writes the encoded attribute into the given buffer.
+   *
+   * @param ippBuf
+   *          the IPP request in write mode
+   * @return the given buffer or a bigger replacement
+   */
+  public ByteBuffer encode(ByteBuffer ippBuf) {
+    ippBuf = IppBufferPool.ensureCapacity(ippBuf, encoded.length);
+    ippBuf.put(encoded);
+    return ippBuf;
+  }
+
+  private static ByteBuffer newBuffer(String name) {
+    if ((name == null) || name.isEmpty()) {
+      throw new IllegalArgumentException("attribute name is missing");
+    }
+    return ByteBuffer.allocate(32 + name.length());
+  }
+
+  private static String checkValue(String name, String value) {
+    if ((value == null) || value.isEmpty()) {
+      throw new IllegalArgumentException("no value given for " + name);
+    }
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+}
@@ -14,11 +14,26 @@ package org.cups4j;
  * You should have received a copy of the GNU Lesser General Public License along with Cups4J. If
  * not, see <http://www.gnu.org/licenses/>.
  */
+import org.cups4j.transport.FileChannelInputStream;
+import org.cups4j.transport.TrafficClass;
+
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 public class PrintJob {
+  private static final JobAttribute PORTRAIT = JobAttribute.enumeration("orientation-requested", 3);
+  private static final JobAttribute LANDSCAPE = JobAttribute.enumeration("orientation-requested", 4);
+  private static final JobAttribute COLOR = JobAttribute.keyword("output-mode", "color");
+  private static final JobAttribute MONOCHROME = JobAttribute.keyword("output-mode", "monochrome");
+  private static final JobAttribute DUPLEX = JobAttribute.keyword("sides", "two-sided-long-edge");
+
   private InputStream document;
   private int copies;
   private String pageRanges;
@@ -31,6 +46,8 @@ public class PrintJob {
   private String resolution;
 
   private Map<String, String> attributes;
+  private List<JobAttribute> jobAttributes;
+  private TrafficClass trafficClass;
 
   /**
    * <p>
@@ -42,7 +59,7 @@ public class PrintJob {
    * ("harald").copies(2).build();
    * </p>
    * <p>
-   * documents are supplied as byte[] or as InputStream
+   * documents are supplied as byte[], InputStream, Path or FileChannel
    * </p>
    */
   public static class Builder {
@@ -57,6 +74,8 @@ public class PrintJob {
     private String pageFormat;
     private String resolution;
     private Map<String, String> attributes;
+    private List<JobAttribute> jobAttributes = new ArrayList<JobAttribute>();
+    private TrafficClass trafficClass;
 
     /**
      * Constructor
@@ -79,6 +98,33 @@ public class PrintJob {
       this.document = document;
     }
 
+    /**
+     * Constructor for a document file. The file is sent with an exact
+     * Content-Length and without copying it through the heap.
+     * 
+     * @param path
+     *          document file
+     * @throws IOException
+     *           if the file cannot be opened
+     */
+    public Builder(Path path) throws IOException {
+      this.document = new FileChannelInputStream(path);
+    }
+
+    /**
+     * Constructor for a document channel which is read from its current
+     * position up to its end. The channel is closed after the document was
+     * sent.
+     * 
+     * @param channel
+     *          document channel
+     * @throws IOException
+     *           if the channel cannot be accessed
+     */
+    public Builder(FileChannel channel) throws IOException {
+      this.document = new FileChannelInputStream(channel);
+    }
+
     /**
      * Number of copies - 0 and 1 are both treated as one copy
      * 
@@ -168,6 +214,13 @@ public class PrintJob {
       return this;
     }
 
+    /**
+     * Printer resolution
+     * 
+     * @param resolution
+     *          cross feed, feed and units (3 = dpi, 4 = dpcm), e.g. "600,600,3"
+     * @return Builder
+     */
     public Builder resolution(String resolution) {
       this.resolution = resolution;
       return this;
@@ -205,6 +258,32 @@ public class PrintJob {
       return this;
     }
 
+    /**
+     * Additional typed job attributes. In contrast to the "job-attributes"
+     * string of {@link #attributes(Map)} they are validated and encoded only
+     * once and can be shared between jobs.
+     * 
+     * @param attributes
+     *          e.g. JobAttribute.keyword("print-quality", "high")
+     * @return Builder
+     */
+    public Builder jobAttributes(JobAttribute... attributes) {
+      Collections.addAll(this.jobAttributes, attributes);
+      return this;
+    }
+
+    /**
+     * Tags the job with a traffic class, e.g. BATCH for large print runs.
+     * Without a traffic class the class of the printer is used.
+     * 
+     * @param trafficClass
+     * @return Builder
+     */
+    public Builder trafficClass(TrafficClass trafficClass) {
+      this.trafficClass = trafficClass;
+      return this;
+    }
+
     /**
      * Builds the PrintJob object.
      * 
@@ -227,6 +306,51 @@ public class PrintJob {
     this.pageFormat = builder.pageFormat;
     this.portrait = builder.portrait;
     this.resolution = builder.resolution;
+    this.trafficClass = builder.trafficClass;
+    this.jobAttributes = Collections.unmodifiableList(createJobAttributes(builder.jobAttributes));
+  }
+
+  private List<JobAttribute> createJobAttributes(List<JobAttribute> additional) {
+    List<JobAttribute> list = new ArrayList<JobAttribute>();
+    if (copies > 0) { // other values are considered bad value by CUPS
+      list.add(JobAttribute.integer("copies", copies));
+    }
+    list.add(portrait ? PORTRAIT : LANDSCAPE);
+    list.add(color ? COLOR : MONOCHROME);
+    if (pageFormat != null && !"".equals(pageFormat)) {
+      list.add(JobAttribute.keyword("media", pageFormat));
+    }
+    if (resolution != null && !"".equals(resolution)) {
+      list.add(JobAttribute.resolution("printer-resolution", resolution));
+    }
+    if (pageRanges != null && !"".equals(pageRanges.trim()) && !"1-".equals(pageRanges.trim())) {
+      list.add(JobAttribute.setOfRangeOfInteger("page-ranges", pageRanges));
+    }
+    if (duplex) {
+      list.add(DUPLEX);
+    }
+    list.addAll(additional);
+    return list;
+  }
+
+  /**
+   * Gets the job attributes of this job. These are the attributes for the
+   * properties of this job (like copies or page ranges) followed by the
+   * attributes of {@link Builder#jobAttributes(JobAttribute...)}.
+   * 
+   * @return typed job attributes
+   */
+  public List<JobAttribute> getJobAttributes() {
+    return jobAttributes;
+  }
+
+  /**
+   * Gets the traffic class of this job.
+   * 
+   * @return traffic class or null if the class of the printer should be used
+   */
+  public TrafficClass getTrafficClass() {
+    return trafficClass;
   }
 
   public Map<String, String> getAttributes() {
@@ -25,6 +25,7 @@ public class AttributeValue {
   protected String value;
   @org.simpleframework.xml.Attribute(required = false)
   protected String description;
+  protected byte tagCode;
 
   /**
    * Gets the value of the setOfKeyword property.
@@ -89,6 +90,26 @@ public class AttributeValue {
     this.tag = value;
   }
 
+  /**
+   * Gets the tag as byte as it was read from the IPP response, e.g. 0x44
+   * for a keyword. It is 0 for values not read from a response.
+   * 
+   * @return tag byte
+   */
+  public byte getTagCode() {
+    return tagCode;
+  }
+
+  /**
+   * Sets the tag as byte.
+   * 
+   * @param value
+   *          tag byte
+   */
+  public void setTagCode(byte value) {
+    this.tagCode = value;
+  }
+
   /**
    * Gets the value of the tagName property.
    * 
@@ -14,43 +14,80 @@ package org.cups4j.operations;
  * the GNU Lesser General Public License along with this program; if not, see
  * <http://www.gnu.org/licenses/>.
  */
-import ch.ethz.vppserver.ippclient.IppResponse;
+import ch.ethz.vppserver.ippclient.IppBufferPool;
+import ch.ethz.vppserver.ippclient.IppHeaderTemplates;
 import ch.ethz.vppserver.ippclient.IppResult;
 import ch.ethz.vppserver.ippclient.IppTag;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.ResponseHandler;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.InputStreamEntity;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.util.EntityUtils;
+import org.cups4j.CompressionEnum;
 import org.cups4j.CupsClient;
+import org.cups4j.PrintRequestResult;
 import org.cups4j.ipp.attributes.Attribute;
+import org.cups4j.transport.AsyncIppTransport;
+import org.cups4j.transport.CancellationToken;
+import org.cups4j.transport.CircuitBreaker;
+import org.cups4j.transport.FileChannelInputStream;
+import org.cups4j.transport.HttpAuthenticator;
+import org.cups4j.transport.HttpsUpgradeCache;
+import org.cups4j.transport.IppRequest;
+import org.cups4j.transport.IppTransport;
+import org.cups4j.transport.OperationCancelledException;
+import org.cups4j.transport.PooledHttpTransport;
+import org.cups4j.transport.RateLimiter;
+import org.cups4j.transport.RetryPolicy;
+import org.cups4j.transport.TrafficClass;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 public abstract class IppOperation {
   protected short operationID = -1; // IPP operation ID
-  protected short bufferSize = 8192; // BufferSize for this operation
+  /**
+   * Initial size of the IPP header buffer.
+   *
+   * @deprecated the header buffers come from the {@link IppBufferPool} and
+   *             grow automatically, so this value is no longer used
+   */
+  @Deprecated
+  protected short bufferSize = 8192;
   protected int ippPort = CupsClient.DEFAULT_PORT;
 
   protected final static String IPP_MIME_TYPE = "application/ipp";
-  private HttpPost httpCall;
-
-  //
-  private String httpStatusLine = null;
-  private int httpStatusCode = -1;
+  private IppTransport transport = PooledHttpTransport.getDefault();
+  private HttpsUpgradeCache upgradeCache = HttpsUpgradeCache.getDefault();
+  private HttpAuthenticator authenticator = HttpAuthenticator.getDefault();
+  private RetryPolicy retryPolicy = RetryPolicy.getDefault();
+  private CircuitBreaker circuitBreaker = CircuitBreaker.getDefault();
+  private RateLimiter rateLimiter;
+  private TrafficClass trafficClass = TrafficClass.INTERACTIVE;
+  private CompressionEnum compression = CompressionEnum.NONE;
+  private final Set<IppRequest> activeRequests =
+      Collections.newSetFromMap(new ConcurrentHashMap<IppRequest, Boolean>());
+  private CancellationToken cancellationToken;
+  private Set<IppRequest> runningRequests;
 
   private static final Logger LOG = LoggerFactory.getLogger(IppOperation.class);
+  private static ScheduledExecutorService scheduler;
 
   /**
    * Gets the IPP header
@@ -67,6 +104,49 @@ public abstract class IppOperation {
     return sendRequest(url, getIppHeader(url, map));
   }
 
+  /**
+   * Sends the request asynchronously. With an {@link AsyncIppTransport} no
+   * thread waits for the response: a retry, the HTTPS upgrade and the answer
+   * to an authentication challenge are started when the previous response
+   * arrives, and the waits for the {@link RateLimiter} and for the next
+   * attempt are timed by a scheduler. With another transport the request is
+   * sent in the calling thread.
+   * 
+   * @param url
+   * @param map
+   * @return future with the result
+   */
+  public CompletableFuture<IppResult> requestAsync(URL url, Map<String, String> map) {
+    CompletableFuture<IppResult> future = new CompletableFuture<IppResult>();
+    try {
+      if (!(transport instanceof AsyncIppTransport)) {
+        future.complete(request(url, map));
+        return future;
+      }
+      ByteBuffer ippBuf = getIppHeader(url, map);
+      URI uri = new URI("http://" + url.getHost() + ":" + ippPort + url.getPath());
+      return new AsyncRequest(uri, ippBuf, future).start();
+    } catch (Exception ex) {
+      future.completeExceptionally(ex);
+      return future;
+    }
+  }
+
+  /**
+   * Converts the result of an asynchronous job operation (like Cancel-Job)
+   * into its success flag.
+   * 
+   * @param result
+   * @return future with true on success
+   */
+  protected static CompletableFuture<Boolean> toSuccessFlag(CompletableFuture<IppResult> result) {
+    return result.thenApply(new Function<IppResult, Boolean>() {
+      public Boolean apply(IppResult ippResult) {
+        return new PrintRequestResult(ippResult).isSuccessfulResult();
+      }
+    });
+  }
+
   public IppResult request(URL url, Map<String, String> map, InputStream document) throws Exception {
     return sendRequest(url, getIppHeader(url, map), document);
   }
@@ -85,17 +165,15 @@ public abstract class IppOperation {
       return null;
     }
 
-    ByteBuffer ippBuf = ByteBuffer.allocateDirect(bufferSize);
-    ippBuf = IppTag.getOperation(ippBuf, operationID);
-    ippBuf = IppTag.getUri(ippBuf, "printer-uri", stripPortNumber(url));
-
+    ByteBuffer ippBuf = IppBufferPool.acquire();
     if (map == null) {
+      ippBuf = IppHeaderTemplates.getHeader(ippBuf, operationID, stripPortNumber(url));
       ippBuf = IppTag.getEnd(ippBuf);
       ippBuf.flip();
       return ippBuf;
     }
 
-    ippBuf = IppTag.getNameWithoutLanguage(ippBuf, "requesting-user-name", map.get("requesting-user-name"));
+    ippBuf = IppHeaderTemplates.getHeader(ippBuf, operationID, stripPortNumber(url), map.get("requesting-user-name"));
 
     if (map.get("limit") != null) {
       int value = Integer.parseInt(map.get("limit"));
@@ -146,7 +224,6 @@ public abstract class IppOperation {
    * @throws Exception
    */
   private IppResult sendRequest(URL url, ByteBuffer ippBuf, InputStream documentStream) throws Exception {
-    IppResult ippResult = null;
     if (ippBuf == null) {
       return null;
     }
@@ -155,79 +232,336 @@ public abstract class IppOperation {
       return null;
     }
 
-    // HttpClient client = new DefaultHttpClient();
-    //
-    // // will not work with older versions of CUPS!
-    // client.getParams().setParameter("http.protocol.version",
-    // HttpVersion.HTTP_1_1);
-    // client.getParams().setParameter("http.socket.timeout", new
-    // Integer(10000));
-    // client.getParams().setParameter("http.connection.timeout", new
-    // Integer(10000));
-    // client.getParams().setParameter("http.protocol.content-charset",
-    // "UTF-8");
-    // client.getParams().setParameter("http.method.response.buffer.warnlimit",
-    // new Integer(8092));
-    //
-    // // probabaly not working with older CUPS versions
-    // client.getParams().setParameter("http.protocol.expect-continue",
-    // Boolean.valueOf(true));
-
-    HttpClient client = HttpClientBuilder.create().build();
-
-    HttpPost httpPost = new HttpPost(new URI("http://" + url.getHost() + ":" + ippPort) + url.getPath());
-    httpPost.setConfig(getRequestConfig());
-    httpCall = httpPost;
-
-    // httpPost.getParams().setParameter("http.socket.timeout", new
-    // Integer(10000));
-
-    byte[] bytes = new byte[ippBuf.limit()];
-    ippBuf.get(bytes);
-
-    ByteArrayInputStream headerStream = new ByteArrayInputStream(bytes);
-
-    // If we need to send a document, concatenate InputStreams
-    InputStream inputStream = headerStream;
-    if (documentStream != null) {
-      inputStream = new SequenceInputStream(headerStream, documentStream);
-    }
-
-    // set length to -1 to advice the entity to read until EOF
-    InputStreamEntity requestEntity = new InputStreamEntity(inputStream, -1);
-
-    requestEntity.setContentType(IPP_MIME_TYPE);
-    httpPost.setEntity(requestEntity);
-
-    httpStatusLine = null;
-    httpStatusCode = -1;
-
-    ResponseHandler<byte[]> handler = new ResponseHandler<byte[]>() {
-      public byte[] handleResponse(HttpResponse response) throws ClientProtocolException, IOException {
-        HttpEntity entity = response.getEntity();
-        httpStatusLine = response.getStatusLine().toString();
-        httpStatusCode = response.getStatusLine().getStatusCode();
-        if (entity != null) {
-          return EntityUtils.toByteArray(entity);
+    URI uri = new URI("http://" + url.getHost() + ":" + ippPort + url.getPath());
+    return sendRequest(uri, ippBuf, documentStream);
+  }
+
+  /**
+   * Sends the IPP header and the (optional) document to the given URI with
+   * the transport of this operation. If the host answers with "426 Upgrade
+   * Required" the request is repeated with HTTPS and the host is remembered
+   * in the {@link HttpsUpgradeCache}, so following requests go directly to
+   * HTTPS. A "401 Unauthorized" is answered once with the credentials of the
+   * {@link HttpAuthenticator} which then sends following requests to this
+   * host preemptively authorized. The document is compressed for each
+   * attempt (see {@link #setCompression(CompressionEnum)}), so a compressed
+   * upload can be repeated as well. The document stream is closed and the
+   * IPP header is given back to the {@link IppBufferPool} at the end.
+   * 
+   * @param uri
+   * @param ippBuf
+   * @param documentStream
+   *          can be null
+   * @return result
+   * @throws IOException
+   */
+  protected IppResult sendRequest(URI uri, ByteBuffer ippBuf, InputStream documentStream) throws IOException {
+    InputStream document = toReplayable(documentStream);
+    try {
+      URI target = upgradeCache.resolve(uri);
+      IppResult result = sendDocument(target, ippBuf, document);
+      if ((result.getHttpStatusCode() == 426) && "http".equalsIgnoreCase(target.getScheme())) {
+        URI https = upgradeCache.upgrade(target);
+        if (rewind(document)) {
+          LOG.info("{} requires HTTPS - will use {} for this and all following requests.", target, https);
+          result = sendDocument(https, ippBuf, document);
         } else {
-          return null;
+          LOG.warn("{} requires HTTPS but the document is already sent - following requests will use {}.",
+              target, https);
         }
+        target = https;
       }
-    };
-    
-    byte[] result = client.execute(httpPost, handler);
+      if ((result.getHttpStatusCode() == 401)
+          && authenticator.challenge(target, result.getHttpHeaders("WWW-Authenticate"))) {
+        if (rewind(document)) {
+          LOG.debug("{} requires authentication - repeating request with credentials.", target);
+          result = sendDocument(target, ippBuf, document);
+        } else {
+          LOG.warn("{} requires authentication but the document is already sent.", target);
+        }
+      }
+      return result;
+    } finally {
+      IppBufferPool.release(ippBuf);
+      if (document != null) {
+        document.close();
+      }
+    }
+  }
 
-    IppResponse ippResponse = new IppResponse();
+  /**
+   * Compresses the (uncompressed) document with a new compressor for this
+   * attempt. The document itself stays open so that it can be rewound.
+   */
+  private IppResult sendDocument(URI uri, ByteBuffer ippBuf, InputStream document) throws IOException {
+    if ((document == null) || (compression == CompressionEnum.NONE)) {
+      return send(uri, ippBuf, document);
+    }
+    InputStream compressed = compression.compress(new CloseShieldInputStream(document));
+    try {
+      return send(uri, ippBuf, compressed);
+    } finally {
+      compressed.close();
+    }
+  }
 
-    ippResult = ippResponse.getResponse(ByteBuffer.wrap(result));
-    ippResult.setHttpStatusResponse(httpStatusLine);
-    ippResult.setHttpStatusCode(httpStatusCode);
+  /**
+   * Sends the request through the {@link CircuitBreaker} and the
+   * {@link RateLimiter} of the host.
+   * Idempotent operations without document are repeated on transient
+   * failures and on a response with a wrong request-id as long as the
+   * {@link RetryPolicy} allows it.
+   */
+  private IppResult send(URI uri, ByteBuffer ippBuf, InputStream document) throws IOException {
+    CancellationToken token = getCancellationToken();
+    boolean retryable = (document == null) && RetryPolicy.isIdempotent(operationID);
+    int maxAttempts = retryable ? retryPolicy.getMaxAttempts() : 1;
+    for (int attempt = 1;; attempt++) {
+      throwIfCancelled(token);
+      getRateLimiter().acquire(uri, operationID, token);
+      throwIfCancelled(token);
+      // the breaker comes last so that a rejected request cannot lose its half-open trial
+      circuitBreaker.acquire(uri);
+      IppRequest request = new IppRequest(uri, ippBuf, document);
+      request.setTrafficClass(trafficClass);
+      authenticator.authorize(request);
+      activeRequests.add(request);
+      if (runningRequests != null) {
+        runningRequests.add(request);
+      }
+      if (token != null) {
+        token.register(request);
+      }
+      try {
+        IppResult result = transport.send(request);
+        checkRequestID(ippBuf, result);
+        if (!RetryPolicy.isTransient(result)) {
+          circuitBreaker.onSuccess(uri);
+          return result;
+        }
+        circuitBreaker.onFailure(uri);
+        if ((attempt >= maxAttempts) || request.isAborted()) {
+          return result;
+        }
+        LOG.debug("{} is busy ({}) - attempt {} of {}.", uri, result.getIppStatusResponse(), attempt, maxAttempts);
+      } catch (IOException ex) {
+        if ((token != null) && token.isCancelled() && !(ex instanceof OperationCancelledException)) {
+          OperationCancelledException cancelled = new OperationCancelledException(uri + ": " + token);
+          cancelled.initCause(ex);
+          throw cancelled;
+        }
+        if (request.isAborted()) {
+          throw ex;
+        }
+        boolean transientFailure = RetryPolicy.isTransient(ex);
+        // a timeout is not retried, but it counts for the circuit breaker
+        if (transientFailure || (ex instanceof SocketTimeoutException)) {
+          circuitBreaker.onFailure(uri);
+        }
+        // a stale response is retried, but the server itself is healthy
+        transientFailure |= ex instanceof RequestIdMismatchException;
+        if (!transientFailure || (attempt >= maxAttempts)) {
+          throw ex;
+        }
+        LOG.debug("{} failed ({}) - attempt {} of {}.", uri, ex.getMessage(), attempt, maxAttempts);
+      } finally {
+        activeRequests.remove(request);
+        if (runningRequests != null) {
+          runningRequests.remove(request);
+        }
+        if (token != null) {
+          token.unregister(request);
+        }
+      }
+      long backoff = retryPolicy.getBackoff(attempt + 1);
+      sleep((token == null) ? backoff : Math.min(backoff, token.getRemaining(TimeUnit.MILLISECONDS)));
+    }
+  }
 
-    // IppResultPrinter.print(ippResult);
+  private static synchronized ScheduledExecutorService getScheduler() {
+    if (scheduler == null) {
+      ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "cups4j-retry");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+      executor.setRemoveOnCancelPolicy(true);
+      scheduler = executor;
+    }
+    return scheduler;
+  }
 
-    client.getConnectionManager().shutdown();
-    httpCall = null;
-    return ippResult;
+  /**
+   * A response with another request-id does not belong to this request
+   * (e.g. because a connection delivered a stale response).
+   */
+  private static void checkRequestID(ByteBuffer ippBuf, IppResult result) throws ProtocolException {
+    int expected = IppTag.getRequestID(ippBuf);
+    if ((result.getRequestId() >= 0) && (result.getRequestId() != expected)) {
+      throw new RequestIdMismatchException("response has request-id " + result.getRequestId() + " instead of "
+          + expected);
+    }
+  }
+
+  private static void throwIfCancelled(CancellationToken token) throws OperationCancelledException {
+    if (token != null) {
+      token.throwIfCancelled();
+    }
+  }
+
+  private static void sleep(long millis) throws InterruptedIOException {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for next attempt");
+    }
+  }
+
+  /**
+   * Documents in memory or in a file can be sent again after a rewind. For
+   * other streams the bytes are counted: such a stream can be sent again
+   * only if nothing was read yet (e.g. because the server has rejected the
+   * request before the upload).
+   */
+  private static InputStream toReplayable(InputStream document) {
+    if (document == null) {
+      return null;
+    }
+    if ((document instanceof ByteArrayInputStream) || (document instanceof FileChannelInputStream)) {
+      document.mark(Integer.MAX_VALUE);
+      return document;
+    }
+    return new CountingInputStream(document);
+  }
+
+  private static boolean rewind(InputStream document) throws IOException {
+    if (document == null) {
+      return true;
+    } else if (document instanceof CountingInputStream) {
+      return ((CountingInputStream) document).getByteCount() == 0;
+    }
+    document.reset();
+    return true;
+  }
+
+  /**
+   * Sets the transport which is used to send the requests. Normally this is
+   * the transport of the {@link CupsClient} which created this operation.
+   * 
+   * @param transport
+   */
+  public void setTransport(IppTransport transport) {
+    this.transport = transport;
+  }
+
+  public IppTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Sets the cache of the hosts which require HTTPS. Normally this is the
+   * cache of the {@link CupsClient} which created this operation.
+   * 
+   * @param upgradeCache
+   */
+  public void setUpgradeCache(HttpsUpgradeCache upgradeCache) {
+    this.upgradeCache = upgradeCache;
+  }
+
+  public HttpsUpgradeCache getUpgradeCache() {
+    return upgradeCache;
+  }
+
+  /**
+   * Sets the authenticator which answers "401 Unauthorized". Normally this
+   * is the authenticator of the {@link CupsClient} which created this
+   * operation.
+   * 
+   * @param authenticator
+   */
+  public void setAuthenticator(HttpAuthenticator authenticator) {
+    this.authenticator = authenticator;
+  }
+
+  public HttpAuthenticator getAuthenticator() {
+    return authenticator;
+  }
+
+  /**
+   * Sets the policy for repeating idempotent operations after transient
+   * failures. Use {@link RetryPolicy#NONE} to switch retries off.
+   * 
+   * @param retryPolicy
+   */
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+  }
+
+  public RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  /**
+   * Sets the circuit breaker which lets requests to an unavailable host
+   * fail fast. Normally this is the breaker of the {@link CupsClient} which
+   * created this operation.
+   * 
+   * @param circuitBreaker
+   */
+  public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * Sets the rate limiter for the requests of this operation. If no limiter
+   * is set the {@link RateLimiter#getDefault()} is used.
+   * 
+   * @param rateLimiter
+   */
+  public void setRateLimiter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
+  public RateLimiter getRateLimiter() {
+    return (rateLimiter == null) ? RateLimiter.getDefault() : rateLimiter;
+  }
+
+  /**
+   * Sets the traffic class of the requests. With a
+   * {@link org.cups4j.transport.LaneTransport} batch requests do not compete
+   * with interactive requests for the same connections.
+   * 
+   * @param trafficClass
+   */
+  public void setTrafficClass(TrafficClass trafficClass) {
+    this.trafficClass = trafficClass;
+  }
+
+  public TrafficClass getTrafficClass() {
+    return trafficClass;
+  }
+
+  /**
+   * Sets the compression of the document. The document is compressed on
+   * the fly while it is sent. The caller must put the matching
+   * "compression" attribute into the request.
+   * 
+   * @param compression
+   *          e.g. {@link CompressionEnum#GZIP}
+   */
+  public void setCompression(CompressionEnum compression) {
+    this.compression = compression;
+  }
+
+  public CompressionEnum getCompression() {
+    return compression;
   }
 
   protected static RequestConfig getRequestConfig() {
@@ -235,12 +569,44 @@ public abstract class IppOperation {
     return RequestConfig.custom().setSocketTimeout(timeout).setConnectTimeout(timeout).build();
   }
 
+  /**
+   * Aborts all requests of this operation which are in flight, also if the
+   * operation is used by several threads at once. To cancel a call before
+   * or between its requests use a {@link CancellationToken}.
+   */
   public void cancel() {
-    if (httpCall != null) {
-      httpCall.abort();
+    for (IppRequest request : activeRequests) {
+      request.abort();
     }
   }
 
+  /**
+   * Sets the set of running requests which is shared by all operations of
+   * a {@link CupsClient}. The requests of this operation are in this set
+   * only as long as they are in flight, so that
+   * {@link CupsClient#cancelOperation()} can abort them.
+   * 
+   * @param runningRequests
+   */
+  public void setRunningRequests(Set<IppRequest> runningRequests) {
+    this.runningRequests = runningRequests;
+  }
+
+  /**
+   * Sets the token which cancels this operation. Without an explicit token
+   * the token which is activated for the current thread is used (see
+   * {@link CancellationToken#activate()}).
+   * 
+   * @param token
+   */
+  public void setCancellationToken(CancellationToken token) {
+    this.cancellationToken = token;
+  }
+
+  public CancellationToken getCancellationToken() {
+    return (cancellationToken == null) ? CancellationToken.current() : cancellationToken;
+  }
+
   /**
    * Removes the port number in the submitted URL
    * 
@@ -265,4 +631,201 @@ public abstract class IppOperation {
     return this.getClass().getSimpleName() + ":" + ippPort;
   }
 
+  /**
+   * The asynchronous variant of {@link IppOperation#sendRequest(URI, ByteBuffer, InputStream)}
+   * for a request without document. Each step is started by the response
+   * of the previous step, so no thread waits in between.
+   */
+  private final class AsyncRequest implements BiConsumer<IppResult, Throwable> {
+
+    private final URI uri;
+    private final ByteBuffer ippBuf;
+    private final CompletableFuture<IppResult> future;
+    private final CancellationToken token = getCancellationToken();
+    private final int maxAttempts = RetryPolicy.isIdempotent(operationID) ? retryPolicy.getMaxAttempts() : 1;
+    private URI target;
+    private boolean upgraded;
+    private boolean authorized;
+    private int attempt;
+    private IppRequest request;
+
+    AsyncRequest(URI uri, ByteBuffer ippBuf, CompletableFuture<IppResult> future) {
+      this.uri = uri;
+      this.ippBuf = ippBuf;
+      this.future = future;
+    }
+
+    CompletableFuture<IppResult> start() {
+      target = upgradeCache.resolve(uri);
+      send();
+      return future;
+    }
+
+    private void send() {
+      attempt++;
+      try {
+        throwIfCancelled(token);
+        long wait = getRateLimiter().reserve(target, operationID, token);
+        if (wait > 0) {
+          getScheduler().schedule(new Runnable() {
+            public void run() {
+              sendNow();
+            }
+          }, wait, TimeUnit.NANOSECONDS);
+        } else {
+          sendNow();
+        }
+      } catch (IOException ex) {
+        finish(null, ex);
+      } catch (RuntimeException ex) {
+        finish(null, ex);
+      }
+    }
+
+    private void sendNow() {
+      try {
+        throwIfCancelled(token);
+        circuitBreaker.acquire(target);
+        request = new IppRequest(target, ippBuf);
+        request.setTrafficClass(trafficClass);
+        authenticator.authorize(request);
+        activeRequests.add(request);
+        if (runningRequests != null) {
+          runningRequests.add(request);
+        }
+        if (token != null) {
+          token.register(request);
+        }
+        ((AsyncIppTransport) transport).sendAsync(request).whenComplete(this);
+      } catch (IOException ex) {
+        finish(null, ex);
+      } catch (RuntimeException ex) {
+        finish(null, ex);
+      }
+    }
+
+    @Override
+    public void accept(IppResult result, Throwable failure) {
+      activeRequests.remove(request);
+      if (runningRequests != null) {
+        runningRequests.remove(request);
+      }
+      if (token != null) {
+        token.unregister(request);
+      }
+      try {
+        if (failure instanceof CompletionException) {
+          failure = failure.getCause();
+        }
+        if (failure == null) {
+          checkRequestID(ippBuf, result);
+          onResult(result);
+        } else if (failure instanceof IOException) {
+          onFailure((IOException) failure);
+        } else {
+          finish(null, failure);
+        }
+      } catch (IOException ex) {
+        onFailure(ex);
+      } catch (RuntimeException ex) {
+        finish(null, ex);
+      }
+    }
+
+    private void onResult(IppResult result) {
+      if (!RetryPolicy.isTransient(result)) {
+        circuitBreaker.onSuccess(target);
+        onResponse(result);
+        return;
+      }
+      circuitBreaker.onFailure(target);
+      if ((attempt >= maxAttempts) || request.isAborted()) {
+        onResponse(result);
+        return;
+      }
+      LOG.debug("{} is busy ({}) - attempt {} of {}.", target, result.getIppStatusResponse(), attempt, maxAttempts);
+      sendLater();
+    }
+
+    private void onFailure(IOException ex) {
+      if ((token != null) && token.isCancelled() && !(ex instanceof OperationCancelledException)) {
+        OperationCancelledException cancelled = new OperationCancelledException(target + ": " + token);
+        cancelled.initCause(ex);
+        finish(null, cancelled);
+        return;
+      }
+      boolean transientFailure = RetryPolicy.isTransient(ex);
+      if (!request.isAborted() && (transientFailure || (ex instanceof SocketTimeoutException))) {
+        circuitBreaker.onFailure(target);
+      }
+      transientFailure |= ex instanceof RequestIdMismatchException;
+      if (request.isAborted() || !transientFailure || (attempt >= maxAttempts)) {
+        finish(null, ex);
+        return;
+      }
+      LOG.debug("{} failed ({}) - attempt {} of {}.", target, ex.getMessage(), attempt, maxAttempts);
+      sendLater();
+    }
+
+    private void sendLater() {
+      long backoff = retryPolicy.getBackoff(attempt + 1);
+      getScheduler().schedule(new Runnable() {
+        public void run() {
+          send();
+        }
+      }, (token == null) ? backoff : Math.min(backoff, token.getRemaining(TimeUnit.MILLISECONDS)),
+          TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Repeats the request with HTTPS after "426 Upgrade Required" or with
+     * credentials after "401 Unauthorized" like the synchronous variant.
+     */
+    private void onResponse(IppResult result) {
+      if (!upgraded && !authorized && (result.getHttpStatusCode() == 426)
+          && "http".equalsIgnoreCase(target.getScheme())) {
+        URI https = upgradeCache.upgrade(target);
+        LOG.info("{} requires HTTPS - will use {} for this and all following requests.", target, https);
+        target = https;
+        upgraded = true;
+        attempt = 0;
+        send();
+      } else if (!authorized && (result.getHttpStatusCode() == 401)
+          && authenticator.challenge(target, result.getHttpHeaders("WWW-Authenticate"))) {
+        LOG.debug("{} requires authentication - repeating request with credentials.", target);
+        authorized = true;
+        attempt = 0;
+        send();
+      } else {
+        finish(result, null);
+      }
+    }
+
+    private void finish(IppResult result, Throwable failure) {
+      IppBufferPool.release(ippBuf);
+      if (failure != null) {
+        future.completeExceptionally(failure);
+      } else if (result.getHttpStatusCode() >= 300) {
+        future.completeExceptionally(new IOException("HTTP error! Status code:  " + result.getHttpStatusResponse()));
+      } else {
+        future.complete(result);
+      }
+    }
+
+  }
+
+  /**
+   * The response does not belong to the request, e.g. because a pooled
+   * connection delivered the response of an earlier request.
+   */
+  private static final class RequestIdMismatchException extends ProtocolException {
+
+    private static final long serialVersionUID = 1L;
+
+    RequestIdMismatchException(String message) {
+      super(message);
+    }
+
+  }
+
 }
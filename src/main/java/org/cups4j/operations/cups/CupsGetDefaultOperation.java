@@ -27,7 +27,6 @@ import ch.ethz.vppserver.ippclient.IppResult;
 public class CupsGetDefaultOperation extends IppOperation {
   public CupsGetDefaultOperation() {
     operationID = 0x4001;
-    bufferSize = 8192;
   }
 
   public CupsGetDefaultOperation(int port) {
@@ -37,12 +36,12 @@ public class CupsGetDefaultOperation extends IppOperation {
 
   public CupsPrinter getDefaultPrinter(String hostname, int port) throws Exception {
     CupsPrinter defaultPrinter = null;
-    CupsGetDefaultOperation command = new CupsGetDefaultOperation(port);
+    this.ippPort = port;
 
     HashMap<String, String> map = new HashMap<String, String>();
     map.put("requested-attributes", "printer-name printer-uri-supported printer-location");
 
-    IppResult result = command.request(new URL("http://" + hostname + "/printers"), map);
+    IppResult result = request(new URL("http://" + hostname + "/printers"), map);
     for (AttributeGroup group : result.getAttributeGroupList()) {
       if (group.getTagName().equals("printer-attributes-tag")) {
         String printerURL = null;
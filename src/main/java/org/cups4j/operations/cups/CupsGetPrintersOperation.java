@@ -35,7 +35,6 @@ public class CupsGetPrintersOperation extends IppOperation {
   
   public CupsGetPrintersOperation() {
     operationID = 0x4002;
-    bufferSize = 8192;
   }
 
   public CupsGetPrintersOperation(int port) {
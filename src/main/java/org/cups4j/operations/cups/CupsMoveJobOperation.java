@@ -15,10 +15,12 @@ package org.cups4j.operations.cups;
  * <http://www.gnu.org/licenses/>.
  */
 import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.cups4j.CupsClient;
 import org.cups4j.PrintRequestResult;
@@ -26,6 +28,7 @@ import org.cups4j.operations.IppOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ch.ethz.vppserver.ippclient.IppBufferPool;
 import ch.ethz.vppserver.ippclient.IppResult;
 import ch.ethz.vppserver.ippclient.IppTag;
 
@@ -34,7 +37,6 @@ public class CupsMoveJobOperation extends IppOperation {
   private static final Logger LOG = LoggerFactory.getLogger(CupsMoveJobOperation.class);
   public CupsMoveJobOperation() {
     operationID = 0x400D;
-    bufferSize = 8192;
   }
 
   public CupsMoveJobOperation(int port) {
@@ -61,7 +63,7 @@ public class CupsMoveJobOperation extends IppOperation {
       return null;
     }
 
-    ByteBuffer ippBuf = ByteBuffer.allocateDirect(bufferSize);
+    ByteBuffer ippBuf = IppBufferPool.acquire();
     ippBuf = IppTag.getOperation(ippBuf, operationID);
     // ippBuf = IppTag.getUri(ippBuf, "job-uri", stripPortNumber(url));
 
@@ -98,21 +100,39 @@ public class CupsMoveJobOperation extends IppOperation {
    * @throws Exception
    */
   public boolean moveJob(String hostname, String userName, int jobID, URL targetPrinterURL) throws Exception {
+    URL url = new URL("http://" + hostname + "/jobs/" + Integer.toString(jobID));
+    IppResult result = request(url, getAttributes(url, userName, targetPrinterURL));
+    // IppResultPrinter.print(result);
+    return new PrintRequestResult(result).isSuccessfulResult();
+  }
+
+  /**
+   * The asynchronous variant of {@link #moveJob(String, String, int, URL)}.
+   * 
+   * @param hostname
+   * @param userName
+   * @param jobID
+   * @param targetPrinterURL
+   * @return future with true on success
+   * @throws MalformedURLException
+   */
+  public CompletableFuture<Boolean> moveJobAsync(String hostname, String userName, int jobID,
+      URL targetPrinterURL) throws MalformedURLException {
+    URL url = new URL("http://" + hostname + "/jobs/" + Integer.toString(jobID));
+    return toSuccessFlag(requestAsync(url, getAttributes(url, userName, targetPrinterURL)));
+  }
+
+  private Map<String, String> getAttributes(URL url, String userName, URL targetPrinterURL) {
     Map<String, String> map = new HashMap<String, String>();
 
     if (userName == null) {
       userName = CupsClient.DEFAULT_USER;
     }
     map.put("requesting-user-name", userName);
-
-    URL url = new URL("http://" + hostname + "/jobs/" + Integer.toString(jobID));
     map.put("job-uri", url.toString());
 
     map.put("target-printer-uri", stripPortNumber(targetPrinterURL));
-
-    IppResult result = request(url, map);
-    // IppResultPrinter.print(result);
-    return new PrintRequestResult(result).isSuccessfulResult();
+    return map;
   }
 
 }
@@ -15,10 +15,12 @@ package org.cups4j.operations.ipp;
  * <http://www.gnu.org/licenses/>.
  */
 import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.cups4j.CupsClient;
 import org.cups4j.PrintRequestResult;
@@ -26,6 +28,7 @@ import org.cups4j.operations.IppOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ch.ethz.vppserver.ippclient.IppBufferPool;
 import ch.ethz.vppserver.ippclient.IppResult;
 import ch.ethz.vppserver.ippclient.IppTag;
 
@@ -34,7 +37,6 @@ public class IppCancelJobOperation extends IppOperation {
   
   public IppCancelJobOperation() {
     operationID = 0x0008;
-    bufferSize = 8192;
   }
 
   public IppCancelJobOperation(int port) {
@@ -61,7 +63,7 @@ public class IppCancelJobOperation extends IppOperation {
       return null;
     }
 
-    ByteBuffer ippBuf = ByteBuffer.allocateDirect(bufferSize);
+    ByteBuffer ippBuf = IppBufferPool.acquire();
     ippBuf = IppTag.getOperation(ippBuf, operationID);
 
     if (map == null) {
@@ -99,20 +101,36 @@ public class IppCancelJobOperation extends IppOperation {
    * @throws Exception
    */
   public boolean cancelJob(String hostname, String userName, int jobID) throws Exception {
+    URL url = new URL("http://" + hostname + "/jobs/" + Integer.toString(jobID));
+    IppResult result = request(url, getAttributes(url, userName));
+
+    return new PrintRequestResult(result).isSuccessfulResult();
+  }
+
+  /**
+   * The asynchronous variant of {@link #cancelJob(String, String, int)}.
+   * 
+   * @param hostname
+   * @param userName
+   * @param jobID
+   * @return future with true on success
+   * @throws MalformedURLException
+   */
+  public CompletableFuture<Boolean> cancelJobAsync(String hostname, String userName, int jobID)
+      throws MalformedURLException {
+    URL url = new URL("http://" + hostname + "/jobs/" + Integer.toString(jobID));
+    return toSuccessFlag(requestAsync(url, getAttributes(url, userName)));
+  }
 
+  private static Map<String, String> getAttributes(URL url, String userName) {
     Map<String, String> map = new HashMap<String, String>();
 
     if (userName == null) {
       userName = CupsClient.DEFAULT_USER;
     }
     map.put("requesting-user-name", userName);
-
-    URL url = new URL("http://" + hostname + "/jobs/" + Integer.toString(jobID));
     map.put("job-uri", url.toString());
-
-    IppResult result = request(url, map);
-
-    return new PrintRequestResult(result).isSuccessfulResult();
+    return map;
   }
 
 }
@@ -17,24 +17,15 @@
  */
 package org.cups4j.operations.ipp;
 
-import ch.ethz.vppserver.ippclient.IppResponse;
+import ch.ethz.vppserver.ippclient.IppBufferPool;
+import ch.ethz.vppserver.ippclient.IppHeaderTemplates;
 import ch.ethz.vppserver.ippclient.IppResult;
 import ch.ethz.vppserver.ippclient.IppTag;
-import org.apache.commons.io.IOUtils;
-import org.apache.http.HttpEntity;
-import org.apache.http.StatusLine;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.InputStreamEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.cups4j.CupsClient;
 import org.cups4j.operations.IppOperation;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.ByteBuffer;
@@ -86,10 +77,8 @@ public class IppCreateJobOperation extends IppOperation {
      */
     @Override
     public ByteBuffer getIppHeader(URL url, Map<String, String> map) throws UnsupportedEncodingException {
-        ByteBuffer ippBuf = ByteBuffer.allocateDirect(bufferSize);
-        ippBuf = IppTag.getOperation(ippBuf, operationID);
-        ippBuf = IppTag.getUri(ippBuf, "printer-uri", url.toString());
-        ippBuf = IppTag.getNameWithoutLanguage(ippBuf, "requesting-user-name", 
+        ByteBuffer ippBuf = IppBufferPool.acquire();
+        ippBuf = IppHeaderTemplates.getHeader(ippBuf, operationID, url.toString(),
                 map.get("requesting-user-name"));
 
         if (map.get("limit") != null) {
@@ -123,7 +112,7 @@ public class IppCreateJobOperation extends IppOperation {
 
     public IppResult request(URL url, Map<String, String> map) {
         try {
-            return sendRequest(url.toURI(), getIppHeader(url, map));
+            return sendRequest(url.toURI(), getIppHeader(url, map), null);
         } catch (IOException ex) {
             throw new IllegalStateException("cannot request " + url, ex);
         } catch (URISyntaxException ex) {
@@ -131,38 +120,4 @@ public class IppCreateJobOperation extends IppOperation {
         }
     }
 
-    private static IppResult sendRequest(URI uri, ByteBuffer ippBuf) throws IOException {
-        CloseableHttpClient client = HttpClients.custom().build();
-
-        HttpPost httpPost = new HttpPost(uri);
-        httpPost.setConfig(getRequestConfig());
-
-        byte[] bytes = new byte[ippBuf.limit()];
-        ippBuf.get(bytes);
-
-        ByteArrayInputStream headerStream = new ByteArrayInputStream(bytes);
-
-        // set length to -1 to advice the entity to read until EOF
-        InputStreamEntity requestEntity = new InputStreamEntity(headerStream, -1);
-
-        requestEntity.setContentType(IPP_MIME_TYPE);
-        httpPost.setEntity(requestEntity);
-        CloseableHttpResponse httpResponse = client.execute(httpPost);
-        return toIppResult(httpResponse);
-    }
-    
-    private static IppResult toIppResult(CloseableHttpResponse httpResponse) throws IOException {
-        IppResponse ippResponse = new IppResponse();
-        IppResult ippResult = ippResponse.getResponse(read(httpResponse.getEntity()));
-        StatusLine statusLine = httpResponse.getStatusLine();
-        ippResult.setHttpStatusResponse(statusLine.getReasonPhrase());
-        ippResult.setHttpStatusCode(statusLine.getStatusCode());
-        return ippResult;
-    }
-    
-    private static ByteBuffer read(HttpEntity entity) throws IOException {
-        byte[] bytes = IOUtils.toByteArray(entity.getContent());
-        return ByteBuffer.wrap(bytes);
-    }
-
 }
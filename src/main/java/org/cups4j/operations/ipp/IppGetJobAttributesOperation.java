@@ -15,11 +15,15 @@ package org.cups4j.operations.ipp;
  * <http://www.gnu.org/licenses/>.
  */
 import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 import org.cups4j.JobStateEnum;
 import org.cups4j.PrintJobAttributes;
@@ -27,6 +31,7 @@ import org.cups4j.ipp.attributes.Attribute;
 import org.cups4j.ipp.attributes.AttributeGroup;
 import org.cups4j.operations.IppOperation;
 
+import ch.ethz.vppserver.ippclient.IppBufferPool;
 import ch.ethz.vppserver.ippclient.IppResult;
 import ch.ethz.vppserver.ippclient.IppTag;
 
@@ -34,7 +39,6 @@ public class IppGetJobAttributesOperation extends IppOperation {
 
   public IppGetJobAttributesOperation() {
     operationID = 0x0009;
-    bufferSize = 8192;
   }
 
   public IppGetJobAttributesOperation(int port) {
@@ -52,7 +56,7 @@ public class IppGetJobAttributesOperation extends IppOperation {
    * @throws UnsupportedEncodingException
    */
   public ByteBuffer getIppHeader(URL uri, Map<String, String> map) throws UnsupportedEncodingException {
-    ByteBuffer ippBuf = ByteBuffer.allocateDirect(bufferSize);
+    ByteBuffer ippBuf = IppBufferPool.acquire();
     ippBuf = IppTag.getOperation(ippBuf, operationID);
 
     if (map == null) {
@@ -101,17 +105,49 @@ public class IppGetJobAttributesOperation extends IppOperation {
 
   public PrintJobAttributes getPrintJobAttributes(String hostname, String userName, int port, int jobID)
       throws Exception {
-    PrintJobAttributes job = null;
+    IppResult result = request(new URL("http://" + hostname + "/jobs/" + jobID), getAttributes(userName));
+
+    // IppResultPrinter.print(result);
+    return toPrintJobAttributes(result);
+  }
+
+  /**
+   * The asynchronous variant of
+   * {@link #getPrintJobAttributes(String, String, int, int)}.
+   * 
+   * @param hostname
+   * @param userName
+   * @param port
+   * @param jobID
+   * @return future with the job attributes
+   * @throws MalformedURLException
+   */
+  public CompletableFuture<PrintJobAttributes> getPrintJobAttributesAsync(String hostname, String userName, int port,
+      int jobID) throws MalformedURLException {
+    URL url = new URL("http://" + hostname + "/jobs/" + jobID);
+    return requestAsync(url, getAttributes(userName)).thenApply(new Function<IppResult, PrintJobAttributes>() {
+      public PrintJobAttributes apply(IppResult result) {
+        try {
+          return toPrintJobAttributes(result);
+        } catch (MalformedURLException ex) {
+          throw new CompletionException(ex);
+        }
+      }
+    });
+  }
 
+  private static Map<String, String> getAttributes(String userName) {
     Map<String, String> map = new HashMap<String, String>();
     // map.put("requested-attributes",
     // "page-ranges print-quality sides job-uri job-id job-state job-printer-uri job-name job-originating-user-name job-k-octets time-at-creation time-at-processing time-at-completed job-media-sheets-completed");
 
     map.put("requested-attributes", "all");
     map.put("requesting-user-name", userName);
-    IppResult result = request(new URL("http://" + hostname + "/jobs/" + jobID), map);
+    return map;
+  }
 
-    // IppResultPrinter.print(result);
+  private PrintJobAttributes toPrintJobAttributes(IppResult result) throws MalformedURLException {
+    PrintJobAttributes job = null;
     for (AttributeGroup group : result.getAttributeGroupList()) {
       if ("job-attributes-tag".equals(group.getTagName()) || "unassigned".equals(group.getTagName())) {
         job = new PrintJobAttributes();
@@ -15,12 +15,16 @@ package org.cups4j.operations.ipp;
  * <http://www.gnu.org/licenses/>.
  */
 import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 import org.cups4j.CupsClient;
 import org.cups4j.CupsPrinter;
@@ -31,6 +35,8 @@ import org.cups4j.ipp.attributes.Attribute;
 import org.cups4j.ipp.attributes.AttributeGroup;
 import org.cups4j.operations.IppOperation;
 
+import ch.ethz.vppserver.ippclient.IppBufferPool;
+import ch.ethz.vppserver.ippclient.IppHeaderTemplates;
 import ch.ethz.vppserver.ippclient.IppResult;
 import ch.ethz.vppserver.ippclient.IppTag;
 
@@ -38,7 +44,6 @@ public class IppGetJobsOperation extends IppOperation {
 
   public IppGetJobsOperation() {
     operationID = 0x000a;
-    bufferSize = 8192;
   }
 
   public IppGetJobsOperation(int port) {
@@ -57,14 +62,11 @@ public class IppGetJobsOperation extends IppOperation {
    * @throws UnsupportedEncodingException
    */
   public ByteBuffer getIppHeader(URL url, Map<String, String> map) throws UnsupportedEncodingException {
-    ByteBuffer ippBuf = ByteBuffer.allocateDirect(bufferSize);
+    ByteBuffer ippBuf = IppBufferPool.acquire();
 
     map.put("requested-attributes", "job-name job-id job-state job-originating-user-name job-printer-uri copies");
 
-    ippBuf = IppTag.getOperation(ippBuf, operationID);
-    ippBuf = IppTag.getUri(ippBuf, "printer-uri", stripPortNumber(url));
-
-    ippBuf = IppTag.getNameWithoutLanguage(ippBuf, "requesting-user-name", map.get("requesting-user-name"));
+    ippBuf = IppHeaderTemplates.getHeader(ippBuf, operationID, stripPortNumber(url), map.get("requesting-user-name"));
 
     if (map.get("limit") != null) {
       int value = Integer.parseInt(map.get("limit"));
@@ -101,8 +103,37 @@ public class IppGetJobsOperation extends IppOperation {
 
   public List<PrintJobAttributes> getPrintJobs(CupsPrinter printer, WhichJobsEnum whichJobs, String userName,
       boolean myJobs) throws Exception {
-    List<PrintJobAttributes> jobs = new ArrayList<PrintJobAttributes>();
-    PrintJobAttributes jobAttributes = null;
+    IppResult result = request(printer.getPrinterURL(), getAttributes(whichJobs, userName, myJobs));
+
+    // IppResultPrinter.print(result);
+    return toPrintJobs(result);
+  }
+
+  /**
+   * The asynchronous variant of
+   * {@link #getPrintJobs(CupsPrinter, WhichJobsEnum, String, boolean)}.
+   * 
+   * @param printer
+   * @param whichJobs
+   * @param userName
+   * @param myJobs
+   * @return future with the list of job attributes
+   */
+  public CompletableFuture<List<PrintJobAttributes>> getPrintJobsAsync(CupsPrinter printer, WhichJobsEnum whichJobs,
+      String userName, boolean myJobs) {
+    return requestAsync(printer.getPrinterURL(), getAttributes(whichJobs, userName, myJobs)).thenApply(
+        new Function<IppResult, List<PrintJobAttributes>>() {
+          public List<PrintJobAttributes> apply(IppResult result) {
+            try {
+              return toPrintJobs(result);
+            } catch (MalformedURLException ex) {
+              throw new CompletionException(ex);
+            }
+          }
+        });
+  }
+
+  private static Map<String, String> getAttributes(WhichJobsEnum whichJobs, String userName, boolean myJobs) {
     Map<String, String> map = new HashMap<String, String>();
 
     if (userName == null)
@@ -115,11 +146,12 @@ public class IppGetJobsOperation extends IppOperation {
     }
     map.put("requested-attributes",
         "page-ranges print-quality sides job-uri job-id job-state job-printer-uri job-name job-originating-user-name");
+    return map;
+  }
 
-    IppResult result = request(printer.getPrinterURL(), map);
-
-    // IppResultPrinter.print(result);
-
+  private List<PrintJobAttributes> toPrintJobs(IppResult result) throws MalformedURLException {
+    List<PrintJobAttributes> jobs = new ArrayList<PrintJobAttributes>();
+    PrintJobAttributes jobAttributes = null;
     for (AttributeGroup group : result.getAttributeGroupList()) {
       if ("job-attributes-tag".equals(group.getTagName())) {
         jobAttributes = new PrintJobAttributes();
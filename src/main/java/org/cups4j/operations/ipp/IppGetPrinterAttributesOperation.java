@@ -22,13 +22,14 @@ import java.util.Map;
 
 import org.cups4j.operations.IppOperation;
 
+import ch.ethz.vppserver.ippclient.IppBufferPool;
+import ch.ethz.vppserver.ippclient.IppHeaderTemplates;
 import ch.ethz.vppserver.ippclient.IppTag;
 
 public class IppGetPrinterAttributesOperation extends IppOperation {
 
   public IppGetPrinterAttributesOperation() {
     operationID = 0x000b;
-    bufferSize = 8192;
   }
 
 
@@ -58,10 +59,9 @@ public class IppGetPrinterAttributesOperation extends IppOperation {
    * @throws UnsupportedEncodingException
    */
   public ByteBuffer getIppHeader(String url, Map<String, String> map) throws UnsupportedEncodingException {
-    ByteBuffer ippBuf = ByteBuffer.allocateDirect(bufferSize);
+    ByteBuffer ippBuf = IppBufferPool.acquire();
 
-    ippBuf = IppTag.getOperation(ippBuf, operationID);
-    ippBuf = IppTag.getUri(ippBuf, "printer-uri", url);
+    ippBuf = IppHeaderTemplates.getHeader(ippBuf, operationID, url);
 
     if (map == null) {
       ippBuf = IppTag.getKeyword(ippBuf, "requested-attributes", "all");
@@ -14,7 +14,10 @@ package org.cups4j.operations.ipp;
  * the GNU Lesser General Public License along with this program; if not, see
  * <http://www.gnu.org/licenses/>.
  */
+import ch.ethz.vppserver.ippclient.IppBufferPool;
+import ch.ethz.vppserver.ippclient.IppHeaderTemplates;
 import ch.ethz.vppserver.ippclient.IppTag;
+import org.cups4j.JobAttribute;
 import org.cups4j.operations.IppOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,16 +25,19 @@ import org.slf4j.LoggerFactory;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 public class IppPrintJobOperation extends IppOperation {
 
 
   private static final Logger LOG = LoggerFactory.getLogger(IppPrintJobOperation.class);
-  
+
+  private List<JobAttribute> jobAttributes = Collections.emptyList();
+
   public IppPrintJobOperation() {
     operationID = 0x0002;
-    bufferSize = 8192;
   }
 
   public IppPrintJobOperation(int port) {
@@ -39,6 +45,18 @@ public class IppPrintJobOperation extends IppOperation {
     this.ippPort = port;
   }
 
+  /**
+   * Sets the typed job attributes which are sent in the job attributes
+   * group together with the (old-style) "job-attributes" string of the
+   * attributes map.
+   * 
+   * @param jobAttributes
+   *          e.g. {@link org.cups4j.PrintJob#getJobAttributes()}
+   */
+  public void setJobAttributes(List<JobAttribute> jobAttributes) {
+    this.jobAttributes = jobAttributes;
+  }
+
   /**
    * 
    * @param url
@@ -58,17 +76,15 @@ public class IppPrintJobOperation extends IppOperation {
       return null;
     }
 
-    ByteBuffer ippBuf = ByteBuffer.allocateDirect(bufferSize);
-    ippBuf = IppTag.getOperation(ippBuf, operationID);
-    ippBuf = IppTag.getUri(ippBuf, "printer-uri", stripPortNumber(url));
-
+    ByteBuffer ippBuf = IppBufferPool.acquire();
     if (map == null) {
+      ippBuf = IppHeaderTemplates.getHeader(ippBuf, operationID, stripPortNumber(url));
       ippBuf = IppTag.getEnd(ippBuf);
       ippBuf.flip();
       return ippBuf;
     }
 
-    ippBuf = IppTag.getNameWithoutLanguage(ippBuf, "requesting-user-name", map.get("requesting-user-name"));
+    ippBuf = IppHeaderTemplates.getHeader(ippBuf, operationID, stripPortNumber(url), map.get("requesting-user-name"));
 
     if (map.get("job-name") != null) {
       ippBuf = IppTag.getNameWithoutLanguage(ippBuf, "job-name", map.get("job-name"));
@@ -113,16 +129,39 @@ public class IppPrintJobOperation extends IppOperation {
       ippBuf = IppTag.getInteger(ippBuf, "job-media-sheets", value);
     }
 
-    if (map.get("job-attributes") != null) {
-      String[] attributeBlocks = map.get("job-attributes").split("#");
-      ippBuf = getJobAttributes(ippBuf, attributeBlocks);
-    }
-
+    ippBuf = getJobAttributes(ippBuf, map);
     ippBuf = IppTag.getEnd(ippBuf);
     ippBuf.flip();
     return ippBuf;
   }
 
+  /**
+   * Adds the job attributes group with the typed job attributes and the
+   * attributes of the "job-attributes" string of the given map. The group
+   * is omitted if there are no job attributes.
+   * 
+   * @param ippBuf
+   * @param map
+   *          attributes
+   * @return
+   * @throws UnsupportedEncodingException
+   */
+  protected ByteBuffer getJobAttributes(ByteBuffer ippBuf, Map<String, String> map)
+      throws UnsupportedEncodingException {
+    String attributeBlocks = map.get("job-attributes");
+    if (jobAttributes.isEmpty() && (attributeBlocks == null)) {
+      return ippBuf;
+    }
+    ippBuf = IppTag.getJobAttributesTag(ippBuf);
+    for (JobAttribute attribute : jobAttributes) {
+      ippBuf = attribute.encode(ippBuf);
+    }
+    if (attributeBlocks != null) {
+      ippBuf = putJobAttributes(ippBuf, attributeBlocks.split("#"));
+    }
+    return ippBuf;
+  }
+
   /**
    * TODO: not all possibilities implemented
    * 
@@ -142,7 +181,11 @@ public class IppPrintJobOperation extends IppOperation {
     }
 
     ippBuf = IppTag.getJobAttributesTag(ippBuf);
+    return putJobAttributes(ippBuf, attributeBlocks);
+  }
 
+  private static ByteBuffer putJobAttributes(ByteBuffer ippBuf, String[] attributeBlocks)
+      throws UnsupportedEncodingException {
     int l = attributeBlocks.length;
     for (int i = 0; i < l; i++) {
       String[] attr = attributeBlocks[i].split(":");
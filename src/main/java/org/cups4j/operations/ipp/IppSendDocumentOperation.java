@@ -17,23 +17,15 @@
  */
 package org.cups4j.operations.ipp;
 
-import ch.ethz.vppserver.ippclient.IppResponse;
+import ch.ethz.vppserver.ippclient.IppBufferPool;
 import ch.ethz.vppserver.ippclient.IppResult;
 import ch.ethz.vppserver.ippclient.IppTag;
-import org.apache.commons.io.IOUtils;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.InputStreamEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.cups4j.CompressionEnum;
 import org.cups4j.CupsClient;
 import org.cups4j.PrintJob;
 import org.cups4j.ipp.attributes.AttributeGroup;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.ByteBuffer;
@@ -50,7 +42,6 @@ import java.util.Map;
  */
 public class IppSendDocumentOperation extends IppPrintJobOperation {
 
-    private static final Logger LOG = LoggerFactory.getLogger(IppSendDocumentOperation.class);
     private int jobId;
     private boolean lastDocument;
 
@@ -69,75 +60,23 @@ public class IppSendDocumentOperation extends IppPrintJobOperation {
         InputStream document = printJob.getDocument();
         String userName = printJob.getUserName();
         String jobName = printJob.getJobName();
-        int copies = printJob.getCopies();
-        String pageRanges = printJob.getPageRanges();
-        String resolution = printJob.getResolution();
-
-        String pageFormat = printJob.getPageFormat();
-        boolean color = printJob.isColor();
-        boolean portrait = printJob.isPortrait();
-
-        Map<String, String> attributes = printJob.getAttributes();
-
+        Map<String, String> attributes = new HashMap<String, String>();
+        if (printJob.getAttributes() != null) {
+            attributes.putAll(printJob.getAttributes());
+        }
         if (userName == null) {
             userName = CupsClient.DEFAULT_USER;
         }
-        if (attributes == null) {
-            attributes = new HashMap<String, String>();
-        }
 
         attributes.put("requesting-user-name", userName);
         attributes.put("job-name", jobName);
 
-        String copiesString = null;
-        StringBuffer rangesString = new StringBuffer();
-        if (copies > 0) {// other values are considered bad value by CUPS
-            copiesString = "copies:integer:" + copies;
-            addAttribute(attributes, "job-attributes", copiesString);
-        }
-        if (portrait) {
-            addAttribute(attributes, "job-attributes", "orientation-requested:enum:3");
-        } else {
-            addAttribute(attributes, "job-attributes", "orientation-requested:enum:4");
-        }
-
-        if (color) {
-            addAttribute(attributes, "job-attributes", "output-mode:keyword:color");
-        } else {
-            addAttribute(attributes, "job-attributes", "output-mode:keyword:monochrome");
-        }
-
-        if (pageFormat != null && !"".equals(pageFormat)) {
-            addAttribute(attributes, "job-attributes", "media:keyword:" + pageFormat);
-        }
-
-        if (resolution != null && !"".equals(resolution)) {
-            addAttribute(attributes, "job-attributes", "printer-resolution:resolution:" + resolution);
-        }
-
-        if (pageRanges != null && !"".equals(pageRanges.trim()) && !"1-".equals(pageRanges.trim())) {
-            String[] ranges = pageRanges.split(",");
-
-            String delimeter = "";
-
-            rangesString.append("page-ranges:setOfRangeOfInteger:");
-            for (String range : ranges) {
-                range = range.trim();
-
-                String[] values = range.split("-");
-                if (values.length == 1) {
-                    range = range + "-" + range;
-                }
-
-                rangesString.append(delimeter).append(range);
-                // following ranges need to be separated with ","
-                delimeter = ",";
-            }
-            addAttribute(attributes, "job-attributes", rangesString.toString());
-        }
-
-        if (printJob.isDuplex()) {
-            addAttribute(attributes, "job-attributes", "sides:keyword:two-sided-long-edge");
+        setJobAttributes(printJob.getJobAttributes());
+        // a document which is already compressed by the caller is sent as it is
+        if (attributes.containsKey("compression")) {
+            setCompression(CompressionEnum.NONE);
+        } else if (getCompression() != CompressionEnum.NONE) {
+            attributes.put("compression", getCompression().getKeyword());
         }
         try {
             IppResult ippResult = request(printerURL, attributes, document);
@@ -157,29 +96,10 @@ public class IppSendDocumentOperation extends IppPrintJobOperation {
         }
     }
 
-    private void addAttribute(Map<String, String> map, String name, String value) {
-        if (value != null && name != null) {
-            String attribute = map.get(name);
-            if (attribute == null) {
-                attribute = value;
-            } else {
-                attribute += "#" + value;
-            }
-            map.put(name, attribute);
-        }
-    }
-
     @Override
     public IppResult request(URL url, Map<String, String> map, InputStream document) throws IOException {
-        ByteBuffer ippHeader = getIppHeader(url, map);
         try {
-            IppResult ippResult = sendRequest(url.toURI(), ippHeader, document);
-            if ((ippResult.getHttpStatusCode() == 426) && "http".equalsIgnoreCase(url.getProtocol())) {
-                URI https = URI.create(url.toURI().toString().replace("http", "https"));
-                LOG.warn("Access with {} failed - will try now {} as printerURL.", url, https);
-                ippResult = sendRequest(https, getIppHeader(url, map), document);
-            }
-            return ippResult;
+            return sendRequest(url.toURI(), getIppHeader(url, map), document);
         } catch (URISyntaxException ex) {
             throw new IllegalArgumentException("cannot handle " + url + " as URI", ex);
         }
@@ -196,7 +116,7 @@ public class IppSendDocumentOperation extends IppPrintJobOperation {
     @Override
     public ByteBuffer getIppHeader(URL url, Map<String, String> map) throws UnsupportedEncodingException {
         assert(url != null);
-        ByteBuffer ippBuf = ByteBuffer.allocateDirect(bufferSize);
+        ByteBuffer ippBuf = IppBufferPool.acquire();
         ippBuf = IppTag.getOperation(ippBuf, operationID);
         ippBuf = IppTag.getUri(ippBuf, "printer-uri", url.toString());
         ippBuf = IppTag.getInteger(ippBuf, "job-id", jobId);
@@ -248,54 +168,10 @@ public class IppSendDocumentOperation extends IppPrintJobOperation {
             ippBuf = IppTag.getInteger(ippBuf, "job-media-sheets", value);
         }
 
-        String[] attributeBlocks = map.get("job-attributes").split("#");
-        ippBuf = getJobAttributes(ippBuf, attributeBlocks);
-
+        ippBuf = getJobAttributes(ippBuf, map);
         ippBuf = IppTag.getEnd(ippBuf);
         ippBuf.flip();
         return ippBuf;
     }
 
-    private IppResult sendRequest(URI uri, ByteBuffer ippBuf, InputStream documentStream) throws IOException {
-        HttpPost httpPost = new HttpPost(uri);
-        httpPost.setConfig(getRequestConfig());
-        
-        byte[] bytes = new byte[ippBuf.limit()];
-        ippBuf.get(bytes);
-        ByteArrayInputStream headerStream = new ByteArrayInputStream(bytes);
-
-        InputStream inputStream = new SequenceInputStream(headerStream, documentStream);
-        InputStreamEntity requestEntity = new InputStreamEntity(inputStream, -1);
-        requestEntity.setContentType(IPP_MIME_TYPE);
-        httpPost.setEntity(requestEntity);
-
-        CloseableHttpClient client = HttpClients.custom().build();
-        try {
-            CloseableHttpResponse httpResponse = client.execute(httpPost);
-            LOG.info("Received from {}: {}", uri, httpResponse);
-            return getIppResult(httpResponse);
-        } finally {
-            client.close();
-        }
-    }
-
-    private static IppResult getIppResult(CloseableHttpResponse httpResponse) throws IOException {
-        InputStream istream = httpResponse.getEntity().getContent();
-        try {
-            byte[] result = IOUtils.toByteArray(istream);
-            IppResponse ippResponse = new IppResponse();
-            IppResult ippResult = ippResponse.getResponse(ByteBuffer.wrap(result));
-            ippResult.setHttpStatusCode(httpResponse.getStatusLine().getStatusCode());
-            if (ippResult.getHttpStatusCode() == 426) {
-                ippResult.setHttpStatusResponse(new String(result));
-                LOG.warn("Received {} after send-document.", ippResult);
-            } else {
-                ippResult.setHttpStatusResponse(httpResponse.getStatusLine().toString());
-            }
-            return ippResult;
-        } finally {
-            istream.close();
-        }
-    }
-
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 17.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import ch.ethz.vppserver.ippclient.IppResult;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An AsyncIppTransport can send a request without a document and return
+ * at once. The response is read by the transport itself, so no thread of
+ * the caller waits for the CUPS server. The asynchronous operations of the
+ * {@link org.cups4j.CupsClient} use this transport if it is available.
+ *
+ * @author oboehm
+ * @since 0.7.7 (17.10.2026)
+ */
+public interface AsyncIppTransport extends IppTransport {
+
+    /**
+     * Sends the given request without waiting for the response. The future
+     * is completed by a thread of the transport, so dependent actions must
+     * not block.
+     *
+     * @param request the IPP request with URI and header but without document
+     * @return future with the result or with the IOException of the exchange
+     */
+    CompletableFuture<IppResult> sendAsync(IppRequest request);
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A CancellationToken lets a caller cancel all operations which belong to
+ * one call, e.g. because the upstream request which needs them has timed
+ * out. Cancelling the token aborts the requests in flight (including
+ * running document uploads) and lets following requests fail immediately
+ * with an {@link OperationCancelledException}. A token can have a
+ * deadline after which it cancels itself.
+ * <p>
+ * The token is either set explicitly on an operation or activated for the
+ * current thread so that it covers all operations of a
+ * {@link org.cups4j.CupsClient} call:
+ * </p>
+ * <pre>
+ * CancellationToken token = CancellationToken.withTimeout(2, TimeUnit.SECONDS);
+ * try (CancellationToken.Scope scope = token.activate()) {
+ *     client.getPrinters();
+ * }
+ * </pre>
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<CancellationToken>();
+    private static ScheduledExecutorService timer;
+
+    private final Set<IppRequest> requests = Collections.newSetFromMap(new ConcurrentHashMap<IppRequest, Boolean>());
+    private final long deadline;
+    private volatile String reason;
+    private volatile ScheduledFuture<?> deadlineTask;
+
+    /**
+     * Creates a token without deadline.
+     */
+    public CancellationToken() {
+        this.deadline = Long.MAX_VALUE;
+    }
+
+    private CancellationToken(long timeoutNanos) {
+        this.deadline = System.nanoTime() + timeoutNanos;
+        this.deadlineTask = getTimer().schedule(new Runnable() {
+            public void run() {
+                cancel("deadline exceeded");
+            }
+        }, timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a token which is cancelled automatically after the given time.
+     *
+     * @param timeout time until the deadline
+     * @param unit    unit of time
+     * @return the new token
+     */
+    public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+        return new CancellationToken(unit.toNanos(timeout));
+    }
+
+    /**
+     * Gets the token which is activated for the current thread.
+     *
+     * @return the active token or null
+     */
+    public static CancellationToken current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Activates this token for the current thread until the returned scope
+     * is closed. Operations without explicit token use the active token.
+     *
+     * @return the scope which restores the previous token on close
+     */
+    public Scope activate() {
+        final CancellationToken previous = CURRENT.get();
+        CURRENT.set(this);
+        return new Scope() {
+            public void close() {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Cancels all operations of this token.
+     */
+    public void cancel() {
+        cancel("cancelled");
+    }
+
+    private void cancel(String why) {
+        synchronized (this) {
+            if (reason != null) {
+                return;
+            }
+            reason = why;
+        }
+        ScheduledFuture<?> task = deadlineTask;
+        if (task != null) {
+            task.cancel(false);
+        }
+        for (IppRequest request : requests) {
+            request.abort();
+        }
+    }
+
+    /**
+     * Returns true if the token was cancelled or its deadline is exceeded.
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        if ((reason == null) && (deadline != Long.MAX_VALUE) && (System.nanoTime() - deadline >= 0)) {
+            cancel("deadline exceeded");
+        }
+        return reason != null;
+    }
+
+    /**
+     * Gets the time until the deadline.
+     *
+     * @param unit unit of time
+     * @return remaining time (0 if exceeded) or Long.MAX_VALUE if there is
+     *         no deadline
+     */
+    public long getRemaining(TimeUnit unit) {
+        if (deadline == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return unit.convert(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Throws an {@link OperationCancelledException} if the token is
+     * cancelled.
+     *
+     * @throws OperationCancelledException if cancelled
+     */
+    public void throwIfCancelled() throws OperationCancelledException {
+        if (isCancelled()) {
+            throw new OperationCancelledException("operation " + reason);
+        }
+    }
+
+    /**
+     * Registers a request which is aborted if the token is cancelled. If the
+     * token is already cancelled the request is aborted immediately.
+     *
+     * @param request the request in flight
+     */
+    public void register(IppRequest request) {
+        requests.add(request);
+        if (isCancelled()) {
+            request.abort();
+        }
+    }
+
+    /**
+     * Removes a finished request.
+     *
+     * @param request the finished request
+     */
+    public void unregister(IppRequest request) {
+        requests.remove(request);
+    }
+
+    private static synchronized ScheduledExecutorService getTimer() {
+        if (timer == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "cups4j-deadline");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            timer = executor;
+        }
+        return timer;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[" + ((reason == null) ? "active" : reason) + ", "
+                + requests.size() + " requests]";
+    }
+
+    /**
+     * The scope of an activated token. Closing the scope deactivates the
+     * token for the current thread.
+     */
+    public interface Scope extends Closeable {
+        @Override
+        void close();
+    }
+
+}
@@ -0,0 +1,1324 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import ch.ethz.vppserver.ippclient.IppResponse;
+import ch.ethz.vppserver.ippclient.IppResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class ChannelTransport is a lightweight HTTP/1.1 client which talks
+ * directly to the CUPS server over a {@link SocketChannel}. The HTTP header,
+ * the encoded IPP header and the document are written with gathering writes
+ * and the response is parsed while it is read from the channel. A
+ * {@link FileChannelInputStream} document is sent with an exact
+ * "Content-Length" and transferred by the operating system (sendfile),
+ * other documents are sent chunked. Connections are kept alive and reused
+ * for the following requests.
+ * <p>
+ * Requests without a document can also be sent with
+ * {@link #sendAsync(IppRequest)}. These requests are written and their
+ * responses are read by one event loop thread with its own selector, so
+ * many requests can wait for the CUPS server without blocking a thread.
+ * </p>
+ * <p>
+ * Only plain HTTP is supported. For IPPS use the {@link PooledHttpTransport}.
+ * </p>
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public class ChannelTransport implements AsyncIppTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChannelTransport.class);
+    private static final int BUFFER_SIZE = 8192;
+    private static final int CHUNK_SIZE = 65536;
+    private static final long TRANSFER_SIZE = 1024 * 1024;
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] CRLF_CRLF = {'\r', '\n', '\r', '\n'};
+
+    private final int timeout;
+    private final int maxIdlePerHost;
+    private final ConcurrentMap<String, Queue<Connection>> idleConnections =
+            new ConcurrentHashMap<String, Queue<Connection>>();
+    private volatile int expectContinueTimeout = 1000;
+    private volatile boolean closed;
+    private EventLoop eventLoop;
+
+    /**
+     * Creates a transport with the timeout of the system property
+     * "cups4j.timeout" (default is 10 seconds).
+     */
+    public ChannelTransport() {
+        this(Integer.parseInt(System.getProperty("cups4j.timeout", "10000")), 10);
+    }
+
+    /**
+     * Creates a transport with the given timeout.
+     *
+     * @param timeout        connect and read timeout in milliseconds
+     * @param maxIdlePerHost max number of idle connections per host
+     */
+    public ChannelTransport(int timeout, int maxIdlePerHost) {
+        this.timeout = timeout;
+        this.maxIdlePerHost = maxIdlePerHost;
+    }
+
+    /**
+     * Requests with a document are sent with "Expect: 100-continue". The
+     * document is sent after the server has accepted the HTTP header or if
+     * the server has not answered within the given timeout. If the server
+     * rejects the request the document is not sent at all. Use 0 to send
+     * the document without waiting (default is 1 second).
+     *
+     * @param millis timeout in milliseconds or 0
+     */
+    public void setExpectContinueTimeout(int millis) {
+        this.expectContinueTimeout = millis;
+    }
+
+    public int getExpectContinueTimeout() {
+        return expectContinueTimeout;
+    }
+
+    @Override
+    public IppResult send(IppRequest request) throws IOException {
+        if (closed) {
+            throw new IOException(this + " is already closed");
+        }
+        URI uri = request.getURI();
+        String key = HostKey.of(uri);
+        // a document cannot be sent twice, so an upload gets a new connection
+        if (request.getDocument() == null) {
+            Connection conn = pollIdleConnection(key);
+            if (conn != null) {
+                try {
+                    return send(request, conn, key);
+                } catch (StaleConnectionException ex) {
+                    if (ex.requestSent && !isIdempotent(request)) {
+                        throw ex;
+                    }
+                    LOG.debug("Reused connection to {} is stale ({}) - will open a new one.", key, ex.getMessage());
+                }
+            }
+        }
+        return send(request, connect(uri), key);
+    }
+
+    /**
+     * A request which was written completely may have been executed by the
+     * server even if the connection was closed before the response. Like
+     * the retry handler of the Apache HttpClient only idempotent requests
+     * are sent again in this case.
+     */
+    private static boolean isIdempotent(IppRequest request) {
+        ByteBuffer ippHeader = request.getIppHeader();
+        return (ippHeader.remaining() >= 4) && RetryPolicy.isIdempotent(ippHeader.getShort(ippHeader.position() + 2));
+    }
+
+    /**
+     * Sends a request without a document through the event loop of this
+     * transport. The connection is established, the request is written and
+     * the response is read whenever the channel is ready, so the caller
+     * does not wait and no thread is blocked while the CUPS server works on
+     * the request. Only the address of the server is resolved by the caller.
+     * Like {@link #send(IppRequest)} a stale idle connection is replaced
+     * by a new one.
+     *
+     * @param request the IPP request without document
+     * @return future with the result
+     */
+    @Override
+    public CompletableFuture<IppResult> sendAsync(IppRequest request) {
+        CompletableFuture<IppResult> future = new CompletableFuture<IppResult>();
+        if (request.getDocument() != null) {
+            future.completeExceptionally(
+                    new IllegalArgumentException("document of " + request + " can only be sent with send()"));
+            return future;
+        }
+        try {
+            if (closed) {
+                throw new IOException(this + " is already closed");
+            }
+            AsyncExchange exchange = new AsyncExchange(request, future);
+            exchange.start(pollIdleConnection(exchange.key));
+        } catch (IOException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    private synchronized EventLoop getEventLoop() throws IOException {
+        if (eventLoop == null) {
+            eventLoop = new EventLoop("cups4j-" + this.getClass().getSimpleName());
+        }
+        return eventLoop;
+    }
+
+    private IppResult send(IppRequest request, final Connection conn, String key) throws IOException {
+        request.onAbort(new Runnable() {
+            public void run() {
+                conn.close();
+            }
+        });
+        try {
+            Response response = exchange(conn, request);
+            if (response.keepAlive && !closed) {
+                releaseConnection(key, conn);
+            } else {
+                conn.close();
+            }
+            return response.toIppResult();
+        } catch (IOException ex) {
+            conn.close();
+            throw ex;
+        } catch (RuntimeException ex) {
+            conn.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the address of the CUPS server for the given URI. Subclasses may
+     * override it to connect to another address (e.g. a Unix domain socket).
+     *
+     * @param uri the request URI
+     * @return the socket address
+     * @throws IOException if the address cannot be resolved
+     */
+    protected SocketAddress getSocketAddress(URI uri) throws IOException {
+        return new InetSocketAddress(uri.getHost(), HostKey.getPort(uri));
+    }
+
+    /**
+     * Opens a new channel to the address of the given URI.
+     *
+     * @param uri the request URI
+     * @return the open (but not yet connected) channel
+     * @throws IOException if the channel cannot be opened
+     */
+    protected SocketChannel openChannel(URI uri) throws IOException {
+        return SocketChannel.open();
+    }
+
+    private Connection connect(URI uri) throws IOException {
+        if ("https".equalsIgnoreCase(uri.getScheme())) {
+            throw new IOException("https is not supported by " + this + ": " + uri);
+        }
+        SocketChannel channel = openChannel(uri);
+        channel.configureBlocking(false);
+        Connection conn = new Connection(channel, timeout);
+        try {
+            if (!channel.connect(getSocketAddress(uri))) {
+                conn.await(SelectionKey.OP_CONNECT);
+                channel.finishConnect();
+            }
+        } catch (IOException ex) {
+            conn.close();
+            throw new IOException("cannot connect to " + uri, ex);
+        }
+        return conn;
+    }
+
+    private Connection pollIdleConnection(String key) {
+        Queue<Connection> queue = idleConnections.get(key);
+        if (queue == null) {
+            return null;
+        }
+        for (Connection conn = queue.poll(); conn != null; conn = queue.poll()) {
+            if (conn.isReusable()) {
+                return conn;
+            }
+            conn.close();
+        }
+        return null;
+    }
+
+    private void releaseConnection(String key, Connection conn) {
+        Queue<Connection> queue = idleConnections.get(key);
+        if (queue == null) {
+            idleConnections.putIfAbsent(key, new ConcurrentLinkedQueue<Connection>());
+            queue = idleConnections.get(key);
+        }
+        if (queue.size() < maxIdlePerHost) {
+            queue.add(conn);
+        } else {
+            conn.close();
+        }
+    }
+
+    private static StringBuilder createHead(IppRequest request) {
+        URI uri = request.getURI();
+        StringBuilder head = new StringBuilder(256);
+        head.append("POST ").append(getPath(uri)).append(" HTTP/1.1\r\n");
+        head.append("Host: ").append(uri.getHost()).append(':').append(HostKey.getPort(uri)).append("\r\n");
+        head.append("Content-Type: application/ipp\r\n");
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        return head;
+    }
+
+    private Response exchange(Connection conn, IppRequest request) throws IOException {
+        URI uri = request.getURI();
+        ByteBuffer ippHeader = request.getIppHeader().duplicate();
+        StringBuilder head = createHead(request);
+        long contentLength = request.getContentLength();
+        ByteBuffer[] body;
+        if (contentLength < 0) {
+            head.append("Transfer-Encoding: chunked\r\n");
+            body = new ByteBuffer[]{chunkSize(ippHeader.remaining()), ippHeader, ByteBuffer.wrap(CRLF)};
+        } else {
+            head.append("Content-Length: ").append(contentLength).append("\r\n");
+            body = new ByteBuffer[]{ippHeader};
+        }
+        InputStream document = request.getDocument();
+        if (document == null) {
+            head.append("\r\n");
+            try {
+                conn.write(toAscii(head), body[0]);
+            } catch (IOException ex) {
+                throw new StaleConnectionException("cannot send request to " + uri, ex, false);
+            }
+            return readResponse(conn);
+        }
+        Response early = null;
+        if (expectContinueTimeout > 0) {
+            head.append("Expect: 100-continue\r\n\r\n");
+            conn.write(toAscii(head));
+            if (conn.awaitReadable(expectContinueTimeout)) {
+                early = pollEarlyResponse(conn);
+            }
+        } else {
+            head.append("\r\n");
+            early = upload(conn, toAscii(head));
+        }
+        if (early == null) {
+            early = upload(conn, body);
+        }
+        if (early == null) {
+            early = uploadDocument(conn, document);
+        }
+        if (early != null) {
+            LOG.debug("{} was rejected before the document was sent: {}", request, early.statusLine);
+            readBody(conn, early);
+            early.keepAlive = false;
+            return early;
+        }
+        return readResponse(conn);
+    }
+
+    /**
+     * Sends the document. If the server answers during the upload the upload
+     * is stopped and the (error) response is returned.
+     *
+     * @return null if the document was sent completely, otherwise the early
+     *         response of the server
+     */
+    private static Response uploadDocument(Connection conn, InputStream document) throws IOException {
+        if (document instanceof FileChannelInputStream) {
+            FileChannelInputStream fileDocument = (FileChannelInputStream) document;
+            while (fileDocument.getRemaining() > 0) {
+                if (fileDocument.writeTo(conn.channel, TRANSFER_SIZE) == 0) {
+                    conn.await(SelectionKey.OP_WRITE | SelectionKey.OP_READ);
+                }
+                Response early = pollEarlyResponse(conn);
+                if (early != null) {
+                    return early;
+                }
+            }
+            return null;
+        }
+        ReadableByteChannel source = Channels.newChannel(document);
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+        while (source.read(buffer) >= 0) {
+            if (buffer.hasRemaining()) {
+                continue;
+            }
+            buffer.flip();
+            Response early = upload(conn, chunkSize(buffer.remaining()), buffer, ByteBuffer.wrap(CRLF));
+            if (early != null) {
+                return early;
+            }
+            buffer.clear();
+        }
+        if (buffer.position() > 0) {
+            buffer.flip();
+            Response early = upload(conn, chunkSize(buffer.remaining()), buffer, ByteBuffer.wrap(CRLF));
+            if (early != null) {
+                return early;
+            }
+        }
+        return upload(conn, toAscii("0\r\n\r\n"));
+    }
+
+    /**
+     * Writes the given buffers but stops if the server sends a final
+     * response in the meantime. An interim "100 Continue" is skipped.
+     *
+     * @return null if all buffers were written, otherwise the early response
+     */
+    private static Response upload(Connection conn, ByteBuffer... buffers) throws IOException {
+        do {
+            if (conn.poll()) {
+                Response early = pollEarlyResponse(conn);
+                if (early != null) {
+                    return early;
+                }
+            }
+        } while (!conn.writeUnlessReadable(buffers));
+        return null;
+    }
+
+    private static Response pollEarlyResponse(Connection conn) throws IOException {
+        while (conn.poll()) {
+            Response response = readHeader(conn);
+            if (response.statusCode != 100) {
+                return response;
+            }
+        }
+        return null;
+    }
+
+    private static String getPath(URI uri) {
+        String path = uri.getRawPath();
+        if (path == null || path.isEmpty()) {
+            path = "/";
+        }
+        return (uri.getRawQuery() == null) ? path : path + "?" + uri.getRawQuery();
+    }
+
+    private static ByteBuffer chunkSize(int size) {
+        return toAscii(Integer.toHexString(size) + "\r\n");
+    }
+
+    private static ByteBuffer toAscii(CharSequence s) {
+        return ByteBuffer.wrap(s.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static Response readResponse(Connection conn) throws IOException {
+        Response response = readHeader(conn);
+        while (response.statusCode == 100) {
+            response = readHeader(conn);
+        }
+        readBody(conn, response);
+        return response;
+    }
+
+    private static void readBody(Connection conn, Response response) throws IOException {
+        String transferEncoding = response.getHeader("transfer-encoding");
+        String contentLength = response.getHeader("content-length");
+        if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ENGLISH).contains("chunked")) {
+            response.body = readChunkedBody(conn);
+        } else if (contentLength != null) {
+            response.body = conn.readFully(Integer.parseInt(contentLength.trim()));
+        } else {
+            response.body = conn.readToEnd();
+            response.keepAlive = false;
+        }
+    }
+
+    private static Response readHeader(Connection conn) throws IOException {
+        return parseHeader(conn.readHead());
+    }
+
+    private static Response parseHeader(String head) throws IOException {
+        String[] lines = head.split("\r\n");
+        Response response = new Response(lines[0]);
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) {
+                response.addHeader(lines[i].substring(0, colon).trim(), lines[i].substring(colon + 1).trim());
+            }
+        }
+        String connection = response.getHeader("connection");
+        response.keepAlive = lines[0].startsWith("HTTP/1.1") && !"close".equalsIgnoreCase(connection);
+        return response;
+    }
+
+    private static ByteBuffer readChunkedBody(Connection conn) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(BUFFER_SIZE);
+        while (true) {
+            String line = conn.readLine();
+            int semicolon = line.indexOf(';');
+            int size = Integer.parseInt((semicolon < 0) ? line.trim() : line.substring(0, semicolon).trim(), 16);
+            if (size == 0) {
+                while (!conn.readLine().isEmpty()) {
+                    LOG.trace("Trailer is ignored.");
+                }
+                break;
+            }
+            body = ensureCapacity(body, size);
+            conn.readInto(body, size);
+            conn.readLine();
+        }
+        body.flip();
+        return body;
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int additional) {
+        if (buffer.remaining() >= additional) {
+            return buffer;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + additional);
+        ByteBuffer bigger = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        bigger.put(buffer);
+        return bigger;
+    }
+
+    /**
+     * Closes all idle connections and stops the event loop. Asynchronous
+     * requests which are still running fail with an IOException.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Queue<Connection> queue : idleConnections.values()) {
+            for (Connection conn = queue.poll(); conn != null; conn = queue.poll()) {
+                conn.close();
+            }
+        }
+        synchronized (this) {
+            if (eventLoop != null) {
+                eventLoop.shutdown();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + idleConnections.keySet();
+    }
+
+    /**
+     * The HTTP response with status, headers and body.
+     */
+    private static final class Response {
+
+        private final String statusLine;
+        private final int statusCode;
+        private final Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+        private boolean keepAlive;
+        private ByteBuffer body;
+
+        Response(String statusLine) throws IOException {
+            this.statusLine = statusLine;
+            String[] parts = statusLine.split(" ", 3);
+            if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+                throw new IOException("invalid HTTP status line: " + statusLine);
+            }
+            this.statusCode = Integer.parseInt(parts[1]);
+        }
+
+        void addHeader(String name, String value) {
+            String key = name.toLowerCase(Locale.ENGLISH);
+            List<String> values = headers.get(key);
+            if (values == null) {
+                values = new ArrayList<String>(1);
+                headers.put(key, values);
+            }
+            values.add(value);
+        }
+
+        String getHeader(String name) {
+            List<String> values = headers.get(name);
+            return (values == null) ? null : values.get(0);
+        }
+
+        IppResult toIppResult() throws IOException {
+            IppResult ippResult = new IppResponse().getResponse(body);
+            ippResult.setHttpStatusResponse(statusLine);
+            ippResult.setHttpStatusCode(statusCode);
+            for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+                for (String value : entry.getValue()) {
+                    ippResult.addHttpHeader(entry.getKey(), value);
+                }
+            }
+            return ippResult;
+        }
+
+    }
+
+    /**
+     * The request could not be written or the server closed the (idle)
+     * connection before it sent a single byte of the response. Only in
+     * these cases a request is sent again on a new connection. If the
+     * request was written completely it is sent again only if it is
+     * idempotent.
+     */
+    private static final class StaleConnectionException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean requestSent;
+
+        StaleConnectionException(String message, IOException cause, boolean requestSent) {
+            super(message, cause);
+            this.requestSent = requestSent;
+        }
+
+    }
+
+    /**
+     * A connection is a non-blocking channel with its selector and read
+     * buffer. The read buffer is always in read mode (flipped). The
+     * selector is opened only if the connection is used by
+     * {@link #send(IppRequest)}, the event loop has its own selector.
+     */
+    private static final class Connection {
+
+        private final SocketChannel channel;
+        private final int timeout;
+        private Selector selector;
+        private ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Connection(SocketChannel channel, int timeout) {
+            this.channel = channel;
+            this.timeout = timeout;
+            this.readBuffer.flip();
+        }
+
+        /**
+         * An idle connection can be used for the next request if the server
+         * has neither closed it nor sent anything since the last response.
+         *
+         * @return true if the connection can be reused
+         */
+        boolean isReusable() {
+            if (!channel.isOpen() || !channel.isConnected() || readBuffer.hasRemaining()) {
+                return false;
+            }
+            try {
+                return fill(false) == 0;
+            } catch (IOException ex) {
+                LOG.trace("Idle connection {} is broken:", channel, ex);
+                return false;
+            }
+        }
+
+        int await(int ops) throws IOException {
+            int ready = select(ops, timeout);
+            if (ready == 0) {
+                if (!channel.isOpen()) {
+                    throw new ClosedChannelException();
+                }
+                throw new SocketTimeoutException("no response from " + channel + " after " + timeout + " ms");
+            }
+            return ready;
+        }
+
+        /**
+         * Waits until the server sends something.
+         *
+         * @param millis max time to wait
+         * @return true if there is something to read
+         */
+        boolean awaitReadable(int millis) throws IOException {
+            return readBuffer.hasRemaining() || (select(SelectionKey.OP_READ, millis) != 0);
+        }
+
+        private int select(int ops, long millis) throws IOException {
+            if (selector == null) {
+                selector = Selector.open();
+            }
+            SelectionKey key = channel.register(selector, ops);
+            try {
+                if (selector.select(millis) == 0) {
+                    return 0;
+                }
+                selector.selectedKeys().clear();
+                return key.readyOps();
+            } finally {
+                key.interestOps(0);
+            }
+        }
+
+        /**
+         * Reads what the server has sent so far without waiting.
+         *
+         * @return true if there is something to read (or end of stream)
+         */
+        boolean poll() throws IOException {
+            return readBuffer.hasRemaining() || (fill(false) != 0);
+        }
+
+        void write(ByteBuffer... buffers) throws IOException {
+            while (hasRemaining(buffers)) {
+                if (channel.write(buffers) == 0) {
+                    await(SelectionKey.OP_WRITE);
+                }
+            }
+        }
+
+        /**
+         * Writes the given buffers as long as the server sends nothing.
+         *
+         * @return true if all buffers were written, false if there is
+         *         something to read
+         */
+        boolean writeUnlessReadable(ByteBuffer... buffers) throws IOException {
+            while (hasRemaining(buffers)) {
+                if (channel.write(buffers) == 0
+                        && (await(SelectionKey.OP_WRITE | SelectionKey.OP_READ) & SelectionKey.OP_READ) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean hasRemaining(ByteBuffer[] buffers) {
+            for (ByteBuffer buffer : buffers) {
+                if (buffer.hasRemaining()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Reads more bytes into the read buffer.
+         *
+         * @param wait wait for the server if nothing can be read yet
+         * @return number of bytes read or -1 at the end of the stream
+         */
+        private int fill(boolean wait) throws IOException {
+            if (readBuffer.position() > 0 || readBuffer.limit() == readBuffer.capacity()) {
+                readBuffer.compact();
+            } else {
+                readBuffer.position(readBuffer.limit());
+                readBuffer.limit(readBuffer.capacity());
+            }
+            if (!readBuffer.hasRemaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(readBuffer.capacity() * 2);
+                readBuffer.flip();
+                bigger.put(readBuffer);
+                readBuffer = bigger;
+            }
+            try {
+                int n = channel.read(readBuffer);
+                while (n == 0 && wait) {
+                    await(SelectionKey.OP_READ);
+                    n = channel.read(readBuffer);
+                }
+                return n;
+            } finally {
+                readBuffer.flip();
+            }
+        }
+
+        /**
+         * Reads the HTTP header up to the empty line. The search for the
+         * empty line continues where the last search stopped so that each
+         * byte is looked at only once.
+         */
+        String readHead() throws IOException {
+            int scanned = 0;
+            while (true) {
+                int start = readBuffer.position();
+                for (int i = start + scanned; i + 3 < readBuffer.limit(); i++) {
+                    if (readBuffer.get(i) == '\r' && readBuffer.get(i + 1) == '\n'
+                            && readBuffer.get(i + 2) == '\r' && readBuffer.get(i + 3) == '\n') {
+                        String head = new String(readBuffer.array(), readBuffer.arrayOffset() + start, i - start,
+                                StandardCharsets.ISO_8859_1);
+                        readBuffer.position(i + 4);
+                        return head;
+                    }
+                }
+                scanned = Math.max(0, readBuffer.remaining() - 3);
+                if (fill(true) < 0) {
+                    if (!readBuffer.hasRemaining()) {
+                        throw new StaleConnectionException("connection closed by server before HTTP status line",
+                                null, true);
+                    }
+                    throw new IOException("connection closed by server before end of HTTP header");
+                }
+            }
+        }
+
+        String readLine() throws IOException {
+            int scanned = 0;
+            while (true) {
+                int start = readBuffer.position();
+                for (int i = start + scanned; i + 1 < readBuffer.limit(); i++) {
+                    if (readBuffer.get(i) == '\r' && readBuffer.get(i + 1) == '\n') {
+                        String line = new String(readBuffer.array(), readBuffer.arrayOffset() + start, i - start,
+                                StandardCharsets.ISO_8859_1);
+                        readBuffer.position(i + 2);
+                        return line;
+                    }
+                }
+                scanned = Math.max(0, readBuffer.remaining() - 1);
+                if (fill(true) < 0) {
+                    throw new IOException("connection closed by server in the middle of a chunk");
+                }
+            }
+        }
+
+        /**
+         * Reads exactly n bytes into the given buffer. Bytes which are already
+         * in the read buffer are copied, the rest is read directly from the
+         * channel into the target buffer.
+         */
+        void readInto(ByteBuffer target, int n) throws IOException {
+            int fromBuffer = Math.min(n, readBuffer.remaining());
+            ByteBuffer slice = readBuffer.duplicate();
+            slice.limit(slice.position() + fromBuffer);
+            target.put(slice);
+            readBuffer.position(readBuffer.position() + fromBuffer);
+            int missing = n - fromBuffer;
+            int limit = target.limit();
+            target.limit(target.position() + missing);
+            try {
+                while (target.hasRemaining()) {
+                    int r = channel.read(target);
+                    if (r < 0) {
+                        throw new IOException("connection closed by server, " + target.remaining()
+                                + " bytes are missing");
+                    } else if (r == 0) {
+                        await(SelectionKey.OP_READ);
+                    }
+                }
+            } finally {
+                target.limit(limit);
+            }
+        }
+
+        ByteBuffer readFully(int length) throws IOException {
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readInto(body, length);
+            body.flip();
+            return body;
+        }
+
+        ByteBuffer readToEnd() throws IOException {
+            while (fill(true) >= 0) {
+                LOG.trace("{} bytes of response are read.", readBuffer.remaining());
+            }
+            ByteBuffer body = readBuffer.slice();
+            readBuffer.position(readBuffer.limit());
+            return body;
+        }
+
+        void close() {
+            try {
+                if (selector != null) {
+                    selector.close();
+                }
+                channel.close();
+            } catch (IOException ex) {
+                LOG.debug("Cannot close {}:", channel, ex);
+            }
+        }
+
+    }
+
+    /**
+     * A request without a document which is sent by the {@link EventLoop}.
+     * Except for the constructor and {@link #start(Connection)} all methods
+     * are called by the thread of the event loop.
+     */
+    private final class AsyncExchange {
+
+        private final IppRequest request;
+        private final CompletableFuture<IppResult> future;
+        private final String key;
+        private final SocketAddress address;
+        private final EventLoop loop;
+        private Connection conn;
+        private boolean reused;
+        private boolean connecting;
+        private boolean done;
+        private ByteBuffer[] out;
+        private ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        private SelectionKey selectionKey;
+        private long deadline;
+        private int start;
+        private int scanned;
+        private int end;
+        private Response response;
+        private int chunkStart;
+        private ByteBuffer chunkedBody;
+
+        AsyncExchange(IppRequest request, CompletableFuture<IppResult> future) throws IOException {
+            URI uri = request.getURI();
+            if ("https".equalsIgnoreCase(uri.getScheme())) {
+                throw new IOException("https is not supported by " + ChannelTransport.this + ": " + uri);
+            }
+            this.request = request;
+            this.future = future;
+            this.key = HostKey.of(uri);
+            this.address = getSocketAddress(uri);
+            this.loop = getEventLoop();
+        }
+
+        /**
+         * Hands the exchange over to the event loop.
+         *
+         * @param idle an idle connection or null for a new connection
+         */
+        void start(final Connection idle) {
+            loop.execute(new Runnable() {
+                public void run() {
+                    open(idle);
+                }
+            });
+            request.onAbort(new Runnable() {
+                public void run() {
+                    loop.execute(new Runnable() {
+                        public void run() {
+                            fail(new IOException("request to " + request.getURI() + " was aborted"));
+                        }
+                    });
+                }
+            });
+        }
+
+        private void open(Connection idle) {
+            if (done) {
+                // aborted before it was started
+                if (idle != null) {
+                    releaseConnection(key, idle);
+                }
+                return;
+            }
+            try {
+                if (idle == null) {
+                    connect();
+                } else {
+                    conn = idle;
+                    reused = true;
+                    write();
+                }
+            } catch (StaleConnectionException ex) {
+                retryOrFail(ex);
+            } catch (IOException ex) {
+                fail(ex);
+            } catch (RuntimeException ex) {
+                fail(ex);
+            }
+        }
+
+        void onReady() {
+            try {
+                if (connecting) {
+                    finishConnect();
+                } else if (selectionKey.isWritable()) {
+                    write();
+                } else if (selectionKey.isReadable()) {
+                    read();
+                }
+            } catch (StaleConnectionException ex) {
+                retryOrFail(ex);
+            } catch (IOException ex) {
+                fail(ex);
+            } catch (RuntimeException ex) {
+                fail(ex);
+            }
+        }
+
+        private void connect() throws IOException {
+            SocketChannel channel = openChannel(request.getURI());
+            channel.configureBlocking(false);
+            conn = new Connection(channel, timeout);
+            reused = false;
+            connecting = true;
+            try {
+                if (channel.connect(address)) {
+                    finishConnect();
+                } else {
+                    interest(SelectionKey.OP_CONNECT);
+                }
+            } catch (IOException ex) {
+                throw new IOException("cannot connect to " + request.getURI(), ex);
+            }
+        }
+
+        private void finishConnect() throws IOException {
+            try {
+                if (!conn.channel.finishConnect()) {
+                    return;
+                }
+            } catch (IOException ex) {
+                throw new IOException("cannot connect to " + request.getURI(), ex);
+            }
+            connecting = false;
+            write();
+        }
+
+        private void write() throws IOException {
+            if (out == null) {
+                StringBuilder head = createHead(request);
+                head.append("Content-Length: ").append(request.getContentLength()).append("\r\n\r\n");
+                out = new ByteBuffer[]{toAscii(head), request.getIppHeader().duplicate()};
+            }
+            try {
+                conn.channel.write(out);
+            } catch (IOException ex) {
+                throw new StaleConnectionException("cannot send request to " + request.getURI(), ex, false);
+            }
+            interest(Connection.hasRemaining(out) ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        private void read() throws IOException {
+            int n;
+            do {
+                in = ensureCapacity(in, BUFFER_SIZE);
+                n = conn.channel.read(in);
+            } while (n > 0);
+            deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            if (parse()) {
+                complete();
+            } else if (n < 0) {
+                if (response != null && isReadToEnd()) {
+                    response.body = ByteBuffer.wrap(Arrays.copyOfRange(in.array(), start, in.position()));
+                    response.keepAlive = false;
+                    complete();
+                } else if (response == null && in.position() == 0) {
+                    throw new StaleConnectionException("connection closed by server before HTTP status line",
+                            null, true);
+                } else {
+                    throw new IOException("connection closed by server before end of HTTP response");
+                }
+            }
+        }
+
+        /**
+         * Parses what was received so far. Interim "100 Continue" responses
+         * are skipped.
+         *
+         * @return true if the response is complete
+         */
+        private boolean parse() throws IOException {
+            while (response == null) {
+                int headEnd = indexOf(CRLF_CRLF, start + scanned);
+                if (headEnd < 0) {
+                    scanned = Math.max(0, in.position() - start - 3);
+                    return false;
+                }
+                Response header = parseHeader(
+                        new String(in.array(), start, headEnd - start, StandardCharsets.ISO_8859_1));
+                start = headEnd + 4;
+                scanned = 0;
+                if (header.statusCode != 100) {
+                    response = header;
+                    chunkStart = start;
+                }
+            }
+            String transferEncoding = response.getHeader("transfer-encoding");
+            String contentLength = response.getHeader("content-length");
+            if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ENGLISH).contains("chunked")) {
+                return parseChunks();
+            } else if (contentLength != null) {
+                int length = Integer.parseInt(contentLength.trim());
+                if (in.position() - start < length) {
+                    return false;
+                }
+                response.body = ByteBuffer.wrap(Arrays.copyOfRange(in.array(), start, start + length));
+                end = start + length;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean isReadToEnd() {
+            return response.getHeader("content-length") == null && response.getHeader("transfer-encoding") == null;
+        }
+
+        /**
+         * Copies the complete chunks into the body. The position of the next
+         * chunk is remembered, so each chunk is copied only once.
+         */
+        private boolean parseChunks() {
+            if (chunkedBody == null) {
+                chunkedBody = ByteBuffer.allocate(BUFFER_SIZE);
+            }
+            while (true) {
+                int lineEnd = indexOf(CRLF, chunkStart);
+                if (lineEnd < 0) {
+                    return false;
+                }
+                String line = new String(in.array(), chunkStart, lineEnd - chunkStart, StandardCharsets.ISO_8859_1);
+                int semicolon = line.indexOf(';');
+                int size = Integer.parseInt((semicolon < 0) ? line.trim() : line.substring(0, semicolon).trim(), 16);
+                if (size == 0) {
+                    for (int trailer = lineEnd + 2;; ) {
+                        int trailerEnd = indexOf(CRLF, trailer);
+                        if (trailerEnd < 0) {
+                            return false;
+                        } else if (trailerEnd == trailer) {
+                            end = trailerEnd + 2;
+                            chunkedBody.flip();
+                            response.body = chunkedBody;
+                            return true;
+                        }
+                        trailer = trailerEnd + 2;
+                    }
+                }
+                if (in.position() < lineEnd + 2 + size + 2) {
+                    return false;
+                }
+                chunkedBody = ensureCapacity(chunkedBody, size);
+                chunkedBody.put(in.array(), lineEnd + 2, size);
+                chunkStart = lineEnd + 2 + size + 2;
+            }
+        }
+
+        private int indexOf(byte[] pattern, int from) {
+            byte[] buffer = in.array();
+            for (int i = from; i + pattern.length <= in.position(); i++) {
+                int j = 0;
+                while (j < pattern.length && buffer[i + j] == pattern[j]) {
+                    j++;
+                }
+                if (j == pattern.length) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void interest(int ops) throws IOException {
+            deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            if (selectionKey == null) {
+                selectionKey = loop.register(this, conn.channel, ops);
+            } else {
+                selectionKey.interestOps(ops);
+            }
+        }
+
+        /**
+         * Like {@link ChannelTransport#send(IppRequest)} a request on a stale
+         * idle connection is sent again on a new connection if it has not
+         * reached the server or if it is idempotent.
+         */
+        private void retryOrFail(StaleConnectionException ex) {
+            if (!reused || (ex.requestSent && !isIdempotent(request))) {
+                fail(ex);
+                return;
+            }
+            LOG.debug("Reused connection to {} is stale ({}) - will open a new one.", key, ex.getMessage());
+            release(false);
+            out = null;
+            in.clear();
+            start = 0;
+            scanned = 0;
+            response = null;
+            chunkedBody = null;
+            try {
+                connect();
+            } catch (IOException ioe) {
+                fail(ioe);
+            }
+        }
+
+        private void complete() {
+            done = true;
+            release(response.keepAlive && (in.position() == end) && !closed);
+            try {
+                future.complete(response.toIppResult());
+            } catch (IOException ex) {
+                future.completeExceptionally(ex);
+            } catch (RuntimeException ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+
+        void timeout() {
+            fail(new SocketTimeoutException("no response from " + conn.channel + " after " + timeout + " ms"));
+        }
+
+        void fail(Throwable ex) {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (conn != null) {
+                release(false);
+            }
+            future.completeExceptionally(ex);
+        }
+
+        private void release(boolean keepAlive) {
+            if (selectionKey != null) {
+                selectionKey.cancel();
+                selectionKey = null;
+            }
+            loop.unregister(this);
+            if (keepAlive) {
+                releaseConnection(key, conn);
+            } else {
+                conn.close();
+            }
+            conn = null;
+        }
+
+    }
+
+    /**
+     * The event loop runs the {@link AsyncExchange}s of a transport with one
+     * thread and one selector. It also fails the exchanges which have been
+     * waiting for the server longer than the timeout.
+     */
+    private static final class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+        private final Set<AsyncExchange> exchanges = new HashSet<AsyncExchange>();
+        private final Thread thread;
+        private volatile boolean running = true;
+        private long nextDeadline = Long.MAX_VALUE;
+
+        EventLoop(String name) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+            if (!running) {
+                runTasks();
+            }
+        }
+
+        SelectionKey register(AsyncExchange exchange, SocketChannel channel, int ops) throws IOException {
+            SelectionKey key;
+            try {
+                key = channel.register(selector, ops, exchange);
+            } catch (CancelledKeyException ex) {
+                // the key of the last exchange on this (reused) channel is not yet removed
+                selector.selectNow();
+                key = channel.register(selector, ops, exchange);
+            }
+            exchanges.add(exchange);
+            nextDeadline = Math.min(nextDeadline, exchange.deadline);
+            return key;
+        }
+
+        void unregister(AsyncExchange exchange) {
+            exchanges.remove(exchange);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    runTasks();
+                    long millis = checkTimeouts();
+                    if (tasks.isEmpty()) {
+                        selector.select(millis);
+                    } else {
+                        selector.selectNow();
+                    }
+                    Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                    while (selected.hasNext()) {
+                        SelectionKey key = selected.next();
+                        selected.remove();
+                        if (key.isValid()) {
+                            ((AsyncExchange) key.attachment()).onReady();
+                        }
+                    }
+                }
+            } catch (IOException ex) {
+                LOG.warn("Event loop {} is stopped:", thread.getName(), ex);
+            } catch (RuntimeException ex) {
+                LOG.warn("Event loop {} is stopped:", thread.getName(), ex);
+            } finally {
+                running = false;
+                for (AsyncExchange exchange : new ArrayList<AsyncExchange>(exchanges)) {
+                    exchange.fail(new IOException(thread.getName() + " is stopped"));
+                }
+                try {
+                    selector.close();
+                } catch (IOException ex) {
+                    LOG.debug("Cannot close selector of {}:", thread.getName(), ex);
+                }
+                runTasks();
+            }
+        }
+
+        private void runTasks() {
+            for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+                task.run();
+            }
+        }
+
+        /**
+         * Fails the exchanges whose deadline is reached. The exchanges are
+         * looked at only if the earliest deadline is reached.
+         *
+         * @return time in ms until the next deadline (0 if there is none)
+         */
+        private long checkTimeouts() {
+            long now = System.nanoTime();
+            if (now >= nextDeadline) {
+                nextDeadline = Long.MAX_VALUE;
+                for (AsyncExchange exchange : new ArrayList<AsyncExchange>(exchanges)) {
+                    if (now >= exchange.deadline) {
+                        exchange.timeout();
+                    } else {
+                        nextDeadline = Math.min(nextDeadline, exchange.deadline);
+                    }
+                }
+            }
+            return (nextDeadline == Long.MAX_VALUE) ? 0 : TimeUnit.NANOSECONDS.toMillis(nextDeadline - now) + 1;
+        }
+
+        void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+
+    }
+
+}
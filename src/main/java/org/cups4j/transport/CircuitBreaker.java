@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import org.cups4j.CupsClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class CircuitBreaker watches the CUPS hosts for consecutive transient
+ * failures. If a host fails too often the circuit opens and all requests
+ * to this host fail fast with a {@link CircuitOpenException} instead of
+ * waiting for the socket timeout. After the open duration one trial
+ * request is let through (half open): if it succeeds the circuit closes
+ * again, otherwise it stays open for another period.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+    private static CircuitBreaker defaultBreaker;
+
+    private final int failureThreshold;
+    private final long openDuration;
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<String, HostState>();
+
+    /**
+     * Creates a breaker which opens after 5 consecutive failures for 30
+     * seconds.
+     */
+    public CircuitBreaker() {
+        this(5, 30, TimeUnit.SECONDS);
+    }
+
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = unit.toMillis(openDuration);
+    }
+
+    /**
+     * Gets the breaker which is used by operations which do not belong to a
+     * {@link CupsClient}.
+     *
+     * @return the shared default breaker
+     */
+    public static synchronized CircuitBreaker getDefault() {
+        if (defaultBreaker == null) {
+            defaultBreaker = new CircuitBreaker();
+        }
+        return defaultBreaker;
+    }
+
+    /**
+     * Must be called before a request is sent to the given URI.
+     *
+     * @param uri the request URI
+     * @throws CircuitOpenException if the circuit for the host is open
+     */
+    public void acquire(URI uri) throws CircuitOpenException {
+        HostState state = hosts.get(HostKey.of(uri));
+        if ((state != null) && !state.tryAcquire(System.currentTimeMillis())) {
+            throw new CircuitOpenException("circuit for " + HostKey.of(uri) + " is open");
+        }
+    }
+
+    /**
+     * Records a successful request (the server was reachable and not busy).
+     *
+     * @param uri the request URI
+     */
+    public void onSuccess(URI uri) {
+        HostState state = hosts.remove(HostKey.of(uri));
+        if ((state != null) && (state.failures >= failureThreshold)) {
+            LOG.info("Circuit for {} is closed again.", HostKey.of(uri));
+        }
+    }
+
+    /**
+     * Records a transient failure of a request.
+     *
+     * @param uri the request URI
+     */
+    public void onFailure(URI uri) {
+        String key = HostKey.of(uri);
+        HostState state = hosts.get(key);
+        if (state == null) {
+            hosts.putIfAbsent(key, new HostState());
+            state = hosts.get(key);
+        }
+        if (state.recordFailure(System.currentTimeMillis())) {
+            LOG.warn("Circuit for {} is open for {} ms.", key, openDuration);
+        }
+    }
+
+    /**
+     * Returns true if requests to the host of the given URI fail fast.
+     *
+     * @param uri the request URI
+     * @return true if the circuit is open
+     */
+    public boolean isOpen(URI uri) {
+        HostState state = hosts.get(HostKey.of(uri));
+        return (state != null) && state.isOpen(System.currentTimeMillis());
+    }
+
+    /**
+     * Closes all circuits.
+     */
+    public void clear() {
+        hosts.clear();
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + hosts.keySet();
+    }
+
+    private final class HostState {
+
+        private int failures;
+        private long openUntil;
+
+        /**
+         * In the half open state only one trial request is let through. The
+         * next trial is possible after another open duration even if the
+         * result of this trial is never recorded.
+         */
+        synchronized boolean tryAcquire(long now) {
+            if (failures < failureThreshold) {
+                return true;
+            }
+            if (now < openUntil) {
+                return false;
+            }
+            openUntil = now + openDuration;
+            return true;
+        }
+
+        synchronized boolean recordFailure(long now) {
+            failures++;
+            if (failures >= failureThreshold) {
+                openUntil = now + openDuration;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean isOpen(long now) {
+            return (failures >= failureThreshold) && (now < openUntil);
+        }
+
+    }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import java.io.IOException;
+
+/**
+ * This exception is thrown without contacting the CUPS server if the
+ * {@link CircuitBreaker} for the host is open.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public class CircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 20261016L;
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+
+}
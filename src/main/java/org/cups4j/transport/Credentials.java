@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+/**
+ * The class Credentials holds the user name and the password which are used
+ * to authenticate against a CUPS server.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class Credentials {
+
+    private final String userName;
+    private final String password;
+
+    public Credentials(String userName, String password) {
+        this.userName = userName;
+        this.password = password;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[" + userName + "]";
+    }
+
+}
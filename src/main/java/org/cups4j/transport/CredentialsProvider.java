@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import java.net.URI;
+
+/**
+ * A CredentialsProvider is asked for the {@link Credentials} if a CUPS
+ * server answers with "401 Unauthorized".
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public interface CredentialsProvider {
+
+    /**
+     * Gets the credentials for the given URI and realm.
+     *
+     * @param uri   the request URI
+     * @param realm the realm of the authentication challenge
+     * @return the credentials or null if there are none
+     */
+    Credentials getCredentials(URI uri, String realm);
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The class FileChannelInputStream is a document which is backed by a
+ * {@link FileChannel}. Because the size of the document is known the
+ * transports can send it with an exact "Content-Length" and can use
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} to move
+ * the bytes without copying them through the heap.
+ * <p>
+ * The stream supports {@link #mark(int)} and {@link #reset()} without
+ * buffering so that a document can be sent again (e.g. after an upgrade
+ * to HTTPS). Closing the stream closes also the channel.
+ * </p>
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public class FileChannelInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private long position;
+    private long mark;
+    private final long end;
+
+    /**
+     * Opens the given file for reading.
+     *
+     * @param path the document file
+     * @throws IOException if the file cannot be opened
+     */
+    public FileChannelInputStream(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Reads the given channel from its current position up to its end.
+     *
+     * @param channel the document channel
+     * @throws IOException if the channel cannot be accessed
+     */
+    public FileChannelInputStream(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.position = channel.position();
+        this.mark = position;
+        this.end = channel.size();
+    }
+
+    /**
+     * Gets the number of bytes which are not yet read or transferred.
+     *
+     * @return remaining bytes
+     */
+    public long getRemaining() {
+        return end - position;
+    }
+
+    /**
+     * Transfers the remaining bytes (or a part of it) to the given target.
+     * For a socket channel as target this is done by the operating system
+     * (sendfile) without copying the bytes through the heap.
+     *
+     * @param target the target channel
+     * @return the number of transferred bytes (may be 0 for a non-blocking
+     *         target)
+     * @throws IOException in case of I/O problems
+     */
+    public long writeTo(WritableByteChannel target) throws IOException {
+        return writeTo(target, getRemaining());
+    }
+
+    /**
+     * Transfers at most the given number of bytes to the given target.
+     *
+     * @param target   the target channel
+     * @param maxBytes max number of bytes to transfer
+     * @return the number of transferred bytes
+     * @throws IOException in case of I/O problems
+     */
+    public long writeTo(WritableByteChannel target, long maxBytes) throws IOException {
+        long n = channel.transferTo(position, Math.min(maxBytes, getRemaining()), target);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return (n < 0) ? -1 : (b[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (getRemaining() <= 0) {
+            return -1;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, getRemaining()));
+        int n = channel.read(buffer, position);
+        if (n > 0) {
+            position += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, getRemaining()));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() {
+        position = mark;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(getRemaining(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[" + getRemaining() + " bytes]";
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 17.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import org.cups4j.CupsClient;
+
+import java.net.URI;
+
+/**
+ * The class HostKey builds the "host:port" key under which the per host
+ * state (connections, circuits, rate limits, challenges, upgrades) is
+ * kept. A URI without port belongs to the {@link CupsClient#DEFAULT_PORT}.
+ *
+ * @author oboehm
+ * @since 0.7.7 (17.10.2026)
+ */
+final class HostKey {
+
+    private HostKey() {
+    }
+
+    /**
+     * Gets the port of the given URI.
+     *
+     * @param uri the request URI
+     * @return the port or {@link CupsClient#DEFAULT_PORT} if there is none
+     */
+    static int getPort(URI uri) {
+        return (uri.getPort() < 0) ? CupsClient.DEFAULT_PORT : uri.getPort();
+    }
+
+    /**
+     * Gets the key of the host of the given URI.
+     *
+     * @param uri the request URI
+     * @return "host:port"
+     */
+    static String of(URI uri) {
+        return uri.getHost() + ":" + getPort(uri);
+    }
+
+}
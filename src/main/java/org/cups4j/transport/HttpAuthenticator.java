@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import org.cups4j.CupsClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The class HttpAuthenticator answers the "401 Unauthorized" challenges of a
+ * CUPS server with Basic or Digest authentication. The accepted challenge
+ * is cached per host and realm so that following requests are sent
+ * preemptively with an "Authorization" header and the extra round trip is
+ * needed only once. As in RFC 7617 a realm covers the directory of the
+ * challenged path and everything below it; CUPS e.g. may protect "/admin"
+ * and "/printers" with different realms and credentials.
+ * For Digest the cached nonce is reused with an incrementing nonce count
+ * until the server sends a new one.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public class HttpAuthenticator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpAuthenticator.class);
+    private static final Pattern PARAM = Pattern.compile("([\\w-]+)\\s*=\\s*(?:\"([^\"]*)\"|([^\\s,]*))");
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static HttpAuthenticator defaultAuthenticator;
+
+    private final Map<String, Challenge> challenges = new ConcurrentHashMap<String, Challenge>();
+    private final Map<String, String> realms = new ConcurrentHashMap<String, String>();
+    private volatile CredentialsProvider credentialsProvider;
+
+    /**
+     * Creates an authenticator without credentials. Such an authenticator
+     * cannot answer any challenge until a {@link CredentialsProvider} is
+     * set.
+     */
+    public HttpAuthenticator() {
+        this(null);
+    }
+
+    public HttpAuthenticator(CredentialsProvider credentialsProvider) {
+        this.credentialsProvider = credentialsProvider;
+    }
+
+    /**
+     * Gets the authenticator which is used by operations which do not belong
+     * to a {@link CupsClient}.
+     *
+     * @return the shared default authenticator
+     */
+    public static synchronized HttpAuthenticator getDefault() {
+        if (defaultAuthenticator == null) {
+            defaultAuthenticator = new HttpAuthenticator();
+        }
+        return defaultAuthenticator;
+    }
+
+    /**
+     * Sets the provider for the credentials. The cached challenges are
+     * cleared because they belong to the old credentials.
+     *
+     * @param credentialsProvider the new provider (or null)
+     */
+    public void setCredentialsProvider(CredentialsProvider credentialsProvider) {
+        this.credentialsProvider = credentialsProvider;
+        clear();
+    }
+
+    public CredentialsProvider getCredentialsProvider() {
+        return credentialsProvider;
+    }
+
+    /**
+     * Adds the "Authorization" header to the given request if a challenge
+     * for its host and the realm of its path is cached.
+     *
+     * @param request the request which is about to be sent
+     * @return true if the header was added
+     */
+    public boolean authorize(IppRequest request) {
+        String realm = getRealm(request.getURI());
+        Challenge challenge = (realm == null) ? null : challenges.get(HostKey.of(request.getURI()) + "/" + realm);
+        if (challenge == null) {
+            return false;
+        }
+        request.setHeader("Authorization", challenge.getAuthorization(request.getURI()));
+        return true;
+    }
+
+    /**
+     * Handles the "WWW-Authenticate" headers of a "401 Unauthorized"
+     * response. Digest is preferred over Basic. If there are credentials for
+     * the realm the challenge is cached for the host and realm of the given
+     * URI.
+     *
+     * @param uri              the request URI
+     * @param wwwAuthenticate  the values of the "WWW-Authenticate" headers
+     * @return true if the request should be repeated
+     */
+    public boolean challenge(URI uri, List<String> wwwAuthenticate) {
+        Map<String, String> selected = null;
+        for (String header : wwwAuthenticate) {
+            Map<String, String> params = parse(header);
+            if ("digest".equals(params.get(""))) {
+                selected = params;
+                break;
+            } else if ("basic".equals(params.get("")) && (selected == null)) {
+                selected = params;
+            }
+        }
+        if (selected == null) {
+            LOG.debug("{}: no supported authentication scheme in {}.", uri, wwwAuthenticate);
+            return false;
+        }
+        CredentialsProvider provider = credentialsProvider;
+        Credentials credentials = (provider == null) ? null : provider.getCredentials(uri, selected.get("realm"));
+        if (credentials == null) {
+            LOG.debug("{}: no credentials for realm '{}'.", uri, selected.get("realm"));
+            return false;
+        }
+        String realm = (selected.get("realm") == null) ? "" : selected.get("realm");
+        challenges.put(HostKey.of(uri) + "/" + realm, new Challenge(selected, credentials));
+        realms.put(HostKey.of(uri) + getDirectory(uri), realm);
+        return true;
+    }
+
+    /**
+     * Forgets all cached challenges.
+     */
+    public void clear() {
+        challenges.clear();
+        realms.clear();
+    }
+
+    /**
+     * Gets the realm of the deepest challenged directory which contains the
+     * path of the given URI.
+     */
+    private String getRealm(URI uri) {
+        String key = HostKey.of(uri);
+        String dir = getDirectory(uri);
+        while (true) {
+            String realm = realms.get(key + dir);
+            if ((realm != null) || (dir.length() <= 1)) {
+                return realm;
+            }
+            dir = dir.substring(0, dir.lastIndexOf('/', dir.length() - 2) + 1);
+        }
+    }
+
+    private static String getDirectory(URI uri) {
+        String path = uri.getRawPath();
+        if ((path == null) || !path.startsWith("/")) {
+            return "/";
+        }
+        return path.substring(0, path.lastIndexOf('/') + 1);
+    }
+
+    private static Map<String, String> parse(String header) {
+        Map<String, String> params = new HashMap<String, String>();
+        String trimmed = header.trim();
+        int space = trimmed.indexOf(' ');
+        String scheme = (space < 0) ? trimmed : trimmed.substring(0, space);
+        params.put("", scheme.toLowerCase(Locale.ENGLISH));
+        if (space > 0) {
+            Matcher matcher = PARAM.matcher(trimmed.substring(space + 1));
+            while (matcher.find()) {
+                String value = (matcher.group(2) == null) ? matcher.group(3) : matcher.group(2);
+                params.put(matcher.group(1).toLowerCase(Locale.ENGLISH), value);
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Calculates the Digest response as described in RFC 2617 / RFC 7616.
+     */
+    static String digest(String algorithm, Credentials credentials, String realm, String nonce, String method,
+                         String digestUri, String qop, String nc, String cnonce) {
+        String alg = (algorithm == null) ? "MD5" : algorithm.toUpperCase(Locale.ENGLISH);
+        boolean session = alg.endsWith("-SESS");
+        String hashName = session ? alg.substring(0, alg.length() - 5) : alg;
+        String ha1 = hash(hashName, credentials.getUserName() + ":" + realm + ":" + credentials.getPassword());
+        if (session) {
+            ha1 = hash(hashName, ha1 + ":" + nonce + ":" + cnonce);
+        }
+        String ha2 = hash(hashName, method + ":" + digestUri);
+        if (qop == null) {
+            return hash(hashName, ha1 + ":" + nonce + ":" + ha2);
+        }
+        return hash(hashName, ha1 + ":" + nonce + ":" + nc + ":" + cnonce + ":" + qop + ":" + ha2);
+    }
+
+    private static String hash(String algorithm, String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance(algorithm).digest(value.getBytes(StandardCharsets.ISO_8859_1));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("unsupported digest algorithm " + algorithm, ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + challenges.keySet();
+    }
+
+    /**
+     * A cached challenge together with the credentials which answer it.
+     */
+    private static final class Challenge {
+
+        private final Map<String, String> params;
+        private final Credentials credentials;
+        private final AtomicInteger nonceCount = new AtomicInteger();
+
+        Challenge(Map<String, String> params, Credentials credentials) {
+            this.params = params;
+            this.credentials = credentials;
+        }
+
+        String getAuthorization(URI uri) {
+            if ("basic".equals(params.get(""))) {
+                String token = credentials.getUserName() + ":" + credentials.getPassword();
+                return "Basic " + Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+            }
+            String digestUri = (uri.getRawPath() == null || uri.getRawPath().isEmpty()) ? "/" : uri.getRawPath();
+            String qop = getQop();
+            String nc = String.format("%08x", nonceCount.incrementAndGet());
+            String cnonce = Long.toHexString(RANDOM.nextLong());
+            String realm = params.get("realm");
+            String nonce = params.get("nonce");
+            StringBuilder header = new StringBuilder("Digest username=\"").append(credentials.getUserName())
+                    .append("\", realm=\"").append(realm)
+                    .append("\", nonce=\"").append(nonce)
+                    .append("\", uri=\"").append(digestUri)
+                    .append("\", response=\"").append(digest(params.get("algorithm"), credentials, realm, nonce,
+                            "POST", digestUri, qop, nc, cnonce)).append('"');
+            if (params.containsKey("algorithm")) {
+                header.append(", algorithm=").append(params.get("algorithm"));
+            }
+            if (params.containsKey("opaque")) {
+                header.append(", opaque=\"").append(params.get("opaque")).append('"');
+            }
+            if (qop != null) {
+                header.append(", qop=").append(qop).append(", nc=").append(nc)
+                        .append(", cnonce=\"").append(cnonce).append('"');
+            }
+            return header.toString();
+        }
+
+        private String getQop() {
+            String qop = params.get("qop");
+            if (qop == null) {
+                return null;
+            }
+            for (String value : qop.split(",")) {
+                if ("auth".equalsIgnoreCase(value.trim())) {
+                    return "auth";
+                }
+            }
+            return null;
+        }
+
+    }
+
+}
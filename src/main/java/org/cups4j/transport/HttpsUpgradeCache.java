@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import org.cups4j.CupsClient;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class HttpsUpgradeCache remembers the CUPS hosts which answered with
+ * "426 Upgrade Required". Following requests to these hosts go directly to
+ * HTTPS so that the extra round trip is needed only once per host.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public class HttpsUpgradeCache {
+
+    private static HttpsUpgradeCache defaultCache;
+
+    private final Set<String> upgradedHosts =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Gets the cache which is used by operations which do not belong to a
+     * {@link CupsClient}.
+     *
+     * @return the shared default cache
+     */
+    public static synchronized HttpsUpgradeCache getDefault() {
+        if (defaultCache == null) {
+            defaultCache = new HttpsUpgradeCache();
+        }
+        return defaultCache;
+    }
+
+    /**
+     * Returns the HTTPS variant of the given URI if its host requires HTTPS.
+     * Otherwise the URI is returned unchanged.
+     *
+     * @param uri the request URI
+     * @return the URI which should be used for the request
+     */
+    public URI resolve(URI uri) {
+        if ("http".equalsIgnoreCase(uri.getScheme()) && upgradedHosts.contains(HostKey.of(uri))) {
+            return toHttps(uri);
+        }
+        return uri;
+    }
+
+    /**
+     * Remembers that the host of the given URI requires HTTPS.
+     *
+     * @param uri the URI which was answered with 426
+     * @return the HTTPS variant of the URI
+     */
+    public URI upgrade(URI uri) {
+        upgradedHosts.add(HostKey.of(uri));
+        return toHttps(uri);
+    }
+
+    /**
+     * Returns true if the host of the given URI requires HTTPS.
+     *
+     * @param uri the request URI
+     * @return true if requests should go to HTTPS
+     */
+    public boolean isUpgraded(URI uri) {
+        return upgradedHosts.contains(HostKey.of(uri));
+    }
+
+    /**
+     * Forgets all hosts.
+     */
+    public void clear() {
+        upgradedHosts.clear();
+    }
+
+    private static URI toHttps(URI uri) {
+        try {
+            return new URI("https", uri.getUserInfo(), uri.getHost(), uri.getPort(), uri.getPath(), uri.getQuery(),
+                    uri.getFragment());
+        } catch (URISyntaxException ex) {
+            throw new IllegalArgumentException("cannot convert " + uri + " to https", ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + upgradedHosts;
+    }
+
+}
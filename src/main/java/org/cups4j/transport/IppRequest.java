@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The class IppRequest holds everything a {@link IppTransport} needs to
+ * send an IPP request: the target URI, the encoded IPP header and an
+ * optional document which follows the header.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public class IppRequest {
+
+    private final URI uri;
+    private final ByteBuffer ippHeader;
+    private final InputStream document;
+    private final Map<String, String> headers = new LinkedHashMap<String, String>();
+    private TrafficClass trafficClass = TrafficClass.INTERACTIVE;
+    private Runnable abortHandler;
+    private boolean aborted;
+
+    public IppRequest(URI uri, ByteBuffer ippHeader) {
+        this(uri, ippHeader, null);
+    }
+
+    public IppRequest(URI uri, ByteBuffer ippHeader, InputStream document) {
+        this.uri = uri;
+        this.ippHeader = ippHeader;
+        this.document = document;
+    }
+
+    public URI getURI() {
+        return uri;
+    }
+
+    public ByteBuffer getIppHeader() {
+        return ippHeader;
+    }
+
+    /**
+     * Gets the document which is sent after the IPP header.
+     *
+     * @return the document or null if there is no document
+     */
+    public InputStream getDocument() {
+        return document;
+    }
+
+    /**
+     * Gets the traffic class which selects the lane of a
+     * {@link LaneTransport}.
+     *
+     * @return INTERACTIVE if not set otherwise
+     */
+    public TrafficClass getTrafficClass() {
+        return trafficClass;
+    }
+
+    public void setTrafficClass(TrafficClass trafficClass) {
+        this.trafficClass = trafficClass;
+    }
+
+    /**
+     * Sets an additional HTTP header like "Authorization".
+     *
+     * @param name  header name
+     * @param value header value
+     */
+    public void setHeader(String name, String value) {
+        headers.put(name, value);
+    }
+
+    /**
+     * Gets the additional HTTP headers which the transport must send.
+     *
+     * @return headers (may be empty)
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Gets the size of the request body, i.e. the IPP header plus the
+     * document. The size is only known if there is no document or if the
+     * document is a {@link FileChannelInputStream}.
+     *
+     * @return the content length or -1 if it is unknown
+     */
+    public long getContentLength() {
+        if (document == null) {
+            return ippHeader.remaining();
+        } else if (document instanceof FileChannelInputStream) {
+            return ippHeader.remaining() + ((FileChannelInputStream) document).getRemaining();
+        }
+        return -1;
+    }
+
+    /**
+     * The transport registers here the handler which is called if the
+     * request should be aborted. If the request was already aborted the
+     * handler is called immediately.
+     *
+     * @param handler the abort handler
+     */
+    public void onAbort(Runnable handler) {
+        boolean abortNow;
+        synchronized (this) {
+            this.abortHandler = handler;
+            abortNow = aborted;
+        }
+        if (abortNow && (handler != null)) {
+            handler.run();
+        }
+    }
+
+    /**
+     * Aborts the request.
+     */
+    public void abort() {
+        Runnable handler;
+        synchronized (this) {
+            aborted = true;
+            handler = abortHandler;
+        }
+        if (handler != null) {
+            handler.run();
+        }
+    }
+
+    public synchronized boolean isAborted() {
+        return aborted;
+    }
+
+    @Override
+    public String toString() {
+        return "IppRequest-" + uri;
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import ch.ethz.vppserver.ippclient.IppResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * An IppTransport is responsible to bring an encoded IPP request to the
+ * CUPS server and to return the parsed response. A transport is normally
+ * owned by a {@link org.cups4j.CupsClient} and shared by all operations
+ * of this client.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public interface IppTransport extends Closeable {
+
+    /**
+     * Sends the given request and waits for the response.
+     *
+     * @param request the IPP request with URI, header and (optional) document
+     * @return the result with HTTP status and IPP attributes
+     * @throws IOException in case of connection problems
+     */
+    IppResult send(IppRequest request) throws IOException;
+
+    /**
+     * Releases all connections and other resources of this transport.
+     */
+    @Override
+    void close();
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import ch.ethz.vppserver.ippclient.IppResult;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class LaneTransport isolates the {@link TrafficClass}es from each
+ * other (bulkhead). Each class has its own lane with its own transport
+ * (and thus its own bounded connection pool) and its own limit of
+ * concurrent requests. A request waits only for requests of its own class.
+ * Requests of a class without own lane use the INTERACTIVE lane.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public class LaneTransport implements IppTransport {
+
+    /** A waiting request checks every 50 ms if it was aborted. */
+    private static final long ABORT_POLL_MILLIS = 50;
+
+    private final Map<TrafficClass, Lane> lanes;
+
+    private LaneTransport(Builder builder) {
+        if (!builder.lanes.containsKey(TrafficClass.INTERACTIVE)) {
+            builder.lane(TrafficClass.INTERACTIVE, 10);
+        }
+        this.lanes = new EnumMap<TrafficClass, Lane>(builder.lanes);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Sends the request through the lane of its traffic class. If the max
+     * number of concurrent requests of the lane is reached the call waits
+     * for a free slot. A request which is aborted while it waits (e.g.
+     * because its {@link CancellationToken} is cancelled or has reached its
+     * deadline) gives up waiting.
+     *
+     * @param request the IPP request
+     * @return the result
+     * @throws IOException in case of connection problems
+     * @throws OperationCancelledException if the request is aborted while it waits
+     */
+    @Override
+    public IppResult send(IppRequest request) throws IOException {
+        Lane lane = getLane(request.getTrafficClass());
+        try {
+            while (!lane.permits.tryAcquire(ABORT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (request.isAborted()) {
+                    throw abortedWhileWaiting(request);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for " + request.getTrafficClass() + " lane");
+        }
+        if (request.isAborted()) {
+            lane.permits.release();
+            throw abortedWhileWaiting(request);
+        }
+        try {
+            return lane.transport.send(request);
+        } finally {
+            lane.permits.release();
+        }
+    }
+
+    private static OperationCancelledException abortedWhileWaiting(IppRequest request) {
+        return new OperationCancelledException(request + " aborted while waiting for " + request.getTrafficClass()
+                + " lane");
+    }
+
+    /**
+     * Gets the transport of the given traffic class.
+     *
+     * @param trafficClass the traffic class
+     * @return the transport of the lane
+     */
+    public IppTransport getTransport(TrafficClass trafficClass) {
+        return getLane(trafficClass).transport;
+    }
+
+    /**
+     * Gets the number of requests which can be started in the given class
+     * without waiting.
+     *
+     * @param trafficClass the traffic class
+     * @return number of free slots
+     */
+    public int getAvailableSlots(TrafficClass trafficClass) {
+        return getLane(trafficClass).permits.availablePermits();
+    }
+
+    private Lane getLane(TrafficClass trafficClass) {
+        Lane lane = lanes.get(trafficClass);
+        return (lane == null) ? lanes.get(TrafficClass.INTERACTIVE) : lane;
+    }
+
+    /**
+     * Closes the transports of all lanes.
+     */
+    @Override
+    public void close() {
+        for (Lane lane : lanes.values()) {
+            lane.transport.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + lanes;
+    }
+
+    private static final class Lane {
+
+        private final IppTransport transport;
+        private final int maxConcurrent;
+        private final Semaphore permits;
+
+        Lane(IppTransport transport, int maxConcurrent) {
+            this.transport = transport;
+            this.maxConcurrent = maxConcurrent;
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + (maxConcurrent - permits.availablePermits()) + "/" + maxConcurrent + "]";
+        }
+
+    }
+
+    /**
+     * Builds LaneTransport objects. Without configuration there is only an
+     * INTERACTIVE lane with 10 connections.
+     */
+    public static class Builder {
+        private final Map<TrafficClass, Lane> lanes = new EnumMap<TrafficClass, Lane>(TrafficClass.class);
+
+        /**
+         * Creates a lane with an own {@link PooledHttpTransport} of the
+         * given size. The number of concurrent requests is limited to the
+         * number of connections.
+         *
+         * @param trafficClass   the traffic class
+         * @param maxConnections max number of connections (per server)
+         * @return Builder
+         */
+        public Builder lane(TrafficClass trafficClass, int maxConnections) {
+            PooledHttpTransport transport = new PooledHttpTransport.Builder().maxTotal(maxConnections)
+                    .maxPerRoute(maxConnections).build();
+            return lane(trafficClass, transport, maxConnections);
+        }
+
+        /**
+         * Creates a lane with the given transport.
+         *
+         * @param trafficClass  the traffic class
+         * @param transport     the transport of the lane
+         * @param maxConcurrent max number of concurrent requests in this lane
+         * @return Builder
+         */
+        public Builder lane(TrafficClass trafficClass, IppTransport transport, int maxConcurrent) {
+            if (maxConcurrent < 1) {
+                throw new IllegalArgumentException("maxConcurrent must be at least 1: " + maxConcurrent);
+            }
+            lanes.put(trafficClass, new Lane(transport, maxConcurrent));
+            return this;
+        }
+
+        public LaneTransport build() {
+            return new LaneTransport(this);
+        }
+    }
+
+}
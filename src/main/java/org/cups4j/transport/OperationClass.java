@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+/**
+ * The classes of IPP operations which can be limited separately. Job
+ * submissions are usually much more expensive for cupsd than queries.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public enum OperationClass {
+
+    /** Print-Job, Print-URI, Validate-Job, Create-Job and Send-Document. */
+    SUBMISSION,
+
+    /** All other operations like Get-Jobs or Cancel-Job. */
+    QUERY;
+
+    /**
+     * Gets the class of the given IPP operation.
+     *
+     * @param operationId the IPP operation id
+     * @return SUBMISSION or QUERY
+     */
+    public static OperationClass of(short operationId) {
+        return ((operationId >= 0x0002) && (operationId <= 0x0006)) ? SUBMISSION : QUERY;
+    }
+
+}
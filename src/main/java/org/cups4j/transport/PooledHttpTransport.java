@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import ch.ethz.vppserver.ippclient.IppResponse;
+import ch.ethz.vppserver.ippclient.IppResult;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class PooledHttpTransport sends the IPP requests with the Apache
+ * HttpClient. The connections are pooled and kept alive so that following
+ * requests to the same CUPS server need no new TCP (or TLS) handshake.
+ * All IPPS connections of a transport use the same {@link SSLContext}, so
+ * a new connection to a known host can resume the TLS session and needs
+ * only an abbreviated handshake.
+ * <p>
+ * Use the {@link Builder} to configure the pool:
+ * </p>
+ * <pre>
+ * IppTransport transport = new PooledHttpTransport.Builder().maxTotal(50).maxPerRoute(20).build();
+ * </pre>
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public class PooledHttpTransport implements IppTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PooledHttpTransport.class);
+    private static final ContentType IPP_CONTENT_TYPE = ContentType.create("application/ipp");
+    private static PooledHttpTransport defaultTransport;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient client;
+    private final RequestConfig requestConfig;
+    private final SSLContext sslContext;
+    private final boolean expectContinue;
+
+    /**
+     * Builds PooledHttpTransport objects. The timeout is taken from the
+     * system property "cups4j.timeout" (default is 10 seconds).
+     */
+    public static class Builder {
+        private int maxTotal = 20;
+        private int maxPerRoute = 10;
+        private long keepAlive = 30000;
+        private long idleTimeout = 60000;
+        private int timeout = Integer.parseInt(System.getProperty("cups4j.timeout", "10000"));
+        private boolean expectContinue = true;
+        private SSLContext sslContext;
+        private HostnameVerifier hostnameVerifier = SSLConnectionSocketFactory.getDefaultHostnameVerifier();
+
+        /**
+         * Max number of connections for all CUPS servers.
+         *
+         * @param maxTotal max number of connections
+         * @return Builder
+         */
+        public Builder maxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        /**
+         * Max number of connections for one CUPS server.
+         *
+         * @param maxPerRoute max number of connections per route
+         * @return Builder
+         */
+        public Builder maxPerRoute(int maxPerRoute) {
+            this.maxPerRoute = maxPerRoute;
+            return this;
+        }
+
+        /**
+         * How long a connection is kept alive if the server does not send a
+         * "Keep-Alive" header.
+         *
+         * @param duration time
+         * @param unit     unit of time
+         * @return Builder
+         */
+        public Builder keepAlive(long duration, TimeUnit unit) {
+            this.keepAlive = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Connections which are idle for the given time are evicted from
+         * the pool.
+         *
+         * @param duration time
+         * @param unit     unit of time
+         * @return Builder
+         */
+        public Builder idleTimeout(long duration, TimeUnit unit) {
+            this.idleTimeout = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Connect and socket timeout.
+         *
+         * @param duration time
+         * @param unit     unit of time
+         * @return Builder
+         */
+        public Builder timeout(long duration, TimeUnit unit) {
+            this.timeout = (int) unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * If enabled (default) requests with a document are sent with
+         * "Expect: 100-continue". The document is sent only if the server
+         * accepts the request (or does not answer within 3 seconds).
+         *
+         * @param enabled false to send the document without waiting
+         * @return Builder
+         */
+        public Builder expectContinue(boolean enabled) {
+            this.expectContinue = enabled;
+            return this;
+        }
+
+        /**
+         * The SSL context for IPPS connections, e.g. with a trust store
+         * for the self-signed certificate of a CUPS server. The context
+         * caches the TLS sessions. By default a context with the system
+         * properties ("javax.net.ssl.*") is created.
+         *
+         * @param sslContext SSL context
+         * @return Builder
+         */
+        public Builder sslContext(SSLContext sslContext) {
+            this.sslContext = sslContext;
+            return this;
+        }
+
+        /**
+         * The verifier which checks if the host name matches the server
+         * certificate.
+         *
+         * @param hostnameVerifier hostname verifier
+         * @return Builder
+         */
+        public Builder hostnameVerifier(HostnameVerifier hostnameVerifier) {
+            this.hostnameVerifier = hostnameVerifier;
+            return this;
+        }
+
+        /**
+         * Builds the PooledHttpTransport object.
+         *
+         * @return PooledHttpTransport
+         */
+        public PooledHttpTransport build() {
+            return new PooledHttpTransport(this);
+        }
+    }
+
+    protected PooledHttpTransport(Builder builder) {
+        this.sslContext = (builder.sslContext == null) ? SSLContexts.createSystemDefault() : builder.sslContext;
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext, builder.hostnameVerifier))
+                .build();
+        this.connectionManager = new PoolingHttpClientConnectionManager(registry);
+        this.connectionManager.setMaxTotal(builder.maxTotal);
+        this.connectionManager.setDefaultMaxPerRoute(builder.maxPerRoute);
+        this.requestConfig =
+                RequestConfig.custom().setSocketTimeout(builder.timeout).setConnectTimeout(builder.timeout).build();
+        this.expectContinue = builder.expectContinue;
+        this.client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(createKeepAliveStrategy(builder.keepAlive))
+                .setDefaultRequestConfig(requestConfig)
+                // no client certificates are used, so pooled TLS connections are not bound to a user
+                .disableConnectionState()
+                .evictExpiredConnections()
+                .evictIdleConnections(builder.idleTimeout, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Gets the transport which is used by operations and printers which
+     * do not belong to a {@link org.cups4j.CupsClient}.
+     *
+     * @return the shared default transport
+     */
+    public static synchronized PooledHttpTransport getDefault() {
+        if (defaultTransport == null) {
+            defaultTransport = new Builder().build();
+        }
+        return defaultTransport;
+    }
+
+    private static ConnectionKeepAliveStrategy createKeepAliveStrategy(final long keepAlive) {
+        return new DefaultConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                long duration = super.getKeepAliveDuration(response, context);
+                return (duration < 0) ? keepAlive : Math.min(duration, keepAlive);
+            }
+        };
+    }
+
+    /**
+     * Gets the SSL context which is used for all IPPS connections.
+     *
+     * @return SSL context
+     */
+    public SSLContext getSSLContext() {
+        return sslContext;
+    }
+
+    @Override
+    public IppResult send(IppRequest request) throws IOException {
+        final HttpPost httpPost = new HttpPost(request.getURI());
+        httpPost.setEntity(createEntity(request));
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            httpPost.setHeader(header.getKey(), header.getValue());
+        }
+        if (expectContinue && request.getDocument() != null) {
+            httpPost.setConfig(RequestConfig.copy(requestConfig).setExpectContinueEnabled(true).build());
+        }
+        request.onAbort(new Runnable() {
+            public void run() {
+                httpPost.abort();
+            }
+        });
+        return client.execute(httpPost, new ResponseHandler<IppResult>() {
+            public IppResult handleResponse(HttpResponse response) throws IOException {
+                return toIppResult(response);
+            }
+        });
+    }
+
+    /**
+     * The IPP header is written from the request buffer without copying it
+     * into a temporary array or stream.
+     */
+    private static HttpEntity createEntity(IppRequest request) {
+        ByteBuffer ippBuf = request.getIppHeader().duplicate();
+        if ((request.getDocument() == null) && ippBuf.hasArray()) {
+            return new ByteArrayEntity(ippBuf.array(), ippBuf.arrayOffset() + ippBuf.position(), ippBuf.remaining(),
+                    IPP_CONTENT_TYPE);
+        }
+        return new IppEntity(ippBuf, request.getDocument());
+    }
+
+    private static IppResult toIppResult(HttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        IppResult ippResult;
+        if (entity == null) {
+            ippResult = new IppResponse().getResponse(ByteBuffer.allocate(0));
+        } else {
+            // the response is parsed while it is arriving
+            try {
+                ippResult = new IppResponse().getResponse(entity.getContent());
+            } finally {
+                EntityUtils.consume(entity);
+            }
+        }
+        ippResult.setHttpStatusResponse(response.getStatusLine().toString());
+        ippResult.setHttpStatusCode(response.getStatusLine().getStatusCode());
+        for (Header header : response.getAllHeaders()) {
+            ippResult.addHttpHeader(header.getName(), header.getValue());
+        }
+        return ippResult;
+    }
+
+    /**
+     * Shuts down the connection pool.
+     */
+    @Override
+    public void close() {
+        try {
+            client.close();
+        } catch (IOException ex) {
+            LOG.warn("Cannot close {}:", this, ex);
+        }
+        connectionManager.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + connectionManager.getTotalStats();
+    }
+
+    /**
+     * Entity for the IPP header and a document. A document of known size
+     * (a {@link FileChannelInputStream}) is sent with an exact
+     * "Content-Length", other documents are sent chunked. The document is
+     * closed by the operation and not by the entity.
+     */
+    private static final class IppEntity extends AbstractHttpEntity {
+
+        private final ByteBuffer header;
+        private final InputStream document;
+        private final long contentLength;
+
+        IppEntity(ByteBuffer header, InputStream document) {
+            this.header = header;
+            this.document = document;
+            if (document == null) {
+                this.contentLength = header.remaining();
+            } else if (document instanceof FileChannelInputStream) {
+                this.contentLength = header.remaining() + ((FileChannelInputStream) document).getRemaining();
+            } else {
+                this.contentLength = -1;
+            }
+            setContentType(IPP_CONTENT_TYPE.toString());
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return document == null;
+        }
+
+        @Override
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            byte[] bytes = new byte[header.remaining()];
+            header.duplicate().get(bytes);
+            if (document == null) {
+                return new ByteArrayInputStream(bytes);
+            }
+            return new SequenceInputStream(new ByteArrayInputStream(bytes), new CloseShieldInputStream(document));
+        }
+
+        @Override
+        public void writeTo(OutputStream outstream) throws IOException {
+            ByteBuffer buffer = header.duplicate();
+            if (buffer.hasArray()) {
+                outstream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            } else {
+                Channels.newChannel(outstream).write(buffer);
+            }
+            if (document instanceof FileChannelInputStream) {
+                FileChannelInputStream fileDocument = (FileChannelInputStream) document;
+                WritableByteChannel target = Channels.newChannel(outstream);
+                while (fileDocument.getRemaining() > 0) {
+                    fileDocument.writeTo(target);
+                }
+            } else if (document != null) {
+                IOUtils.copy(document, outstream);
+            }
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return document != null;
+        }
+
+    }
+
+}
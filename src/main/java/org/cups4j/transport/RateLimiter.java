@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class RateLimiter protects the CUPS servers from too many requests.
+ * For each host and {@link OperationClass} there is a token bucket with a
+ * rate (requests per second) and a burst size. A request which finds the
+ * bucket empty waits for its token. If the wait would take longer than
+ * the configured max wait the request is rejected with a
+ * {@link RateLimitExceededException}.
+ * <p>
+ * The limiter is called by the IppOperation for each request so no call
+ * path can bypass it. Without configured limits (as the initial default
+ * limiter) requests are never delayed.
+ * </p>
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class RateLimiter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RateLimiter.class);
+    private static volatile RateLimiter defaultLimiter = new Builder().build();
+
+    private final Map<OperationClass, Limit> classLimits;
+    private final Map<String, Limit> hostLimits;
+    private final long maxWait;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<String, Bucket>();
+    private final Map<OperationClass, Metrics> metrics = new EnumMap<OperationClass, Metrics>(OperationClass.class);
+
+    private RateLimiter(Builder builder) {
+        this.classLimits = new EnumMap<OperationClass, Limit>(builder.classLimits);
+        this.hostLimits = new HashMap<String, Limit>(builder.hostLimits);
+        this.maxWait = builder.maxWait;
+        for (OperationClass opClass : OperationClass.values()) {
+            metrics.put(opClass, new Metrics());
+        }
+    }
+
+    /**
+     * Gets the limiter which is used by all operations and clients which
+     * have no own limiter.
+     *
+     * @return the default limiter
+     */
+    public static RateLimiter getDefault() {
+        return defaultLimiter;
+    }
+
+    /**
+     * Sets the limiter for all operations and clients which have no own
+     * limiter.
+     *
+     * @param limiter the new default limiter
+     */
+    public static void setDefault(RateLimiter limiter) {
+        defaultLimiter = limiter;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Takes a token for a request to the given URI. If no token is left the
+     * call blocks until the token is available.
+     *
+     * @param uri         the request URI
+     * @param operationId the IPP operation id
+     * @throws RateLimitExceededException if the wait would be too long
+     * @throws InterruptedIOException     if the thread is interrupted while waiting
+     */
+    public void acquire(URI uri, short operationId) throws IOException {
+        acquire(uri, operationId, null);
+    }
+
+    /**
+     * Takes a token for a request to the given URI. The wait for the token
+     * is limited by the remaining time of the given CancellationToken: a
+     * request which would reach its deadline while waiting is rejected
+     * at once.
+     *
+     * @param uri         the request URI
+     * @param operationId the IPP operation id
+     * @param token       the token of the operation (or null)
+     * @throws RateLimitExceededException if the wait would be too long
+     * @throws InterruptedIOException     if the thread is interrupted while waiting
+     */
+    public void acquire(URI uri, short operationId, CancellationToken token) throws IOException {
+        long wait = reserve(uri, operationId, token);
+        if (wait > 0) {
+            sleep(wait);
+        }
+    }
+
+    /**
+     * Takes a token for a request to the given URI without waiting for it.
+     * Instead the caller gets the time after which it may send the request.
+     * This is for callers which must not block, like the asynchronous
+     * operations.
+     *
+     * @param uri         the request URI
+     * @param operationId the IPP operation id
+     * @param token       the token of the operation (or null)
+     * @return the time to wait in ns (0 if the request can be sent at once)
+     * @throws RateLimitExceededException if the wait would be too long
+     */
+    public long reserve(URI uri, short operationId, CancellationToken token) throws RateLimitExceededException {
+        OperationClass opClass = OperationClass.of(operationId);
+        String host = HostKey.of(uri);
+        Limit limit = getLimit(host, opClass);
+        if (limit == null) {
+            return 0;
+        }
+        String key = host + "/" + opClass;
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            buckets.putIfAbsent(key, new Bucket(limit));
+            bucket = buckets.get(key);
+        }
+        long max = (token == null) ? maxWait : Math.min(maxWait, token.getRemaining(TimeUnit.NANOSECONDS));
+        long wait = bucket.reserve(System.nanoTime(), max);
+        Metrics m = metrics.get(opClass);
+        if (wait < 0) {
+            m.rejected.incrementAndGet();
+            throw new RateLimitExceededException("rate limit of " + limit + " for " + key + " exceeded");
+        }
+        m.record(wait);
+        if (wait > 0) {
+            LOG.debug("Request to {} waits {} ms for rate limit {}.", key, TimeUnit.NANOSECONDS.toMillis(wait), limit);
+        }
+        return wait;
+    }
+
+    /**
+     * Gets the metrics for the given operation class.
+     *
+     * @param opClass the operation class
+     * @return the metrics
+     */
+    public Metrics getMetrics(OperationClass opClass) {
+        return metrics.get(opClass);
+    }
+
+    private Limit getLimit(String host, OperationClass opClass) {
+        Limit limit = hostLimits.get(host + "/" + opClass);
+        return (limit == null) ? classLimits.get(opClass) : limit;
+    }
+
+    private static void sleep(long nanos) throws InterruptedIOException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for rate limit");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[" + classLimits + ", " + hostLimits + "]";
+    }
+
+    /**
+     * The metrics of the requests of one {@link OperationClass}.
+     */
+    public static final class Metrics {
+
+        private final AtomicLong acquired = new AtomicLong();
+        private final AtomicLong delayed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong totalWait = new AtomicLong();
+        private final AtomicLong maxWait = new AtomicLong();
+
+        private void record(long wait) {
+            acquired.incrementAndGet();
+            if (wait > 0) {
+                delayed.incrementAndGet();
+                totalWait.addAndGet(wait);
+                long max = maxWait.get();
+                while ((wait > max) && !maxWait.compareAndSet(max, wait)) {
+                    max = maxWait.get();
+                }
+            }
+        }
+
+        /** @return number of requests which got a token */
+        public long getAcquired() {
+            return acquired.get();
+        }
+
+        /** @return number of requests which had to wait for their token */
+        public long getDelayed() {
+            return delayed.get();
+        }
+
+        /** @return number of rejected requests */
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        public long getTotalWaitTime(TimeUnit unit) {
+            return unit.convert(totalWait.get(), TimeUnit.NANOSECONDS);
+        }
+
+        public long getMaxWaitTime(TimeUnit unit) {
+            return unit.convert(maxWait.get(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + acquired + " acquired, " + delayed + " delayed, " + rejected + " rejected, max wait "
+                    + getMaxWaitTime(TimeUnit.MILLISECONDS) + " ms]";
+        }
+
+    }
+
+    private static final class Limit {
+
+        private final double permitsPerSecond;
+        private final int burst;
+
+        Limit(double permitsPerSecond, int burst) {
+            if ((permitsPerSecond <= 0) || (burst < 1)) {
+                throw new IllegalArgumentException("invalid rate limit: " + permitsPerSecond + "/s, burst " + burst);
+            }
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+
+        @Override
+        public String toString() {
+            return permitsPerSecond + "/s (burst " + burst + ")";
+        }
+
+    }
+
+    private static final class Bucket {
+
+        private final double nanosPerToken;
+        private final int burst;
+        private double tokens;
+        private long lastRefill;
+
+        Bucket(Limit limit) {
+            this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / limit.permitsPerSecond;
+            this.burst = limit.burst;
+            this.tokens = burst;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * Takes a token. If the bucket is empty the token is reserved in
+         * advance (the token count goes negative) so that waiting requests
+         * are served in order.
+         *
+         * @return the time to wait in ns or -1 if the wait would exceed
+         *         max wait
+         */
+        synchronized long reserve(long now, long maxWait) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) / nanosPerToken);
+            lastRefill = now;
+            long wait = (tokens >= 1) ? 0 : (long) Math.ceil((1 - tokens) * nanosPerToken);
+            if (wait > maxWait) {
+                return -1;
+            }
+            tokens -= 1;
+            return wait;
+        }
+
+    }
+
+    /**
+     * Builds RateLimiter objects.
+     */
+    public static class Builder {
+        private final Map<OperationClass, Limit> classLimits = new EnumMap<OperationClass, Limit>(OperationClass.class);
+        private final Map<String, Limit> hostLimits = new HashMap<String, Limit>();
+        private long maxWait = Long.MAX_VALUE;
+
+        /**
+         * Limits the requests of the given class for each CUPS host.
+         *
+         * @param opClass          the operation class
+         * @param permitsPerSecond max requests per second (in the long run)
+         * @param burst            max requests at once
+         * @return Builder
+         */
+        public Builder limit(OperationClass opClass, double permitsPerSecond, int burst) {
+            classLimits.put(opClass, new Limit(permitsPerSecond, burst));
+            return this;
+        }
+
+        /**
+         * Limits the requests of the given class for the given CUPS host.
+         * This overrides the limit for all hosts.
+         *
+         * @param host             the CUPS host
+         * @param port             the CUPS port
+         * @param opClass          the operation class
+         * @param permitsPerSecond max requests per second (in the long run)
+         * @param burst            max requests at once
+         * @return Builder
+         */
+        public Builder limit(String host, int port, OperationClass opClass, double permitsPerSecond, int burst) {
+            hostLimits.put(host + ":" + port + "/" + opClass, new Limit(permitsPerSecond, burst));
+            return this;
+        }
+
+        /**
+         * Requests which would have to wait longer are rejected. Use 0 to
+         * reject all requests which find an empty bucket.
+         *
+         * @param duration max wait time
+         * @param unit     unit of time
+         * @return Builder
+         */
+        public Builder maxWait(long duration, TimeUnit unit) {
+            this.maxWait = unit.toNanos(duration);
+            return this;
+        }
+
+        public RateLimiter build() {
+            return new RateLimiter(this);
+        }
+    }
+
+}
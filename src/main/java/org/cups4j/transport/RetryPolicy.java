@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import ch.ethz.vppserver.ippclient.IppResult;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class RetryPolicy decides if a failed request is repeated and how
+ * long to wait before the next attempt. Only idempotent operations
+ * (Get-* and Validate-Job) are repeated, and only for transient failures
+ * like a refused or reset connection, "503 Service
+ * Unavailable" or the IPP status codes "server-error-busy",
+ * "server-error-service-unavailable" and "server-error-temporary-error".
+ * The delay grows exponentially with a random jitter so that many clients
+ * do not hit a restarted cupsd at the same moment.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class RetryPolicy {
+
+    /** Policy which never repeats a request. */
+    public static final RetryPolicy NONE = new Builder().maxAttempts(1).build();
+
+    private static final RetryPolicy DEFAULT = new Builder().build();
+
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final double multiplier;
+    private final Random random = new Random();
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.multiplier = builder.multiplier;
+    }
+
+    /**
+     * Gets the default policy with 3 attempts and a backoff from 200 ms up
+     * to 2 seconds.
+     *
+     * @return the default policy
+     */
+    public static RetryPolicy getDefault() {
+        return DEFAULT;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns true for the operations which can be repeated without side
+     * effects.
+     *
+     * @param operationId the IPP operation id
+     * @return true for Validate-Job, Get-* and CUPS-Get-* operations
+     */
+    public static boolean isIdempotent(short operationId) {
+        switch (operationId) {
+            case 0x0004: // Validate-Job
+            case 0x0009: // Get-Job-Attributes
+            case 0x000a: // Get-Jobs
+            case 0x000b: // Get-Printer-Attributes
+            case 0x4001: // CUPS-Get-Default
+            case 0x4002: // CUPS-Get-Printers
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns true if the given exception (or its cause) is a refused,
+     * unreachable, reset or broken connection. Other errors like protocol
+     * errors or an unexpected end of the response are not transient.
+     * A socket timeout is not transient either: the server is probably
+     * overloaded, and another attempt would only let the callers wait
+     * several times as long.
+     *
+     * @param ex the exception of the failed attempt
+     * @return true if the request may succeed later
+     */
+    public static boolean isTransient(IOException ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if ((t instanceof ConnectException) || (t instanceof NoRouteToHostException)) {
+                return true;
+            }
+            if ((t instanceof SocketException) && isConnectionLost(t.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isConnectionLost(String message) {
+        if (message == null) {
+            return false;
+        }
+        String msg = message.toLowerCase(Locale.ENGLISH);
+        return msg.contains("connection reset") || msg.contains("broken pipe");
+    }
+
+    /**
+     * Returns true if the server has answered that it is temporary not able
+     * to handle the request.
+     *
+     * @param result the result of the attempt
+     * @return true if the request may succeed later
+     */
+    public static boolean isTransient(IppResult result) {
+        if (result.getHttpStatusCode() == 503) {
+            return true;
+        }
+        String status = result.getIppStatusResponse();
+        return (status != null) && (status.contains("Status Code:0x0502") || status.contains("Status Code:0x0505")
+                || status.contains("Status Code:0x0507"));
+    }
+
+    /**
+     * Gets the time to wait before the given attempt. The delay is chosen
+     * randomly between the half and the full exponential backoff.
+     *
+     * @param attempt the next attempt (2 for the first retry)
+     * @return delay in milliseconds
+     */
+    public long getBackoff(int attempt) {
+        double backoff = initialBackoff * Math.pow(multiplier, Math.max(0, attempt - 2));
+        long delay = (long) Math.min(backoff, maxBackoff);
+        return delay / 2 + (long) (random.nextDouble() * (delay - delay / 2));
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[" + maxAttempts + " attempts, " + initialBackoff + ".."
+                + maxBackoff + " ms]";
+    }
+
+    /**
+     * Builds RetryPolicy objects.
+     */
+    public static class Builder {
+        private int maxAttempts = 3;
+        private long initialBackoff = 200;
+        private long maxBackoff = 2000;
+        private double multiplier = 2.0;
+
+        /**
+         * Max number of attempts including the first one. 1 means that a
+         * request is never repeated.
+         *
+         * @param maxAttempts max number of attempts
+         * @return Builder
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1: " + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * The delay before the first retry and the upper limit for all
+         * delays.
+         *
+         * @param initial delay before the first retry
+         * @param max     max delay
+         * @param unit    unit of time
+         * @return Builder
+         */
+        public Builder backoff(long initial, long max, TimeUnit unit) {
+            this.initialBackoff = unit.toMillis(initial);
+            this.maxBackoff = unit.toMillis(max);
+            return this;
+        }
+
+        /**
+         * The factor by which the delay grows from attempt to attempt.
+         *
+         * @param multiplier factor (default is 2)
+         * @return Builder
+         */
+        public Builder multiplier(double multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.nio.channels.SocketChannel;
+
+/**
+ * The class UnixDomainSocketTransport talks to a local cupsd through its
+ * Unix domain socket (usually "/run/cups/cups.sock") instead of a TCP
+ * connection to localhost:631. All requests go to this socket, the host
+ * and port of the request URI are only used for the HTTP "Host" header.
+ * <p>
+ * Unix domain socket channels need Java 16 or newer. Because cups4j still
+ * runs on Java 8 the new API is accessed by reflection.
+ * </p>
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public class UnixDomainSocketTransport extends ChannelTransport {
+
+    /** The default socket of cupsd. */
+    public static final File DEFAULT_SOCKET = new File("/run/cups/cups.sock");
+
+    private final File socketFile;
+
+    /**
+     * Creates a transport for the default socket "/run/cups/cups.sock".
+     */
+    public UnixDomainSocketTransport() {
+        this(DEFAULT_SOCKET);
+    }
+
+    /**
+     * Creates a transport for the given socket file.
+     *
+     * @param socketFile the socket file of cupsd
+     */
+    public UnixDomainSocketTransport(File socketFile) {
+        this.socketFile = socketFile;
+    }
+
+    /**
+     * Gets the socket file.
+     *
+     * @return the socket file of cupsd
+     */
+    public File getSocketFile() {
+        return socketFile;
+    }
+
+    /**
+     * Returns true if Unix domain socket channels are supported by the
+     * running Java version (Java 16+).
+     *
+     * @return true if supported
+     */
+    public static boolean isSupported() {
+        try {
+            Class.forName("java.net.UnixDomainSocketAddress");
+            return true;
+        } catch (ClassNotFoundException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    protected SocketAddress getSocketAddress(URI uri) throws IOException {
+        try {
+            return (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class)
+                    .invoke(null, socketFile.getPath());
+        } catch (ReflectiveOperationException ex) {
+            throw toIOException(ex);
+        }
+    }
+
+    @Override
+    protected SocketChannel openChannel(URI uri) throws IOException {
+        try {
+            return (SocketChannel) SocketChannel.class.getMethod("open", ProtocolFamily.class)
+                    .invoke(null, StandardProtocolFamily.valueOf("UNIX"));
+        } catch (ReflectiveOperationException ex) {
+            throw toIOException(ex);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Unix domain sockets are not supported by Java "
+                    + System.getProperty("java.version"), ex);
+        }
+    }
+
+    private static IOException toIOException(ReflectiveOperationException ex) {
+        if ((ex instanceof InvocationTargetException) && (ex.getCause() instanceof IOException)) {
+            return (IOException) ex.getCause();
+        }
+        return new IOException("Unix domain sockets are not supported by Java "
+                + System.getProperty("java.version"), ex);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[" + socketFile + "]";
+    }
+
+}
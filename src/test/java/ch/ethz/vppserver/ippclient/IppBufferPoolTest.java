@@ -0,0 +1,60 @@
+package ch.ethz.vppserver.ippclient;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IppBufferPoolTest {
+
+    @Test
+    public void testReuse() {
+        ByteBuffer buffer = IppBufferPool.acquire();
+        buffer.put((byte) 1);
+        IppBufferPool.release(buffer);
+        ByteBuffer reused = IppBufferPool.acquire();
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(reused.capacity(), reused.remaining());
+    }
+
+    @Test
+    public void testReleaseSmallBuffer() {
+        ByteBuffer small = ByteBuffer.allocate(64);
+        IppBufferPool.release(small);
+        ByteBuffer buffer = IppBufferPool.acquire();
+        assertNotSame(small, buffer);
+        assertTrue(buffer.capacity() >= IppBufferPool.DEFAULT_SIZE);
+    }
+
+    @Test
+    public void testEnsureCapacity() {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        buffer.putShort((short) 0x0102);
+        ByteBuffer bigger = IppBufferPool.ensureCapacity(buffer, 100);
+        assertTrue(bigger.remaining() >= 100);
+        assertEquals(2, bigger.position());
+        assertEquals(0x0102, bigger.getShort(0));
+    }
+
+    @Test
+    public void testManyAttributes() throws Exception {
+        ByteBuffer ippBuf = IppBufferPool.acquire();
+        ippBuf = IppTag.getOperation(ippBuf, (short) 0x000b);
+        ippBuf = IppTag.getKeyword(ippBuf, "requested-attributes", "all");
+        for (int i = 0; i < 2000; i++) {
+            ippBuf = IppTag.getKeyword(ippBuf, null, "attribute-" + i);
+        }
+        ippBuf = IppTag.getEnd(ippBuf);
+        ippBuf.flip();
+        assertTrue(ippBuf.remaining() > IppBufferPool.DEFAULT_SIZE);
+        assertEquals(0x000b, ippBuf.getShort(2));
+        assertEquals(0x03, ippBuf.get(ippBuf.limit() - 1));
+        IppBufferPool.release(ippBuf);
+    }
+
+}
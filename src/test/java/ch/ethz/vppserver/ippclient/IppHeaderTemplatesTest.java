@@ -0,0 +1,66 @@
+package ch.ethz.vppserver.ippclient;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IppHeaderTemplatesTest {
+
+    private static final String PRINTER_URI = "http://localhost/printers/test";
+
+    @Test
+    public void testSameAsIppTag() throws Exception {
+        ByteBuffer expected = IppTag.getOperation(ByteBuffer.allocate(256), (short) 0x000a);
+        expected = IppTag.getUri(expected, "printer-uri", PRINTER_URI);
+        expected = IppTag.getNameWithoutLanguage(expected, "requesting-user-name", "test");
+        for (int i = 0; i < 2; i++) {
+            ByteBuffer header = IppHeaderTemplates.getHeader(ByteBuffer.allocate(256), (short) 0x000a, PRINTER_URI,
+                    "test");
+            assertArrayEquals(withoutRequestID(expected), withoutRequestID(header));
+        }
+    }
+
+    @Test
+    public void testWithoutUser() throws Exception {
+        ByteBuffer expected = IppTag.getOperation(ByteBuffer.allocate(256), (short) 0x000b);
+        expected = IppTag.getUri(expected, "printer-uri", PRINTER_URI);
+        ByteBuffer header = IppHeaderTemplates.getHeader(ByteBuffer.allocate(256), (short) 0x000b, PRINTER_URI);
+        assertArrayEquals(withoutRequestID(expected), withoutRequestID(header));
+    }
+
+    @Test
+    public void testRequestID() throws Exception {
+        ByteBuffer first = IppHeaderTemplates.getHeader(ByteBuffer.allocate(256), (short) 0x000b, PRINTER_URI);
+        ByteBuffer second = IppHeaderTemplates.getHeader(ByteBuffer.allocate(256), (short) 0x000b, PRINTER_URI);
+        assertTrue(second.getInt(4) > first.getInt(4));
+    }
+
+    @Test
+    public void testNewTemplateTakesOneRequestID() throws Exception {
+        int before = IppTag.nextRequestID();
+        ByteBuffer header = IppHeaderTemplates.getHeader(ByteBuffer.allocate(256), (short) 0x000b,
+                PRINTER_URI + "/new");
+        assertEquals(before + 1, header.getInt(4));
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        for (int i = 0; i <= IppHeaderTemplates.MAX_TEMPLATES; i++) {
+            IppHeaderTemplates.getHeader(ByteBuffer.allocate(256), (short) 0x000b, PRINTER_URI + i);
+        }
+        assertTrue(IppHeaderTemplates.size() <= IppHeaderTemplates.MAX_TEMPLATES);
+    }
+
+    private static byte[] withoutRequestID(ByteBuffer buffer) {
+        byte[] bytes = Arrays.copyOf(buffer.array(), buffer.position());
+        assertEquals(0x0101, ((bytes[0] << 8) | bytes[1]));
+        Arrays.fill(bytes, 4, 8, (byte) 0);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,90 @@
+package ch.ethz.vppserver.ippclient;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IppReaderTest {
+
+    @Test
+    public void testEvents() throws Exception {
+        ByteBuffer ippBuf = IppWriter.writeHeader(ByteBuffer.allocate(16), (short) 0x0000, 42);
+        ippBuf = IppWriter.writeTag(ippBuf, (byte) 0x01);
+        ippBuf = IppWriter.writeString(ippBuf, (byte) 0x47, "attributes-charset", "utf-8");
+        ippBuf = IppWriter.writeTag(ippBuf, (byte) 0x04);
+        ippBuf = IppWriter.writeInteger(ippBuf, (byte) 0x23, "printer-state", 3);
+        ippBuf = IppWriter.writeString(ippBuf, (byte) 0x44, "sides-supported", "one-sided");
+        ippBuf = IppWriter.writeString(ippBuf, (byte) 0x44, null, "two-sided-long-edge");
+        ippBuf = IppWriter.writeTag(ippBuf, (byte) 0x03);
+        IppReader reader = new IppReader(toInputStream(ippBuf));
+        assertEquals(0, reader.getStatusCode());
+        assertEquals(42, reader.getRequestId());
+        List<String> events = new ArrayList<String>();
+        for (IppReader.Event event = reader.next(); event != IppReader.Event.END; event = reader.next()) {
+            switch (event) {
+                case START_GROUP:
+                    events.add("group " + reader.getGroupTag());
+                    break;
+                case ATTRIBUTE:
+                case VALUE:
+                    events.add(reader.getName() + "=" + ((reader.getValueTag() == 0x23) ? reader.getInteger()
+                            : reader.getString()));
+                    break;
+                default:
+                    events.add("end");
+                    break;
+            }
+        }
+        assertEquals(Arrays.asList("group 1", "attributes-charset=utf-8", "end", "group 4", "printer-state=3",
+                "sides-supported=one-sided", "sides-supported=two-sided-long-edge", "end"), events);
+        assertEquals(IppReader.Event.END, reader.next());
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncated() throws IOException {
+        ByteBuffer ippBuf = IppWriter.writeHeader(ByteBuffer.allocate(64), (short) 0x0000, 1);
+        ippBuf = IppWriter.writeTag(ippBuf, (byte) 0x01);
+        ippBuf = IppWriter.writeString(ippBuf, (byte) 0x47, "attributes-charset", "utf-8");
+        ippBuf.position(ippBuf.position() - 2);
+        IppReader reader = new IppReader(toInputStream(ippBuf));
+        assertEquals(IppReader.Event.START_GROUP, reader.next());
+        reader.next();
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void testValueOutsideOfGroup() throws IOException {
+        ByteBuffer ippBuf = IppWriter.writeHeader(ByteBuffer.allocate(64), (short) 0x0000, 1);
+        ippBuf = IppWriter.writeInteger(ippBuf, (byte) 0x21, "copies", 1);
+        new IppReader(toInputStream(ippBuf)).next();
+    }
+
+    @Test
+    public void testGetResponseFromStream() throws IOException {
+        ByteBuffer ippBuf = IppWriter.writeHeader(ByteBuffer.allocate(64), (short) 0x0000, 7);
+        ippBuf = IppWriter.writeTag(ippBuf, (byte) 0x02);
+        ippBuf = IppWriter.writeNoValue(ippBuf, (byte) 0x13, "job-name");
+        ippBuf = IppWriter.writeInteger(ippBuf, (byte) 0x21, "job-id", 815);
+        ippBuf = IppWriter.writeTag(ippBuf, (byte) 0x03);
+        IppResult result = new IppResponse().getResponse(toInputStream(ippBuf));
+        assertEquals(7, result.getRequestId());
+        assertEquals(1, result.getAttributeGroupList().size());
+        assertEquals("815", result.getAttributeGroup("job-attributes-tag").getAttribute("job-id").getValue());
+        assertTrue(result.getAttributeGroup("job-attributes-tag").getAttribute("job-name").getAttributeValue()
+                .isEmpty());
+    }
+
+    private static ByteArrayInputStream toInputStream(ByteBuffer ippBuf) {
+        return new ByteArrayInputStream(ippBuf.array(), 0, ippBuf.position());
+    }
+
+}
@@ -3,6 +3,7 @@ package ch.ethz.vppserver.ippclient;
 import org.apache.commons.io.FileUtils;
 import org.cups4j.ipp.attributes.Attribute;
 import org.cups4j.ipp.attributes.AttributeGroup;
+import org.cups4j.ipp.attributes.AttributeValue;
 import org.junit.Test;
 
 import java.io.File;
@@ -33,6 +34,33 @@ public class IppResponseTest {
         assertEquals("Got a printer-uri attribute but no job-id.", attr.getAttributeValue().get(0).getValue());
     }
 
+    @Test
+    public void testGetResponseTags() throws IOException {
+        IppResult ippResult = readIppResponse("IppResponse400.bin");
+        Attribute attr = ippResult.getAttributeGroup("operation-attributes-tag").getAttribute("attributes-charset");
+        AttributeValue value = attr.getAttributeValue().get(0);
+        assertEquals(0x47, value.getTagCode());
+        assertEquals("0x47", value.getTag());
+        assertEquals("charset", value.getTagName());
+    }
+
+    @Test
+    public void testGetResponseEnumNames() throws IOException {
+        ByteBuffer ippBuf = IppWriter.writeHeader(ByteBuffer.allocate(64), (short) 0x0000, 1);
+        ippBuf = IppWriter.writeTag(ippBuf, (byte) 0x04);
+        ippBuf = IppWriter.writeInteger(ippBuf, (byte) 0x23, "printer-state", 3);
+        ippBuf = IppWriter.writeInteger(ippBuf, (byte) 0x23, "operations-supported", 0x0002);
+        ippBuf = IppWriter.writeInteger(ippBuf, (byte) 0x23, null, 0x4002);
+        ippBuf = IppWriter.writeTag(ippBuf, (byte) 0x03);
+        ippBuf.flip();
+        IppResult ippResult = ippResponse.getResponse(ippBuf);
+        assertThat(ippResult.getIppStatusResponse(), containsString("successful-ok"));
+        AttributeGroup group = ippResult.getAttributeGroup("printer-attributes-tag");
+        assertEquals("idle", group.getAttribute("printer-state").getValue());
+        assertEquals("print-job,enum name not found in IANA list: 16386",
+                group.getAttribute("operations-supported").getValue());
+    }
+
     /**
      * The recorded response is a response with "Unauthorized" from a CUPS
      * server on a Mac with a HTTP status code 401. It should be translated
@@ -0,0 +1,42 @@
+package ch.ethz.vppserver.ippclient;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IppWriterTest {
+
+    @Test
+    public void testWriteString() throws Exception {
+        ByteBuffer ippBuf = ByteBuffer.allocate(8);
+        ippBuf = IppWriter.writeString(ippBuf, (byte) 0x44, "media", "iso_a4_210x297mm");
+        assertEquals(1 + 2 + 5 + 2 + 16, ippBuf.position());
+        assertEquals(16, ippBuf.getShort(8));
+    }
+
+    @Test
+    public void testWriteNonAscii() throws Exception {
+        String jobName = "Gr\u00fc\u00dfe";
+        byte[] expected = jobName.getBytes("UTF-8");
+        ByteBuffer ippBuf = IppWriter.writeString(ByteBuffer.allocate(32), (byte) 0x42, "job-name", jobName);
+        ippBuf.flip();
+        ippBuf.position(1 + 2 + 8);
+        assertEquals(expected.length, ippBuf.getShort());
+        byte[] value = new byte[ippBuf.remaining()];
+        ippBuf.get(value);
+        assertArrayEquals(expected, value);
+    }
+
+    @Test
+    public void testCachedNames() {
+        for (int i = 0; i <= IppWriter.MAX_CACHED_NAMES; i++) {
+            IppWriter.writeInteger(ByteBuffer.allocate(32), (byte) 0x21, "name-" + i, i);
+        }
+        assertTrue(IppWriter.getCachedNames() <= IppWriter.MAX_CACHED_NAMES);
+    }
+
+}
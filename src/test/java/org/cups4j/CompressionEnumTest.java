@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2026 Oliver Boehm
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details. You should have received a copy of
+ * the GNU Lesser General Public License along with this program; if not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.cups4j;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.cups4j.operations.ipp.IppPrintJobOperation;
+import org.cups4j.transport.Credentials;
+import org.cups4j.transport.CredentialsProvider;
+import org.cups4j.transport.HttpAuthenticator;
+import org.cups4j.transport.IppServerStub;
+import org.junit.Test;
+
+import ch.ethz.vppserver.ippclient.IppReader;
+import ch.ethz.vppserver.ippclient.IppResult;
+
+/**
+ * Unit tests for {@link CompressionEnum}.
+ */
+public class CompressionEnumTest {
+
+  private static final byte[] DOCUMENT = createDocument();
+
+  private static byte[] createDocument() {
+    StringBuilder buf = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      buf.append("%!PS line ").append(i).append('\n');
+    }
+    return buf.toString().getBytes();
+  }
+
+  @Test
+  public void testGzip() throws IOException {
+    byte[] compressed = IOUtils.toByteArray(CompressionEnum.GZIP.compress(new ByteArrayInputStream(DOCUMENT)));
+    assertTrue(compressed.length < DOCUMENT.length / 2);
+    byte[] uncompressed = IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+    assertArrayEquals(DOCUMENT, uncompressed);
+  }
+
+  @Test
+  public void testDeflate() throws IOException {
+    byte[] compressed = IOUtils.toByteArray(CompressionEnum.DEFLATE.compress(new ByteArrayInputStream(DOCUMENT)));
+    byte[] uncompressed = IOUtils.toByteArray(new InflaterInputStream(new ByteArrayInputStream(compressed),
+        new Inflater(true)));
+    assertArrayEquals(DOCUMENT, uncompressed);
+  }
+
+  /**
+   * An aborted upload closes the compressed stream before it is read
+   * completely. The document must be closed as well.
+   *
+   * @throws IOException in case of read errors
+   */
+  @Test
+  public void testCloseAbortedUpload() throws IOException {
+    for (CompressionEnum compression : Arrays.asList(CompressionEnum.GZIP, CompressionEnum.DEFLATE)) {
+      final AtomicBoolean closed = new AtomicBoolean();
+      InputStream document = new ByteArrayInputStream(DOCUMENT) {
+        @Override
+        public void close() {
+          closed.set(true);
+        }
+      };
+      InputStream compressed = compression.compress(document);
+      assertTrue(compressed.read(new byte[100]) > 0);
+      compressed.close();
+      assertTrue(compression + " should close the document", closed.get());
+    }
+  }
+
+  @Test
+  public void testSelect() {
+    assertEquals(CompressionEnum.GZIP, CompressionEnum.select(Arrays.asList("none", "deflate", "gzip")));
+    assertEquals(CompressionEnum.DEFLATE, CompressionEnum.select(Arrays.asList("none", "deflate")));
+    assertEquals(CompressionEnum.NONE, CompressionEnum.select(Collections.<String> emptyList()));
+  }
+
+  /**
+   * A failed "compression-supported" lookup must not disable the
+   * compression for good, a successful one is asked only once.
+   *
+   * @throws Exception in case of errors
+   */
+  @Test
+  public void testPrintCompressed() throws Exception {
+    IppServerStub server = new IppServerStub();
+    server.setKeywords("compression-supported", "none", "gzip");
+    server.setAuthorization("Basic dGVzdDp0ZXN0");
+    try {
+      CupsPrinter printer = new CupsPrinter(new URL(server.getURI("/printers/test").toString()), "test", false);
+      printer.setCompressionEnabled(true);
+      printer.print(new PrintJob.Builder(DOCUMENT).build());
+      assertEquals(2, server.getRequests().size());
+      server.setAuthorization(null);
+      printer.print(new PrintJob.Builder(DOCUMENT).build());
+      printer.print(new PrintJob.Builder(DOCUMENT).build());
+      assertEquals(5, server.getRequests().size());
+      assertEquals(Arrays.asList("none", "gzip"), printer.getCompressionSupported());
+      assertGzipUpload(server.getRequests().get(3));
+      assertGzipUpload(server.getRequests().get(4));
+    } finally {
+      server.close();
+    }
+  }
+
+  /**
+   * A compressed upload which is answered with "401 Unauthorized" is
+   * compressed and sent again with the credentials.
+   *
+   * @throws Exception in case of errors
+   */
+  @Test
+  public void testCompressedUploadIsRepeated() throws Exception {
+    IppServerStub server = new IppServerStub();
+    server.setAuthorization("Basic dGVzdDp0ZXN0");
+    try {
+      IppPrintJobOperation op = new IppPrintJobOperation(server.getPort());
+      op.setAuthenticator(new HttpAuthenticator(new CredentialsProvider() {
+        public Credentials getCredentials(URI uri, String realm) {
+          return new Credentials("test", "test");
+        }
+      }));
+      op.setCompression(CompressionEnum.GZIP);
+      Map<String, String> attributes = new HashMap<String, String>();
+      attributes.put("requesting-user-name", "test");
+      attributes.put("compression", CompressionEnum.GZIP.getKeyword());
+      IppResult result = op.request(new URL(server.getURI("/printers/test").toString()), attributes,
+          new ByteArrayInputStream(DOCUMENT));
+      assertEquals(200, result.getHttpStatusCode());
+      assertEquals(2, server.getRequests().size());
+      assertGzipUpload(server.getRequests().get(1));
+    } finally {
+      server.close();
+    }
+  }
+
+  private static void assertGzipUpload(byte[] request) throws IOException {
+    BufferedInputStream istream = new BufferedInputStream(new ByteArrayInputStream(request));
+    IppReader reader = new IppReader(istream);
+    String compression = null;
+    for (IppReader.Event event = reader.next(); event != IppReader.Event.END; event = reader.next()) {
+      if ((event == IppReader.Event.ATTRIBUTE) && "compression".equals(reader.getName())) {
+        compression = reader.getString();
+      }
+    }
+    assertEquals("gzip", compression);
+    assertArrayEquals(DOCUMENT, IOUtils.toByteArray(new GZIPInputStream(istream)));
+  }
+
+}
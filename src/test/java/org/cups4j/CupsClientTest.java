@@ -1,9 +1,26 @@
 package org.cups4j;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import org.cups4j.transport.ChannelTransport;
+import org.cups4j.transport.CircuitOpenException;
+import org.cups4j.transport.IppServerStub;
+import org.cups4j.transport.RetryPolicy;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -37,4 +54,242 @@ public class CupsClientTest {
     assertFalse(printers.isEmpty());
   }
 
+  @Test
+  public void testAsyncOperations() throws Exception {
+    IppServerStub server = new IppServerStub();
+    CupsClient stubClient = new CupsClient("localhost", server.getPort());
+    try {
+      List<CupsPrinter> printers = stubClient.getPrintersAsync().get();
+      assertTrue(printers.isEmpty());
+      assertTrue(stubClient.cancelJobAsync(42).get());
+      assertEquals(3, server.getRequests().size());
+    } finally {
+      stubClient.close();
+      server.close();
+    }
+  }
+
+  @Test(expected = ExecutionException.class)
+  public void testAsyncOperationFailed() throws Exception {
+    IppServerStub server = new IppServerStub();
+    int port = server.getPort();
+    server.close();
+    CupsClient stubClient = new CupsClient("localhost", port);
+    try {
+      stubClient.getPrintersAsync().get();
+    } finally {
+      stubClient.close();
+    }
+  }
+
+  @Test
+  public void testNonBlockingJobOperations() throws Exception {
+    IppServerStub server = new IppServerStub();
+    CupsClient stubClient = new CupsClient("localhost", server.getPort(), "test", new ChannelTransport());
+    try {
+      CupsPrinter printer = new CupsPrinter(new URL(server.getURI("/printers/test").toString()), "test", false);
+      assertTrue(stubClient.cancelJobAsync(42).get());
+      assertTrue(stubClient.holdJobAsync(42).get());
+      assertTrue(stubClient.releaseJobAsync(42).get());
+      assertTrue(stubClient.getJobsAsync(printer, WhichJobsEnum.ALL, null, false).get().isEmpty());
+      assertEquals(4, server.getRequests().size());
+      assertEquals(1, server.getNumberOfConnections());
+    } finally {
+      stubClient.close();
+      server.close();
+    }
+  }
+
+  @Test
+  public void testNonBlockingRetry() throws Exception {
+    IppServerStub server = new IppServerStub();
+    server.setStatusCode(503);
+    CupsClient stubClient = new CupsClient("localhost", server.getPort(), "test", new ChannelTransport());
+    stubClient.setRetryPolicy(RetryPolicy.builder().maxAttempts(3).backoff(1, 10, TimeUnit.MILLISECONDS).build());
+    try {
+      CupsPrinter printer = new CupsPrinter(new URL(server.getURI("/printers/test").toString()), "test", false);
+      try {
+        stubClient.getJobsAsync(printer, WhichJobsEnum.ALL, null, false).get();
+        fail("503 expected");
+      } catch (ExecutionException expected) {
+        assertTrue(expected.getCause() instanceof IOException);
+        assertEquals("idempotent operation should be repeated", 3, server.getRequests().size());
+      }
+      try {
+        stubClient.cancelJobAsync(42).get();
+        fail("503 expected");
+      } catch (ExecutionException expected) {
+        assertEquals("cancel should not be repeated", 4, server.getRequests().size());
+      }
+    } finally {
+      stubClient.close();
+      server.close();
+    }
+  }
+
+  @Test
+  public void testNonBlockingAuthentication() throws Exception {
+    IppServerStub server = new IppServerStub();
+    String token = Base64.getEncoder().encodeToString("Mufasa:Circle Of Life".getBytes("UTF-8"));
+    server.setAuthorization("Basic " + token);
+    CupsClient stubClient = new CupsClient("localhost", server.getPort(), "test", new ChannelTransport());
+    stubClient.setCredentials("Mufasa", "Circle Of Life");
+    try {
+      assertTrue(stubClient.cancelJobAsync(42).get());
+      assertEquals(2, server.getRequests().size());
+      assertTrue(stubClient.cancelJobAsync(43).get());
+      assertEquals(3, server.getRequests().size());
+    } finally {
+      stubClient.close();
+      server.close();
+    }
+  }
+
+  @Test
+  public void testNonBlockingCancel() throws Exception {
+    IppServerStub server = new IppServerStub();
+    server.setDelay(500);
+    CupsClient stubClient = new CupsClient("localhost", server.getPort(), "test", new ChannelTransport());
+    try {
+      CompletableFuture<Boolean> future = stubClient.cancelJobAsync(42);
+      Thread.sleep(100);
+      assertTrue(future.cancel(true));
+      server.setDelay(0);
+      assertTrue(stubClient.cancelJobAsync(43).get());
+      assertEquals("aborted connection should not be reused", 2, server.getNumberOfConnections());
+    } finally {
+      stubClient.close();
+      server.close();
+    }
+  }
+
+  @Test
+  public void testCredentialsAreCached() throws Exception {
+    IppServerStub server = new IppServerStub();
+    String token = Base64.getEncoder().encodeToString("Mufasa:Circle Of Life".getBytes("UTF-8"));
+    server.setAuthorization("Basic " + token);
+    CupsClient stubClient = new CupsClient("localhost", server.getPort());
+    stubClient.setCredentials("Mufasa", "Circle Of Life");
+    try {
+      stubClient.getDefaultPrinter();
+      assertEquals(2, server.getRequests().size());
+      stubClient.getDefaultPrinter();
+      assertEquals(3, server.getRequests().size());
+    } finally {
+      stubClient.close();
+      server.close();
+    }
+  }
+
+  @Test
+  public void testRetryAndCircuitBreaker() throws Exception {
+    IppServerStub server = new IppServerStub();
+    server.setStatusCode(503);
+    CupsClient stubClient = new CupsClient("localhost", server.getPort());
+    stubClient.setRetryPolicy(RetryPolicy.builder().maxAttempts(3).backoff(1, 10, TimeUnit.MILLISECONDS).build());
+    try {
+      try {
+        stubClient.getDefaultPrinter();
+        fail("503 expected");
+      } catch (IOException expected) {
+        assertEquals("idempotent operation should be repeated", 3, server.getRequests().size());
+      }
+      try {
+        stubClient.cancelJob(42);
+        fail("503 expected");
+      } catch (IOException expected) {
+        assertEquals("cancel should not be repeated", 4, server.getRequests().size());
+      }
+      try {
+        stubClient.getDefaultPrinter();
+        fail("circuit should be open after 5 failures");
+      } catch (CircuitOpenException expected) {
+        LOG.info("Expected: {}", expected.getMessage());
+      }
+      assertEquals(5, server.getRequests().size());
+      assertTrue(stubClient.getCircuitBreaker().isOpen(server.getURI("/")));
+    } finally {
+      stubClient.close();
+      server.close();
+    }
+  }
+
+  @Test
+  public void testRequestIdIsVerified() throws Exception {
+    IppServerStub server = new IppServerStub();
+    CupsClient stubClient = new CupsClient("localhost", server.getPort());
+    stubClient.setRetryPolicy(RetryPolicy.NONE);
+    try {
+      stubClient.getDefaultPrinter();
+      server.setWrongRequestId(true);
+      try {
+        stubClient.getDefaultPrinter();
+        fail("ProtocolException expected");
+      } catch (ProtocolException expected) {
+        LOG.info("Expected: {}", expected.getMessage());
+      }
+    } finally {
+      stubClient.close();
+      server.close();
+    }
+  }
+
+  @Test
+  public void testWrongRequestIdIsRetried() throws Exception {
+    IppServerStub server = new IppServerStub();
+    server.setWrongRequestId(true);
+    CupsClient stubClient = new CupsClient("localhost", server.getPort());
+    stubClient.setRetryPolicy(RetryPolicy.builder().maxAttempts(3).backoff(1, 10, TimeUnit.MILLISECONDS).build());
+    try {
+      try {
+        stubClient.getDefaultPrinter();
+        fail("ProtocolException expected");
+      } catch (ProtocolException expected) {
+        assertEquals("idempotent operation should be repeated", 3, server.getRequests().size());
+      }
+      assertFalse("a stale response should not open the circuit",
+          stubClient.getCircuitBreaker().isOpen(server.getURI("/")));
+    } finally {
+      stubClient.close();
+      server.close();
+    }
+  }
+
+  @Test
+  public void testBulkOperations() throws Exception {
+    IppServerStub server = new IppServerStub();
+    CupsClient stubClient = new CupsClient("localhost", server.getPort());
+    stubClient.setExecutionMode(ExecutionModeEnum.AUTO);
+    stubClient.setMaxRequestsPerHost(2);
+    try {
+      CupsPrinter printer = new CupsPrinter(new URL(server.getURI("/printers/test").toString()), "test", false);
+      List<PrintJob> jobs = new ArrayList<PrintJob>();
+      for (int i = 0; i < 10; i++) {
+        jobs.add(new PrintJob.Builder(("job " + i).getBytes()).jobName("job" + i).build());
+      }
+      List<PrintRequestResult> results = stubClient.printAllAsync(printer, jobs).get();
+      assertEquals(10, results.size());
+      Map<Integer, Boolean> cancelled = stubClient.cancelJobsAsync(Arrays.asList(1, 2, 3)).get();
+      assertEquals(3, cancelled.size());
+      assertTrue(cancelled.get(2));
+      assertEquals(13, server.getRequests().size());
+    } finally {
+      stubClient.close();
+      server.close();
+    }
+  }
+
+  @Test
+  public void testPlatformThreads() throws Exception {
+    IppServerStub server = new IppServerStub();
+    CupsClient stubClient = new CupsClient("localhost", server.getPort());
+    stubClient.setExecutionMode(ExecutionModeEnum.PLATFORM_THREADS);
+    try {
+      assertTrue(stubClient.getJobsOfAllPrintersAsync(WhichJobsEnum.ALL, null, false).get().isEmpty());
+    } finally {
+      stubClient.close();
+      server.close();
+    }
+  }
+
 }
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2026 Oliver Boehm
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details. You should have received a copy of
+ * the GNU Lesser General Public License along with this program; if not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.cups4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.cups4j.transport.IppServerStub;
+import org.cups4j.transport.RetryPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CupsClusterClient} class.
+ */
+public class CupsClusterClientTest {
+
+  private IppServerStub server1;
+  private IppServerStub server2;
+  private CupsClient client1;
+  private CupsClient client2;
+  private CupsClusterClient cluster;
+
+  @Before
+  public void setUpCluster() throws Exception {
+    server1 = new IppServerStub();
+    server2 = new IppServerStub();
+    client1 = new CupsClient("localhost", server1.getPort());
+    client2 = new CupsClient("localhost", server2.getPort());
+    client1.setRetryPolicy(RetryPolicy.NONE);
+    client2.setRetryPolicy(RetryPolicy.NONE);
+    cluster = new CupsClusterClient(Arrays.asList(client1, client2));
+  }
+
+  @After
+  public void tearDownCluster() {
+    cluster.close();
+    server1.close();
+    server2.close();
+  }
+
+  @Test
+  public void testLoadIsDistributed() throws Exception {
+    for (int i = 0; i < 4; i++) {
+      assertTrue(cluster.getPrinters().isEmpty());
+    }
+    assertFalse(server1.getRequests().isEmpty());
+    assertFalse(server2.getRequests().isEmpty());
+  }
+
+  @Test
+  public void testFailover() throws Exception {
+    server1.close();
+    for (int i = 0; i < 4; i++) {
+      assertTrue(cluster.getPrinters().isEmpty());
+    }
+    assertFalse(cluster.getHealth().get(client1));
+    assertTrue(cluster.getHealth().get(client2));
+    int requests = server2.getRequests().size();
+    cluster.getPrinters();
+    assertEquals("unhealthy server should be avoided", requests + 2, server2.getRequests().size());
+  }
+
+  @Test
+  public void testHedging() throws Exception {
+    server1.setDelay(3000);
+    cluster.enableHedging(0.95, 50, TimeUnit.MILLISECONDS);
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < 2; i++) {
+      assertTrue(cluster.getPrinters().isEmpty());
+    }
+    long elapsed = System.currentTimeMillis() - start;
+    assertTrue("stalled server should be hedged, but took " + elapsed + " ms", elapsed < 3000);
+    assertFalse(server2.getRequests().isEmpty());
+  }
+
+  @Test
+  public void testHedgeDelayWithoutSamples() {
+    cluster.enableHedging(0.99, 20, TimeUnit.MILLISECONDS);
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(20), cluster.getHedgeDelay());
+  }
+
+  @Test
+  public void testCheckHealth() throws Exception {
+    server2.close();
+    cluster.checkHealth();
+    assertTrue(cluster.getHealth().get(client1));
+    assertFalse(cluster.getHealth().get(client2));
+  }
+
+}
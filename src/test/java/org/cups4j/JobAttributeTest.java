@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2026 Oliver Boehm
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details. You should have received a copy of
+ * the GNU Lesser General Public License along with this program; if not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.cups4j;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cups4j.operations.ipp.IppPrintJobOperation;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link JobAttribute}.
+ */
+public class JobAttributeTest {
+
+  @Test
+  public void testSameEncodingAsJobAttributesString() throws Exception {
+    Map<String, String> map = new HashMap<String, String>();
+    map.put("requesting-user-name", "test");
+    map.put("job-attributes", "copies:integer:2#orientation-requested:enum:4#media:keyword:iso_a4_210x297mm"
+        + "#page-ranges:setOfRangeOfInteger:1-3,5-5#printer-resolution:resolution:600,600,3"
+        + "#job-sheets:name:none#ipp-attribute-fidelity:boolean:true");
+    byte[] expected = getIppHeader(new IppPrintJobOperation(), map);
+
+    map.remove("job-attributes");
+    IppPrintJobOperation op = new IppPrintJobOperation();
+    op.setJobAttributes(Arrays.asList(JobAttribute.integer("copies", 2),
+        JobAttribute.enumeration("orientation-requested", 4), JobAttribute.keyword("media", "iso_a4_210x297mm"),
+        JobAttribute.setOfRangeOfInteger("page-ranges", "1-3, 5"),
+        JobAttribute.resolution("printer-resolution", "600,600,3"), JobAttribute.name("job-sheets", "none"),
+        JobAttribute.bool("ipp-attribute-fidelity", true)));
+    assertArrayEquals(expected, getIppHeader(op, map));
+  }
+
+  @Test
+  public void testPrintJobAttributes() {
+    PrintJob job = new PrintJob.Builder(new byte[0]).copies(2).duplex(true).pageRanges("1-")
+        .jobAttributes(JobAttribute.keyword("print-quality", "high")).build();
+    List<JobAttribute> attributes = job.getJobAttributes();
+    assertEquals("[copies, orientation-requested, output-mode, sides, print-quality]", attributes.toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRange() {
+    JobAttribute.setOfRangeOfInteger("page-ranges", "5-3");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidResolution() {
+    JobAttribute.resolution("printer-resolution", "600dpi");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingValue() {
+    JobAttribute.keyword("media");
+  }
+
+  private static byte[] getIppHeader(IppPrintJobOperation op, Map<String, String> map) throws Exception {
+    ByteBuffer buffer = op.getIppHeader(new URL("http://localhost:631/printers/test"), map);
+    byte[] header = new byte[buffer.remaining()];
+    buffer.get(header);
+    // clear the request-id
+    Arrays.fill(header, 4, 8, (byte) 0);
+    return header;
+  }
+
+}
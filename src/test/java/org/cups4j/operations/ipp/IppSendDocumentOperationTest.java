@@ -3,22 +3,32 @@ package org.cups4j.operations.ipp;
 import ch.ethz.vppserver.ippclient.IppResponse;
 import ch.ethz.vppserver.ippclient.IppResult;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.cups4j.CupsPrinter;
 import org.cups4j.CupsPrinterTest;
 import org.cups4j.ipp.attributes.Attribute;
 import org.cups4j.ipp.attributes.AttributeGroup;
+import org.cups4j.transport.HttpsUpgradeCache;
+import org.cups4j.transport.IppRequest;
+import org.cups4j.transport.IppTransport;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.net.URI;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -139,6 +149,53 @@ public class IppSendDocumentOperationTest extends AbstractIppOperationTest {
         return bytes;
     }
 
+    /**
+     * After a "426 Upgrade Required" the request should be repeated with
+     * HTTPS (with the complete document) and all following requests to the
+     * same host should go directly to HTTPS.
+     *
+     * @throws IOException in case of I/O problems
+     */
+    @Test
+    public void testUpgradeToHttps() throws IOException {
+        UpgradeRequiredTransport transport = new UpgradeRequiredTransport();
+        HttpsUpgradeCache cache = new HttpsUpgradeCache();
+        URL printerURL = createURL("http://localhost:631/printers/test-printer");
+        IppResult result = createOperation(transport, cache).request(printerURL, setUpAttributes(),
+                new ByteArrayInputStream("document".getBytes()));
+        assertEquals(200, result.getHttpStatusCode());
+        assertEquals(Arrays.asList("http", "https"), transport.schemes);
+        assertEquals(Arrays.asList("document", "document"), transport.documents);
+        createOperation(transport, cache).request(printerURL, setUpAttributes(),
+                new ByteArrayInputStream("next".getBytes()));
+        assertEquals(Arrays.asList("http", "https", "https"), transport.schemes);
+    }
+
+    /**
+     * A stream which was already sent cannot be repeated. But the next
+     * request should go directly to HTTPS.
+     *
+     * @throws IOException in case of I/O problems
+     */
+    @Test
+    public void testUpgradeWithConsumedStream() throws IOException {
+        UpgradeRequiredTransport transport = new UpgradeRequiredTransport();
+        HttpsUpgradeCache cache = new HttpsUpgradeCache();
+        URL printerURL = createURL("http://localhost:631/printers/test-printer");
+        InputStream document = new BufferedInputStream(new ByteArrayInputStream("document".getBytes()));
+        IppResult result = createOperation(transport, cache).request(printerURL, setUpAttributes(), document);
+        assertEquals(426, result.getHttpStatusCode());
+        assertEquals(Arrays.asList("http"), transport.schemes);
+        assertTrue(cache.isUpgraded(URI.create("http://localhost:631/")));
+    }
+
+    private static IppSendDocumentOperation createOperation(IppTransport transport, HttpsUpgradeCache cache) {
+        IppSendDocumentOperation op = new IppSendDocumentOperation(631, 4711, true);
+        op.setTransport(transport);
+        op.setUpgradeCache(cache);
+        return op;
+    }
+
     @Test
     public void testRequest() throws Exception {
         CupsPrinter printer = CupsPrinterTest.getPrinter();
@@ -160,4 +217,32 @@ public class IppSendDocumentOperationTest extends AbstractIppOperationTest {
         assertEquals(200, ippResult.getHttpStatusCode());
     }
 
+
+
+    /**
+     * Transport which answers HTTP requests with "426 Upgrade Required".
+     */
+    private static class UpgradeRequiredTransport implements IppTransport {
+
+        private final List<String> schemes = new ArrayList<String>();
+        private final List<String> documents = new ArrayList<String>();
+
+        @Override
+        public IppResult send(IppRequest request) throws IOException {
+            String scheme = request.getURI().getScheme();
+            schemes.add(scheme);
+            if (request.getDocument() != null) {
+                documents.add(IOUtils.toString(request.getDocument(), "UTF-8"));
+            }
+            IppResult result = new IppResult();
+            result.setHttpStatusCode("http".equals(scheme) ? 426 : 200);
+            return result;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import org.cups4j.CupsClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link CancellationToken} class.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class CancellationTokenTest {
+
+    private IppServerStub server;
+    private CupsClient client;
+
+    @Before
+    public void setUpClient() throws Exception {
+        server = new IppServerStub();
+        client = new CupsClient("localhost", server.getPort());
+    }
+
+    @After
+    public void tearDownClient() {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        server.setDelay(1500);
+        CancellationToken token = CancellationToken.withTimeout(200, TimeUnit.MILLISECONDS);
+        long start = System.currentTimeMillis();
+        CancellationToken.Scope scope = token.activate();
+        try {
+            client.getDefaultPrinter();
+            fail("deadline should be exceeded");
+        } catch (OperationCancelledException expected) {
+            long elapsed = System.currentTimeMillis() - start;
+            assertTrue("cancelled after " + elapsed + " ms", elapsed < 1000);
+        } finally {
+            scope.close();
+        }
+        assertTrue(token.isCancelled());
+        assertNull(CancellationToken.current());
+    }
+
+    @Test
+    public void testCancelledBeforeRequest() throws Exception {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        CancellationToken.Scope scope = token.activate();
+        try {
+            client.getPrinters();
+            fail("token is cancelled");
+        } catch (OperationCancelledException expected) {
+            assertTrue(server.getRequests().isEmpty());
+        } finally {
+            scope.close();
+        }
+    }
+
+    @Test
+    public void testNotCancelled() throws Exception {
+        CancellationToken token = CancellationToken.withTimeout(1, TimeUnit.MINUTES);
+        CancellationToken.Scope scope = token.activate();
+        try {
+            client.getPrinters();
+        } finally {
+            scope.close();
+        }
+        assertFalse(token.isCancelled());
+        assertTrue(token.getRemaining(TimeUnit.SECONDS) > 0);
+    }
+
+    @Test
+    public void testCancelOperation() throws Exception {
+        server.setDelay(1500);
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    client.getPrinters();
+                } catch (Exception ex) {
+                    failure.set(ex);
+                }
+            }
+        });
+        long start = System.currentTimeMillis();
+        thread.start();
+        while (server.getRequests().isEmpty() && (System.currentTimeMillis() - start < 1000)) {
+            Thread.sleep(10);
+        }
+        client.cancelOperation();
+        thread.join(5000);
+        assertNotNull("operation should be aborted", failure.get());
+        assertTrue(failure.get() instanceof IOException);
+        assertTrue(System.currentTimeMillis() - start < 1500);
+    }
+
+}
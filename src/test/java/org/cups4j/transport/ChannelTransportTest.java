@@ -0,0 +1,572 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import ch.ethz.vppserver.ippclient.IppResult;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.input.NullInputStream;
+import org.cups4j.CupsClient;
+import org.cups4j.PrintJob;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link ChannelTransport} class.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class ChannelTransportTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChannelTransportTest.class);
+    private static final long DOCUMENT_SIZE = 64L * 1024 * 1024;
+
+    private IppServerStub server;
+    private ChannelTransport transport;
+
+    @Before
+    public void setUpServer() throws IOException {
+        server = new IppServerStub();
+        transport = new ChannelTransport();
+    }
+
+    @After
+    public void tearDownServer() {
+        transport.close();
+        server.close();
+    }
+
+    /**
+     * The connection should be kept alive and reused for the next requests.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testConnectionReuse() throws Exception {
+        CupsClient client = new CupsClient("localhost", server.getPort(), "test", transport);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(client.getPrinters().isEmpty());
+        }
+        assertTrue(server.getRequests().size() >= 5);
+        assertEquals(1, server.getNumberOfConnections());
+    }
+
+    /**
+     * A document of unknown size is sent with chunked transfer encoding.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testSendWithDocument() throws Exception {
+        byte[] document = new byte[100000];
+        for (int i = 0; i < document.length; i++) {
+            document[i] = (byte) ('a' + i % 26);
+        }
+        IppResult result = transport.send(new IppRequest(server.getURI("/printers/test"),
+                ByteBuffer.wrap("header".getBytes()), new ByteArrayInputStream(document)));
+        assertEquals(200, result.getHttpStatusCode());
+        byte[] received = server.getRequests().get(0);
+        assertEquals(6 + document.length, received.length);
+        assertEquals("headerabc", new String(received, 0, 9));
+    }
+
+    /**
+     * A document file should be sent with the exact content length.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testSendFile() throws Exception {
+        File file = File.createTempFile("document", ".txt");
+        try {
+            FileUtils.writeStringToFile(file, "document", StandardCharsets.UTF_8);
+            PrintJob printJob = new PrintJob.Builder(file.toPath()).build();
+            IppResult result = transport.send(new IppRequest(server.getURI("/printers/test"),
+                    ByteBuffer.wrap("header".getBytes()), printJob.getDocument()));
+            assertEquals(200, result.getHttpStatusCode());
+            assertEquals("headerdocument", new String(server.getRequests().get(0)));
+            assertEquals("14", server.getContentLengths().get(0));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * If the server rejects the request with "Expect: 100-continue" the
+     * document should not be sent at all.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testRejectedBeforeUpload() throws Exception {
+        CountingInputStream document = new CountingInputStream(new NullInputStream(DOCUMENT_SIZE));
+        IppResult result = sendToRejectingServer(document);
+        assertEquals(401, result.getHttpStatusCode());
+        assertEquals(0, document.getByteCount());
+    }
+
+    /**
+     * Without "Expect: 100-continue" the upload should be aborted if the
+     * server answers early.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testRejectedDuringUpload() throws Exception {
+        transport.setExpectContinueTimeout(0);
+        CountingInputStream document = new CountingInputStream(new NullInputStream(DOCUMENT_SIZE));
+        IppResult result = sendToRejectingServer(document);
+        assertEquals(401, result.getHttpStatusCode());
+        assertTrue(document.getByteCount() < DOCUMENT_SIZE);
+    }
+
+    private IppResult sendToRejectingServer(InputStream document) throws Exception {
+        final ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread serverThread = new Thread(new Runnable() {
+            public void run() {
+                rejectRequest(serverSocket, done);
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+        try {
+            return transport.send(new IppRequest(
+                    URI.create("http://localhost:" + serverSocket.getLocalPort() + "/printers/test"),
+                    ByteBuffer.wrap("header".getBytes()), document));
+        } finally {
+            done.countDown();
+            serverSocket.close();
+        }
+    }
+
+    private static void rejectRequest(ServerSocket serverSocket, CountDownLatch done) {
+        try {
+            Socket socket = serverSocket.accept();
+            try {
+                BufferedReader reader =
+                        new BufferedReader(new InputStreamReader(socket.getInputStream(), "ISO-8859-1"));
+                for (String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+                    LOG.debug("Request header: {}", line);
+                }
+                socket.getOutputStream().write(
+                        "HTTP/1.1 401 Unauthorized\r\nContent-Length: 0\r\n\r\n".getBytes("ISO-8859-1"));
+                socket.getOutputStream().flush();
+                done.await(10, TimeUnit.SECONDS);
+            } finally {
+                socket.close();
+            }
+        } catch (IOException ex) {
+            LOG.debug("Server socket was closed:", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A request on a reused connection which has reached the server must not
+     * be sent again if the server does not answer in time. Otherwise
+     * operations like Create-Job would run twice.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testNoResendAfterTimeout() throws Exception {
+        final ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        final AtomicInteger requests = new AtomicInteger();
+        Thread serverThread = new Thread(new Runnable() {
+            public void run() {
+                answerFirstRequestOnly(serverSocket, requests);
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+        ChannelTransport impatient = new ChannelTransport(500, 1);
+        URI uri = URI.create("http://localhost:" + serverSocket.getLocalPort() + "/printers/test");
+        try {
+            impatient.send(new IppRequest(uri, ByteBuffer.wrap(new byte[0])));
+            impatient.send(new IppRequest(uri, ByteBuffer.wrap(new byte[0])));
+            fail("timeout expected");
+        } catch (SocketTimeoutException expected) {
+            LOG.debug("Timeout as expected:", expected);
+        } finally {
+            impatient.close();
+            serverSocket.close();
+        }
+        assertEquals(2, requests.get());
+    }
+
+    private static void answerFirstRequestOnly(ServerSocket serverSocket, AtomicInteger requests) {
+        try {
+            while (true) {
+                Socket socket = serverSocket.accept();
+                BufferedReader reader =
+                        new BufferedReader(new InputStreamReader(socket.getInputStream(), "ISO-8859-1"));
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (line.isEmpty() && (requests.incrementAndGet() == 1)) {
+                        socket.getOutputStream().write(
+                                "HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n".getBytes("ISO-8859-1"));
+                        socket.getOutputStream().flush();
+                    }
+                }
+                socket.close();
+            }
+        } catch (IOException ex) {
+            LOG.debug("Server socket was closed:", ex);
+        }
+    }
+
+    /**
+     * An upload should get its own connection and should not close the idle
+     * connection which is still good for the next request.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testUploadKeepsIdleConnection() throws Exception {
+        URI uri = server.getURI("/printers/test");
+        transport.send(new IppRequest(uri, ByteBuffer.wrap(new byte[0])));
+        transport.send(new IppRequest(uri, ByteBuffer.wrap("header".getBytes()),
+                new ByteArrayInputStream("document".getBytes())));
+        transport.send(new IppRequest(uri, ByteBuffer.wrap(new byte[0])));
+        List<Integer> ports = server.getRemotePorts();
+        assertEquals(3, ports.size());
+        assertNotEquals(ports.get(0), ports.get(1));
+        assertEquals(ports.get(0), ports.get(2));
+    }
+
+    /**
+     * If the server closes a reused connection after it has read the request
+     * a non-idempotent operation like Create-Job must not be sent again.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testNoResendOfSentCreateJob() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        try {
+            sendTwiceToClosingServer((short) 0x0005, requests);
+            fail("IOException expected");
+        } catch (IOException expected) {
+            LOG.debug("Create-Job was not sent again:", expected);
+        }
+        assertEquals(2, requests.get());
+    }
+
+    /**
+     * An idempotent operation like Get-Printer-Attributes can be sent again
+     * on a new connection.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testResendOfSentGetPrinterAttributes() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        IppResult result = sendTwiceToClosingServer((short) 0x000b, requests);
+        assertEquals(200, result.getHttpStatusCode());
+        assertEquals(3, requests.get());
+    }
+
+    /**
+     * The asynchronous send should not resend a Create-Job which has reached
+     * the server either.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testNoAsyncResendOfSentCreateJob() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        try {
+            sendTwiceToClosingServer((short) 0x0005, requests, true);
+            fail("IOException expected");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IOException);
+        }
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testAsyncResendOfSentGetPrinterAttributes() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        IppResult result = sendTwiceToClosingServer((short) 0x000b, requests, true);
+        assertEquals(200, result.getHttpStatusCode());
+        assertEquals(3, requests.get());
+    }
+
+    private IppResult sendTwiceToClosingServer(short operationId, AtomicInteger requests) throws Exception {
+        return sendTwiceToClosingServer(operationId, requests, false);
+    }
+
+    private IppResult sendTwiceToClosingServer(short operationId, final AtomicInteger requests, boolean async)
+            throws Exception {
+        final ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Thread serverThread = new Thread(new Runnable() {
+            public void run() {
+                closeAfterFirstRequest(serverSocket, requests);
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+        URI uri = URI.create("http://localhost:" + serverSocket.getLocalPort() + "/printers/test");
+        try {
+            if (async) {
+                transport.sendAsync(new IppRequest(uri, createIppHeader(operationId))).get();
+                return transport.sendAsync(new IppRequest(uri, createIppHeader(operationId))).get();
+            }
+            transport.send(new IppRequest(uri, createIppHeader(operationId)));
+            return transport.send(new IppRequest(uri, createIppHeader(operationId)));
+        } finally {
+            serverSocket.close();
+        }
+    }
+
+    private static ByteBuffer createIppHeader(short operationId) {
+        ByteBuffer ippHeader = ByteBuffer.allocate(8);
+        ippHeader.put((byte) 1).put((byte) 1).putShort(operationId).putInt(1);
+        ippHeader.flip();
+        return ippHeader;
+    }
+
+    private static void closeAfterFirstRequest(ServerSocket serverSocket, AtomicInteger requests) {
+        try {
+            while (true) {
+                Socket socket = serverSocket.accept();
+                InputStream istream = socket.getInputStream();
+                for (int n = 0; readRequest(istream); n++) {
+                    requests.incrementAndGet();
+                    if (n > 0) {
+                        break;
+                    }
+                    socket.getOutputStream().write(
+                            "HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n".getBytes("ISO-8859-1"));
+                    socket.getOutputStream().flush();
+                }
+                socket.close();
+            }
+        } catch (IOException ex) {
+            LOG.debug("Server socket was closed:", ex);
+        }
+    }
+
+    private static boolean readRequest(InputStream istream) throws IOException {
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            int ch = istream.read();
+            if (ch < 0) {
+                return false;
+            }
+            head.append((char) ch);
+        }
+        Matcher matcher = Pattern.compile("(?i)Content-Length: *(\\d+)").matcher(head);
+        if (matcher.find()) {
+            IOUtils.skipFully(istream, Long.parseLong(matcher.group(1)));
+        }
+        return true;
+    }
+
+    /**
+     * Asynchronous requests should be answered like synchronous requests
+     * and should reuse the connection.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testSendAsync() throws Exception {
+        URI uri = server.getURI("/printers/test");
+        for (int i = 0; i < 3; i++) {
+            IppResult result = transport.sendAsync(new IppRequest(uri, createIppHeader((short) 0x000b))).get();
+            assertEquals(200, result.getHttpStatusCode());
+        }
+        IppResult result = transport.send(new IppRequest(uri, createIppHeader((short) 0x000b)));
+        assertEquals(200, result.getHttpStatusCode());
+        assertEquals(4, server.getRequests().size());
+        assertEquals(1, server.getNumberOfConnections());
+    }
+
+    /**
+     * Many asynchronous requests can wait for the server at the same time
+     * without blocking the caller.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testSendAsyncDoesNotBlock() throws Exception {
+        final int n = 20;
+        final ServerSocket serverSocket = new ServerSocket(0, n, InetAddress.getLoopbackAddress());
+        final CountDownLatch answer = new CountDownLatch(1);
+        Thread serverThread = new Thread(new Runnable() {
+            public void run() {
+                answerAllRequestsAtOnce(serverSocket, n, answer);
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+        URI uri = URI.create("http://localhost:" + serverSocket.getLocalPort() + "/printers/test");
+        try {
+            List<CompletableFuture<IppResult>> futures = new ArrayList<CompletableFuture<IppResult>>();
+            for (int i = 0; i < n; i++) {
+                futures.add(transport.sendAsync(new IppRequest(uri, createIppHeader((short) 0x0009))));
+            }
+            Thread.sleep(100);
+            for (CompletableFuture<IppResult> f : futures) {
+                assertFalse(f.isDone());
+            }
+            answer.countDown();
+            for (CompletableFuture<IppResult> f : futures) {
+                IppResult result = f.get(10, TimeUnit.SECONDS);
+                assertEquals(200, result.getHttpStatusCode());
+                assertEquals(1, result.getRequestId());
+            }
+        } finally {
+            serverSocket.close();
+        }
+    }
+
+    private static void answerAllRequestsAtOnce(ServerSocket serverSocket, int n, CountDownLatch answer) {
+        List<Socket> sockets = new ArrayList<Socket>();
+        try {
+            for (int i = 0; i < n; i++) {
+                Socket socket = serverSocket.accept();
+                sockets.add(socket);
+                readRequest(socket.getInputStream());
+            }
+            answer.await(10, TimeUnit.SECONDS);
+            for (Socket socket : sockets) {
+                socket.getOutputStream().write(createChunkedResponse());
+                socket.getOutputStream().flush();
+            }
+            Thread.sleep(1000);
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        } catch (IOException ex) {
+            LOG.debug("Server socket was closed:", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A chunked response with a minimal IPP response (status successful-ok,
+     * request-id 1) which is split into two chunks.
+     */
+    private static byte[] createChunkedResponse() throws IOException {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        response.write("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n".getBytes("ISO-8859-1"));
+        response.write("4\r\n".getBytes("ISO-8859-1"));
+        response.write(new byte[]{1, 1, 0, 0});
+        response.write("\r\n5\r\n".getBytes("ISO-8859-1"));
+        response.write(new byte[]{0, 0, 0, 1, 3});
+        response.write("\r\n0\r\n\r\n".getBytes("ISO-8859-1"));
+        return response.toByteArray();
+    }
+
+    /**
+     * An asynchronous request should fail if the server does not answer in
+     * time.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testSendAsyncTimeout() throws Exception {
+        final ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread serverThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    Socket socket = serverSocket.accept();
+                    done.await(10, TimeUnit.SECONDS);
+                    socket.close();
+                } catch (IOException ex) {
+                    LOG.debug("Server socket was closed:", ex);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+        ChannelTransport impatient = new ChannelTransport(500, 1);
+        URI uri = URI.create("http://localhost:" + serverSocket.getLocalPort() + "/printers/test");
+        try {
+            impatient.sendAsync(new IppRequest(uri, createIppHeader((short) 0x000b))).get(10, TimeUnit.SECONDS);
+            fail("timeout expected");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof SocketTimeoutException);
+        } finally {
+            done.countDown();
+            impatient.close();
+            serverSocket.close();
+        }
+    }
+
+    @Test
+    public void testSendAsyncAfterClose() throws Exception {
+        transport.close();
+        try {
+            transport.sendAsync(new IppRequest(server.getURI("/printers/test"), createIppHeader((short) 0x000b))).get();
+            fail("IOException expected");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testStatusCode() throws Exception {
+        server.setStatusCode(426);
+        IppResult result = transport.send(new IppRequest(server.getURI("/printers/test"),
+                ByteBuffer.wrap(new byte[0])));
+        assertEquals(426, result.getHttpStatusCode());
+    }
+
+}
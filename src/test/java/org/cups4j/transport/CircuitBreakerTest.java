@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link CircuitBreaker} and {@link RetryPolicy} class.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class CircuitBreakerTest {
+
+    private static final URI URI_A = URI.create("http://hostA:631/printers/test");
+    private static final URI URI_B = URI.create("http://hostB:631/printers/test");
+
+    @Test
+    public void testOpenAfterThreshold() throws CircuitOpenException {
+        CircuitBreaker breaker = new CircuitBreaker(2, 1, TimeUnit.HOURS);
+        breaker.onFailure(URI_A);
+        breaker.acquire(URI_A);
+        breaker.onFailure(URI_A);
+        assertTrue(breaker.isOpen(URI_A));
+        assertFalse(breaker.isOpen(URI_B));
+        breaker.acquire(URI_B);
+        try {
+            breaker.acquire(URI_A);
+            fail("circuit for " + URI_A + " should be open");
+        } catch (CircuitOpenException expected) {
+            assertTrue(expected.getMessage().contains("hostA:631"));
+        }
+    }
+
+    @Test
+    public void testHalfOpen() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 50, TimeUnit.MILLISECONDS);
+        breaker.onFailure(URI_A);
+        assertTrue(breaker.isOpen(URI_A));
+        Thread.sleep(60);
+        breaker.acquire(URI_A);
+        try {
+            breaker.acquire(URI_A);
+            fail("only one trial request expected");
+        } catch (CircuitOpenException expected) {
+            breaker.onSuccess(URI_A);
+        }
+        assertFalse(breaker.isOpen(URI_A));
+        breaker.acquire(URI_A);
+    }
+
+    @Test
+    public void testSuccessResetsFailures() throws CircuitOpenException {
+        CircuitBreaker breaker = new CircuitBreaker(2, 1, TimeUnit.HOURS);
+        breaker.onFailure(URI_A);
+        breaker.onSuccess(URI_A);
+        breaker.onFailure(URI_A);
+        assertFalse(breaker.isOpen(URI_A));
+    }
+
+    @Test
+    public void testIdempotent() {
+        assertTrue(RetryPolicy.isIdempotent((short) 0x000b));
+        assertTrue(RetryPolicy.isIdempotent((short) 0x4002));
+        assertFalse(RetryPolicy.isIdempotent((short) 0x0002));
+        assertFalse(RetryPolicy.isIdempotent((short) 0x0008));
+    }
+
+    @Test
+    public void testBackoff() {
+        RetryPolicy policy = RetryPolicy.builder().backoff(100, 400, TimeUnit.MILLISECONDS).build();
+        for (int i = 0; i < 10; i++) {
+            assertBetween(50, 100, policy.getBackoff(2));
+            assertBetween(100, 200, policy.getBackoff(3));
+            assertBetween(200, 400, policy.getBackoff(5));
+        }
+    }
+
+    private static void assertBetween(long min, long max, long value) {
+        assertTrue(value + " not in [" + min + ", " + max + "]", (value >= min) && (value <= max));
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link HttpAuthenticator} class.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class HttpAuthenticatorTest {
+
+    private static final Credentials MUFASA = new Credentials("Mufasa", "Circle Of Life");
+    private static final URI URI_PRINTER = URI.create("http://localhost:631/printers/test");
+
+    /**
+     * The example of RFC 2617, section 3.5 (with POST instead of GET).
+     */
+    @Test
+    public void testDigestRfc2617() {
+        String response = HttpAuthenticator.digest(null, MUFASA, "testrealm@host.com",
+                "dcd98b7102dd2f0e8b11d0f600bfb0c093", "GET", "/dir/index.html", "auth", "00000001", "0a4f113b");
+        assertEquals("6629fae49393a05397450978507c4ef1", response);
+    }
+
+    @Test
+    public void testNoCredentials() {
+        HttpAuthenticator authenticator = new HttpAuthenticator();
+        assertFalse(authenticator.challenge(URI_PRINTER, Collections.singletonList("Basic realm=\"CUPS\"")));
+        IppRequest request = new IppRequest(URI_PRINTER, ByteBuffer.allocate(0));
+        assertFalse(authenticator.authorize(request));
+        assertNull(request.getHeaders().get("Authorization"));
+    }
+
+    @Test
+    public void testBasic() {
+        HttpAuthenticator authenticator = new HttpAuthenticator(new StaticProvider());
+        assertTrue(authenticator.challenge(URI_PRINTER, Collections.singletonList("Basic realm=\"CUPS\"")));
+        IppRequest request = new IppRequest(URI_PRINTER, ByteBuffer.allocate(0));
+        assertTrue(authenticator.authorize(request));
+        assertEquals("Basic TXVmYXNhOkNpcmNsZSBPZiBMaWZl", request.getHeaders().get("Authorization"));
+    }
+
+    @Test
+    public void testDigestPreferredAndNonceCountIncremented() {
+        HttpAuthenticator authenticator = new HttpAuthenticator(new StaticProvider());
+        assertTrue(authenticator.challenge(URI_PRINTER, Arrays.asList("Basic realm=\"CUPS\"",
+                "Digest realm=\"CUPS\", nonce=\"abc123\", qop=\"auth,auth-int\", opaque=\"xyz\"")));
+        IppRequest first = new IppRequest(URI_PRINTER, ByteBuffer.allocate(0));
+        IppRequest second = new IppRequest(URI_PRINTER, ByteBuffer.allocate(0));
+        authenticator.authorize(first);
+        authenticator.authorize(second);
+        String header = first.getHeaders().get("Authorization");
+        assertTrue(header, header.startsWith("Digest username=\"Mufasa\", realm=\"CUPS\", nonce=\"abc123\""));
+        assertTrue(header, header.contains("uri=\"/printers/test\""));
+        assertTrue(header, header.contains("opaque=\"xyz\""));
+        assertTrue(header, header.contains("qop=auth, nc=00000001"));
+        assertTrue(second.getHeaders().get("Authorization").contains("nc=00000002"));
+    }
+
+    @Test
+    public void testOtherHostIsNotAuthorized() {
+        HttpAuthenticator authenticator = new HttpAuthenticator(new StaticProvider());
+        authenticator.challenge(URI_PRINTER, Collections.singletonList("Basic realm=\"CUPS\""));
+        IppRequest request = new IppRequest(URI.create("http://otherhost:631/printers/test"), ByteBuffer.allocate(0));
+        assertFalse(authenticator.authorize(request));
+    }
+
+    @Test
+    public void testRealmsOfOneHost() {
+        HttpAuthenticator authenticator = new HttpAuthenticator(new CredentialsProvider() {
+            public Credentials getCredentials(URI uri, String realm) {
+                return "admin".equals(realm) ? new Credentials("root", "secret") : MUFASA;
+            }
+        });
+        authenticator.challenge(URI.create("http://localhost:631/admin"),
+                Collections.singletonList("Basic realm=\"admin\""));
+        authenticator.challenge(URI_PRINTER, Collections.singletonList("Basic realm=\"CUPS\""));
+        IppRequest admin = new IppRequest(URI.create("http://localhost:631/admin/"), ByteBuffer.allocate(0));
+        IppRequest printer = new IppRequest(URI.create("http://localhost:631/printers/other"), ByteBuffer.allocate(0));
+        assertTrue(authenticator.authorize(admin));
+        assertTrue(authenticator.authorize(printer));
+        assertEquals("Basic cm9vdDpzZWNyZXQ=", admin.getHeaders().get("Authorization"));
+        assertEquals("Basic TXVmYXNhOkNpcmNsZSBPZiBMaWZl", printer.getHeaders().get("Authorization"));
+    }
+
+    private static final class StaticProvider implements CredentialsProvider {
+        public Credentials getCredentials(URI uri, String realm) {
+            return MUFASA;
+        }
+    }
+
+}
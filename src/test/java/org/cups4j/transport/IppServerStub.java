@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import ch.ethz.vppserver.ippclient.IppTag;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import org.apache.commons.io.IOUtils;
+
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * The class IppServerStub is a small HTTP server which stands in for a
+ * CUPS server. It records the received requests and answers with a
+ * successful IPP response (or with the configured status code).
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class IppServerStub implements Closeable {
+
+    private final HttpServer server;
+    private final List<byte[]> requests = Collections.synchronizedList(new ArrayList<byte[]>());
+    private final List<String> contentLengths = Collections.synchronizedList(new ArrayList<String>());
+    private final List<Integer> remotePorts = Collections.synchronizedList(new ArrayList<Integer>());
+    private volatile int statusCode = 200;
+    private volatile String authorization;
+    private volatile long delay;
+    private volatile boolean wrongRequestId;
+    private volatile String keywordName;
+    private volatile String[] keywordValues;
+
+    public IppServerStub() throws IOException {
+        this(null);
+    }
+
+    /**
+     * Creates a stub which answers HTTPS requests if a SSL context is given.
+     *
+     * @param sslContext SSL context with the server certificate (or null)
+     * @throws IOException if the server cannot be started
+     */
+    public IppServerStub(SSLContext sslContext) throws IOException {
+        if (sslContext == null) {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        } else {
+            HttpsServer httpsServer = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+            httpsServer.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+            server = httpsServer;
+        }
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                handleExchange(exchange);
+            }
+        });
+        server.start();
+    }
+
+    private void handleExchange(HttpExchange exchange) throws IOException {
+        remotePorts.add(exchange.getRemoteAddress().getPort());
+        byte[] request = IOUtils.toByteArray(exchange.getRequestBody());
+        requests.add(request);
+        contentLengths.add(exchange.getRequestHeaders().getFirst("Content-Length"));
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if ((authorization != null) && !authorization.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"CUPS\"");
+            exchange.sendResponseHeaders(401, -1);
+            exchange.close();
+            return;
+        }
+        byte[] response = createResponse(request);
+        exchange.getResponseHeaders().set("Content-Type", "application/ipp");
+        exchange.sendResponseHeaders(statusCode, response.length);
+        OutputStream ostream = exchange.getResponseBody();
+        ostream.write(response);
+        ostream.close();
+    }
+
+    private byte[] createResponse(byte[] request) throws UnsupportedEncodingException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        IppTag.getOperation(buffer, (short) 0x0000);
+        if (keywordName != null) {
+            IppTag.getPrinterAttributesTag(buffer);
+            IppTag.getKeyword(buffer, keywordName, keywordValues[0]);
+            for (int i = 1; i < keywordValues.length; i++) {
+                IppTag.getKeyword(buffer, null, keywordValues[i]);
+            }
+        }
+        IppTag.getEnd(buffer);
+        buffer.flip();
+        byte[] response = new byte[buffer.remaining()];
+        buffer.get(response);
+        if (request.length >= 8) {
+            System.arraycopy(request, 4, response, 4, 4);
+            if (wrongRequestId) {
+                response[7]++;
+            }
+        }
+        return response;
+    }
+
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Lets the stub answer with another request-id than the one of the
+     * request.
+     *
+     * @param wrongRequestId true for a wrong request-id
+     */
+    public void setWrongRequestId(boolean wrongRequestId) {
+        this.wrongRequestId = wrongRequestId;
+    }
+
+    /**
+     * Adds the given keyword attribute as printer attribute to the
+     * responses, e.g. "compression-supported".
+     *
+     * @param name   attribute name
+     * @param values one or more keywords
+     */
+    public void setKeywords(String name, String... values) {
+        this.keywordValues = values;
+        this.keywordName = name;
+    }
+
+    /**
+     * Lets the stub answer slowly like a stalled cupsd.
+     *
+     * @param millis delay before each response
+     */
+    public void setDelay(long millis) {
+        this.delay = millis;
+    }
+
+    /**
+     * Requires the given "Authorization" header. Requests without it are
+     * answered with "401 Unauthorized" and a Basic challenge.
+     *
+     * @param authorization expected header value (or null)
+     */
+    public void setAuthorization(String authorization) {
+        this.authorization = authorization;
+    }
+
+    public URI getURI(String path) {
+        String scheme = (server instanceof HttpsServer) ? "https" : "http";
+        return URI.create(scheme + "://localhost:" + server.getAddress().getPort() + path);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public List<byte[]> getRequests() {
+        return requests;
+    }
+
+    /**
+     * Gets the "Content-Length" headers of the received requests. For
+     * chunked requests the header is null.
+     *
+     * @return list of content lengths
+     */
+    public List<String> getContentLengths() {
+        return contentLengths;
+    }
+
+    /**
+     * The number of different remote ports is the number of different
+     * connections which were used by the client.
+     *
+     * @return number of connections
+     */
+    public int getNumberOfConnections() {
+        synchronized (remotePorts) {
+            return new HashSet<Integer>(remotePorts).size();
+        }
+    }
+
+    /**
+     * Gets the remote ports of the received requests. Requests with the same
+     * remote port were sent over the same connection.
+     *
+     * @return list of remote ports
+     */
+    public List<Integer> getRemotePorts() {
+        return remotePorts;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import ch.ethz.vppserver.ippclient.IppResult;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link LaneTransport} class.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class LaneTransportTest {
+
+    private static final URI URI_PRINTER = URI.create("http://localhost:631/printers/test");
+
+    @Test
+    public void testBatchDoesNotBlockInteractive() throws Exception {
+        final BlockingTransport batch = new BlockingTransport();
+        BlockingTransport interactive = new BlockingTransport();
+        interactive.release.countDown();
+        final LaneTransport transport = LaneTransport.builder().lane(TrafficClass.BATCH, batch, 1)
+                .lane(TrafficClass.INTERACTIVE, interactive, 1).build();
+        Thread batchThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    transport.send(createRequest(TrafficClass.BATCH));
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        });
+        batchThread.start();
+        assertTrue(batch.started.await(5, TimeUnit.SECONDS));
+        assertEquals(0, transport.getAvailableSlots(TrafficClass.BATCH));
+        assertNotNull(transport.send(createRequest(TrafficClass.INTERACTIVE)));
+        assertEquals(1, transport.getAvailableSlots(TrafficClass.INTERACTIVE));
+        batch.release.countDown();
+        batchThread.join(5000);
+        assertEquals(1, transport.getAvailableSlots(TrafficClass.BATCH));
+        transport.close();
+    }
+
+    @Test
+    public void testAbortWhileWaiting() throws Exception {
+        final BlockingTransport batch = new BlockingTransport();
+        final LaneTransport transport = LaneTransport.builder().lane(TrafficClass.BATCH, batch, 1).build();
+        Thread batchThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    transport.send(createRequest(TrafficClass.BATCH));
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        });
+        batchThread.start();
+        assertTrue(batch.started.await(5, TimeUnit.SECONDS));
+        CancellationToken token = CancellationToken.withTimeout(200, TimeUnit.MILLISECONDS);
+        IppRequest waiting = createRequest(TrafficClass.BATCH);
+        token.register(waiting);
+        long start = System.currentTimeMillis();
+        try {
+            transport.send(waiting);
+            fail("request should be aborted at its deadline");
+        } catch (OperationCancelledException expected) {
+            long elapsed = System.currentTimeMillis() - start;
+            assertTrue("aborted after " + elapsed + " ms", elapsed < 1000);
+        }
+        assertEquals(0, transport.getAvailableSlots(TrafficClass.BATCH));
+        batch.release.countDown();
+        batchThread.join(5000);
+        assertEquals(1, transport.getAvailableSlots(TrafficClass.BATCH));
+        transport.close();
+    }
+
+    @Test
+    public void testDefaultLane() {
+        IppTransport interactive = new BlockingTransport();
+        LaneTransport transport = LaneTransport.builder().lane(TrafficClass.INTERACTIVE, interactive, 2).build();
+        assertSame(interactive, transport.getTransport(TrafficClass.BATCH));
+        assertEquals(2, transport.getAvailableSlots(TrafficClass.BATCH));
+    }
+
+    private static IppRequest createRequest(TrafficClass trafficClass) {
+        IppRequest request = new IppRequest(URI_PRINTER, ByteBuffer.allocate(0));
+        request.setTrafficClass(trafficClass);
+        return request;
+    }
+
+    private static final class BlockingTransport implements IppTransport {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        public IppResult send(IppRequest request) throws IOException {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return new IppResult();
+        }
+
+        public void close() {
+            release.countDown();
+        }
+
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import ch.ethz.vppserver.ippclient.IppResult;
+import org.cups4j.operations.cups.CupsGetPrintersOperation;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.cups4j.PrintJob;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit tests for {@link PooledHttpTransport} class.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class PooledHttpTransportTest {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    private IppServerStub server;
+    private PooledHttpTransport transport;
+
+    @Before
+    public void setUpServer() throws IOException {
+        server = new IppServerStub();
+        transport = new PooledHttpTransport.Builder().maxPerRoute(1).build();
+    }
+
+    @After
+    public void tearDownServer() {
+        transport.close();
+        server.close();
+    }
+
+    /**
+     * Several requests to the same server should reuse the pooled
+     * connection.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testConnectionReuse() throws Exception {
+        CupsGetPrintersOperation op = new CupsGetPrintersOperation(server.getPort());
+        op.setTransport(transport);
+        for (int i = 0; i < 5; i++) {
+            op.getPrinters("localhost", server.getPort());
+        }
+        assertEquals(5, server.getRequests().size());
+        assertEquals(1, server.getNumberOfConnections());
+    }
+
+    @Test
+    public void testSendWithDocument() throws Exception {
+        byte[] header = "header".getBytes();
+        byte[] document = "document".getBytes();
+        IppResult result = transport.send(new IppRequest(server.getURI("/printers/test"),
+                ByteBuffer.wrap(header), new ByteArrayInputStream(document)));
+        assertEquals(200, result.getHttpStatusCode());
+        assertEquals("headerdocument", new String(server.getRequests().get(0)));
+    }
+
+    /**
+     * A document file should be sent with the exact content length.
+     *
+     * @throws Exception in case of connection problems
+     */
+    @Test
+    public void testSendFile() throws Exception {
+        File file = File.createTempFile("document", ".txt");
+        try {
+            FileUtils.writeStringToFile(file, "document", StandardCharsets.UTF_8);
+            PrintJob printJob = new PrintJob.Builder(file.toPath()).build();
+            IppResult result = transport.send(new IppRequest(server.getURI("/printers/test"),
+                    ByteBuffer.wrap("header".getBytes()), printJob.getDocument()));
+            assertEquals(200, result.getHttpStatusCode());
+            assertEquals("headerdocument", new String(server.getRequests().get(0)));
+            assertEquals("14", server.getContentLengths().get(0));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * IPPS connections should be pooled, too, and the TLS session should be
+     * cached in the configured SSL context.
+     *
+     * @throws Exception in case of connection or TLS problems
+     */
+    @Test
+    public void testHttpsConnectionReuse() throws Exception {
+        KeyStore keyStore = createKeyStore();
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, PASSWORD);
+        SSLContext serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(kmf.getKeyManagers(), null, null);
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(keyStore);
+        SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, tmf.getTrustManagers(), null);
+        IppServerStub httpsServer = new IppServerStub(serverContext);
+        PooledHttpTransport httpsTransport =
+                new PooledHttpTransport.Builder().maxPerRoute(1).sslContext(clientContext).build();
+        try {
+            for (int i = 0; i < 5; i++) {
+                IppResult result = httpsTransport.send(new IppRequest(httpsServer.getURI("/printers/test"),
+                        ByteBuffer.wrap(new byte[0])));
+                assertEquals(200, result.getHttpStatusCode());
+            }
+            assertEquals(1, httpsServer.getNumberOfConnections());
+            assertTrue(clientContext.getClientSessionContext().getIds().hasMoreElements());
+        } finally {
+            httpsTransport.close();
+            httpsServer.close();
+        }
+    }
+
+    private static KeyStore createKeyStore() throws Exception {
+        File file = File.createTempFile("localhost", ".p12");
+        assertTrue(file.delete());
+        try {
+            String keytool = new File(System.getProperty("java.home"), "bin/keytool").getPath();
+            Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "localhost", "-keyalg", "RSA",
+                    "-dname", "CN=localhost", "-ext", "SAN=dns:localhost", "-validity", "1", "-storetype", "PKCS12",
+                    "-keystore", file.getPath(), "-storepass", new String(PASSWORD), "-keypass",
+                    new String(PASSWORD)).redirectErrorStream(true).start();
+            IOUtils.toString(process.getInputStream(), StandardCharsets.UTF_8);
+            assumeTrue("keytool is not available", process.waitFor() == 0);
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            InputStream istream = new FileInputStream(file);
+            try {
+                keyStore.load(istream, PASSWORD);
+            } finally {
+                istream.close();
+            }
+            return keyStore;
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testStatusCode() throws Exception {
+        server.setStatusCode(426);
+        IppResult result = transport.send(new IppRequest(server.getURI("/printers/test"),
+                ByteBuffer.wrap(new byte[0])));
+        assertEquals(426, result.getHttpStatusCode());
+    }
+
+}
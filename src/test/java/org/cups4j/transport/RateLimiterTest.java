@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link RateLimiter} class.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class RateLimiterTest {
+
+    private static final URI URI_A = URI.create("http://hostA:631/printers/test");
+    private static final URI URI_B = URI.create("http://hostB:631/printers/test");
+    private static final short GET_JOBS = 0x000a;
+    private static final short PRINT_JOB = 0x0002;
+
+    @Test
+    public void testOperationClass() {
+        assertEquals(OperationClass.SUBMISSION, OperationClass.of(PRINT_JOB));
+        assertEquals(OperationClass.SUBMISSION, OperationClass.of((short) 0x0006));
+        assertEquals(OperationClass.QUERY, OperationClass.of(GET_JOBS));
+        assertEquals(OperationClass.QUERY, OperationClass.of((short) 0x4002));
+    }
+
+    @Test
+    public void testWaitForToken() throws Exception {
+        RateLimiter limiter = RateLimiter.builder().limit(OperationClass.QUERY, 10, 2).build();
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire(URI_A, GET_JOBS);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("third request should wait about 100 ms, but waited " + elapsed + " ms", elapsed >= 80);
+        RateLimiter.Metrics metrics = limiter.getMetrics(OperationClass.QUERY);
+        assertEquals(3, metrics.getAcquired());
+        assertEquals(1, metrics.getDelayed());
+        assertTrue(metrics.getMaxWaitTime(TimeUnit.MILLISECONDS) >= 80);
+    }
+
+    @Test
+    public void testReject() throws Exception {
+        RateLimiter limiter = RateLimiter.builder().limit(OperationClass.SUBMISSION, 1, 1)
+                .maxWait(0, TimeUnit.MILLISECONDS).build();
+        limiter.acquire(URI_A, PRINT_JOB);
+        limiter.acquire(URI_A, GET_JOBS);
+        limiter.acquire(URI_B, PRINT_JOB);
+        try {
+            limiter.acquire(URI_A, PRINT_JOB);
+            fail("rate limit should be exceeded");
+        } catch (RateLimitExceededException expected) {
+            assertEquals(1, limiter.getMetrics(OperationClass.SUBMISSION).getRejected());
+        }
+    }
+
+    @Test
+    public void testWaitLimitedByDeadline() throws Exception {
+        RateLimiter limiter = RateLimiter.builder().limit(OperationClass.QUERY, 1, 1).build();
+        CancellationToken token = CancellationToken.withTimeout(200, TimeUnit.MILLISECONDS);
+        limiter.acquire(URI_A, GET_JOBS, token);
+        long start = System.nanoTime();
+        try {
+            limiter.acquire(URI_A, GET_JOBS, token);
+            fail("wait of about 1 s should exceed the deadline");
+        } catch (RateLimitExceededException expected) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue("request should be rejected at once, but waited " + elapsed + " ms", elapsed < 100);
+        }
+        limiter.acquire(URI_A, GET_JOBS);
+        assertEquals(1, limiter.getMetrics(OperationClass.QUERY).getDelayed());
+    }
+
+    @Test
+    public void testHostLimit() throws Exception {
+        RateLimiter limiter = RateLimiter.builder().limit(OperationClass.QUERY, 1, 1)
+                .limit("hostB", 631, OperationClass.QUERY, 1000, 100).maxWait(0, TimeUnit.MILLISECONDS).build();
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire(URI_B, GET_JOBS);
+        }
+        limiter.acquire(URI_A, GET_JOBS);
+        try {
+            limiter.acquire(URI_A, GET_JOBS);
+            fail("rate limit for hostA should be exceeded");
+        } catch (RateLimitExceededException expected) {
+            assertTrue(expected.getMessage().contains("hostA:631"));
+        }
+    }
+
+}
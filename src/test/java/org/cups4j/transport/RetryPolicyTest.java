@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 17.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.conn.HttpHostConnectException;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ProtocolException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link RetryPolicy} class.
+ *
+ * @author oboehm
+ * @since 0.7.7 (17.10.2026)
+ */
+public final class RetryPolicyTest {
+
+    @Test
+    public void testIsTransient() {
+        assertTrue(RetryPolicy.isTransient(new ConnectException("Connection refused")));
+        assertTrue(RetryPolicy.isTransient(new HttpHostConnectException(new ConnectException(), null)));
+        assertTrue(RetryPolicy.isTransient(new SocketException("Connection reset")));
+        assertTrue(RetryPolicy.isTransient(new SocketException("Broken pipe (Write failed)")));
+        assertTrue(RetryPolicy.isTransient(new IOException("cannot connect", new ConnectException())));
+    }
+
+    @Test
+    public void testIsNotTransient() {
+        assertFalse(RetryPolicy.isTransient(new SocketTimeoutException("Read timed out")));
+        assertFalse(RetryPolicy.isTransient(new ProtocolException("wrong request-id")));
+        assertFalse(RetryPolicy.isTransient(new EOFException()));
+        assertFalse(RetryPolicy.isTransient(new ClientProtocolException("malformed response")));
+        assertFalse(RetryPolicy.isTransient(new SocketException("Socket closed")));
+        assertFalse(RetryPolicy.isTransient(new IOException("unknown")));
+    }
+
+}
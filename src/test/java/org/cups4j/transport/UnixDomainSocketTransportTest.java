@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026 by Oliver Boehm
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * (c)reated 16.10.2026 by oboehm (ob@oasd.de)
+ */
+package org.cups4j.transport;
+
+import ch.ethz.vppserver.ippclient.IppTag;
+import org.cups4j.CupsClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit tests for {@link UnixDomainSocketTransport} class. As stand-in for
+ * cupsd a simple HTTP server is bound to a temporary socket file.
+ *
+ * @author oboehm
+ * @since 0.7.7 (16.10.2026)
+ */
+public final class UnixDomainSocketTransportTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private File socketFile;
+    private ServerSocketChannel server;
+    private Thread serverThread;
+
+    @Before
+    public void setUpServer() throws Exception {
+        assumeTrue(UnixDomainSocketTransport.isSupported());
+        socketFile = new File(System.getProperty("java.io.tmpdir"), "cups4j-" + System.nanoTime() + ".sock");
+        server = (ServerSocketChannel) ServerSocketChannel.class.getMethod("open", ProtocolFamily.class)
+                .invoke(null, StandardProtocolFamily.valueOf("UNIX"));
+        server.bind((SocketAddress) Class.forName("java.net.UnixDomainSocketAddress")
+                .getMethod("of", String.class).invoke(null, socketFile.getPath()));
+        serverThread = new Thread(new Runnable() {
+            public void run() {
+                serve();
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    @After
+    public void tearDownServer() throws IOException {
+        if (server != null) {
+            server.close();
+            socketFile.delete();
+        }
+    }
+
+    @Test
+    public void testGetPrinters() throws Exception {
+        CupsClient client = new CupsClient(socketFile, "test");
+        try {
+            assertTrue(client.getPrinters().isEmpty());
+            assertTrue(client.getPrinters().isEmpty());
+        } finally {
+            client.close();
+        }
+        assertTrue(requests.get() >= 2);
+    }
+
+    private void serve() {
+        try {
+            while (server.isOpen()) {
+                SocketChannel channel = server.accept();
+                try {
+                    InputStream istream = Channels.newInputStream(channel);
+                    OutputStream ostream = Channels.newOutputStream(channel);
+                    while (handleRequest(new DataInputStream(istream), ostream)) {
+                        requests.incrementAndGet();
+                    }
+                } finally {
+                    channel.close();
+                }
+            }
+        } catch (IOException ex) {
+            // server was closed
+        }
+    }
+
+    private static boolean handleRequest(DataInputStream istream, OutputStream ostream) throws IOException {
+        int contentLength = -1;
+        for (String line = readLine(istream); line != null; line = readLine(istream)) {
+            if (line.isEmpty()) {
+                break;
+            }
+            if (line.toLowerCase().startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        if (contentLength < 0) {
+            return false;
+        }
+        byte[] request = new byte[contentLength];
+        istream.readFully(request);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        IppTag.getOperation(buffer, (short) 0x0000);
+        IppTag.getEnd(buffer);
+        buffer.flip();
+        byte[] response = new byte[buffer.remaining()];
+        buffer.get(response);
+        System.arraycopy(request, 4, response, 4, 4);
+        ostream.write(("HTTP/1.1 200 OK\r\nContent-Type: application/ipp\r\nContent-Length: " + response.length
+                + "\r\n\r\n").getBytes("ISO-8859-1"));
+        ostream.write(response);
+        ostream.flush();
+        return true;
+    }
+
+    private static String readLine(InputStream istream) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int b = istream.read(); b >= 0; b = istream.read()) {
+            if (b == '\n') {
+                String s = line.toString("ISO-8859-1");
+                return s.endsWith("\r") ? s.substring(0, s.length() - 1) : s;
+            }
+            line.write(b);
+        }
+        return null;
+    }
+
+}